@@ -0,0 +1,109 @@
+/********************************************************************************
+* Copyright (c) 2017 Davide Rossi
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 2.0 which is available at
+* http://www.eclipse.org/legal/epl-2.0.
+*
+* This Source Code may also be made available under the following Secondary
+* Licenses when the conditions for such availability set forth in the Eclipse
+* Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+* with the GNU Classpath Exception which is
+* available at https://www.gnu.org/software/classpath/license.html.
+*
+* SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+********************************************************************************/
+package net.morcilab.uml2raml.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.uml2.uml.resource.UMLResource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.morcilab.uml2raml.m2t.GenerateSession;
+import net.morcilab.uml2raml.m2t.ModelFactsCache;
+import net.morcilab.uml2raml.m2t.ModelFactsReader;
+
+/*
+ * Loading a model: in a new session, parsing the profiles too, in a
+ * session where the profiles are already loaded, streaming its
+ * facts instead of loading it and reading the facts cached next to it
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ModelLoadBenchmark {
+	@State(Scope.Thread)
+	public static class SharedSession {
+		private GenerateSession session;
+
+		@Setup
+		public void preloadProfiles(SyntheticModelState model) throws IOException {
+			this.session = new GenerateSession();
+			this.session.preloadProfile(new File(model.getDirectory(), "raml.profile.uml").getPath());
+			this.session.preloadProfile(new File(model.getDirectory(), "rest.profile.uml").getPath());
+		}
+
+		@TearDown
+		public void close() {
+			this.session.close();
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class FactsCache {
+		private ModelFactsCache cache;
+
+		@Setup
+		public void storeFacts(SyntheticModelState model) throws IOException {
+			this.cache = new ModelFactsCache(new ModelFactsReader());
+			this.cache.read(model.getUmlFile().getPath());
+		}
+	}
+
+	@Benchmark
+	public int load(SyntheticModelState model) throws IOException {
+		try(GenerateSession session = new GenerateSession()) {
+			return resolve(session.load(model.getUmlFile().getPath()));
+		}
+	}
+
+	@Benchmark
+	public int loadWithSharedProfiles(SyntheticModelState model, SharedSession shared) throws IOException {
+		//the model loaded by the previous invocation is unloaded first
+		return resolve(shared.session.load(model.getUmlFile().getPath()));
+	}
+
+	@Benchmark
+	public int readFacts(SyntheticModelState model) throws IOException {
+		return new ModelFactsReader().read(model.getUmlFile().getPath()).getElementCount();
+	}
+
+	@Benchmark
+	public int readCachedFacts(SyntheticModelState model, FactsCache factsCache) throws IOException {
+		return factsCache.cache.read(model.getUmlFile().getPath()).getElementCount();
+	}
+
+	/*
+	 * The generation resolves all the references, the load is measured up to that point
+	 */
+	private static int resolve(UMLResource umlResource) {
+		EcoreUtil.resolveAll(umlResource);
+		return umlResource.getContents().size();
+	}
+}
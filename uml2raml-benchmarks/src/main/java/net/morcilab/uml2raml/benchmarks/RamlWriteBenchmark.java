@@ -0,0 +1,64 @@
+/********************************************************************************
+* Copyright (c) 2017 Davide Rossi
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 2.0 which is available at
+* http://www.eclipse.org/legal/epl-2.0.
+*
+* This Source Code may also be made available under the following Secondary
+* Licenses when the conditions for such availability set forth in the Eclipse
+* Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+* with the GNU Classpath Exception which is
+* available at https://www.gnu.org/software/classpath/license.html.
+*
+* SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+********************************************************************************/
+package net.morcilab.uml2raml.benchmarks;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.morcilab.uml2raml.m2t.Generate;
+import net.morcilab.uml2raml.raml.RamlModel;
+
+/*
+ * Writing the RAML of all the APIs of the model, generated once per trial
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RamlWriteBenchmark {
+	private List<RamlModel> ramlModels;
+
+	@Setup
+	public void generate(SyntheticModelState model) throws IOException {
+		this.ramlModels = new ArrayList<>(new Generate().generate(model.getUmlFile().getPath()).values());
+	}
+
+	@Benchmark
+	public void write(Blackhole blackhole) throws IOException {
+		for(RamlModel ramlModel : this.ramlModels) {
+			StringWriter writer = new StringWriter();
+			ramlModel.write(writer);
+			blackhole.consume(writer.getBuffer().length());
+		}
+	}
+}
@@ -0,0 +1,314 @@
+/********************************************************************************
+* Copyright (c) 2017 Davide Rossi
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 2.0 which is available at
+* http://www.eclipse.org/legal/epl-2.0.
+*
+* This Source Code may also be made available under the following Secondary
+* Licenses when the conditions for such availability set forth in the Eclipse
+* Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+* with the GNU Classpath Exception which is
+* available at https://www.gnu.org/software/classpath/license.html.
+*
+* SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+********************************************************************************/
+package net.morcilab.uml2raml.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.eclipse.uml2.uml.AggregationKind;
+import org.eclipse.uml2.uml.Dependency;
+import org.eclipse.uml2.uml.Model;
+import org.eclipse.uml2.uml.Operation;
+import org.eclipse.uml2.uml.Package;
+import org.eclipse.uml2.uml.Parameter;
+import org.eclipse.uml2.uml.ParameterDirectionKind;
+import org.eclipse.uml2.uml.PrimitiveType;
+import org.eclipse.uml2.uml.Profile;
+import org.eclipse.uml2.uml.Stereotype;
+import org.eclipse.uml2.uml.UMLFactory;
+import org.eclipse.uml2.uml.UMLPackage;
+import org.eclipse.uml2.uml.resource.UMLResource;
+import org.eclipse.uml2.uml.resources.util.UMLResourcesUtil;
+
+import net.morcilab.uml2raml.m2t.Uml2RamlException;
+
+/*
+ * Writes UML models of a given size for the benchmarks: a package of <<ApiModel>>
+ * classes associated with each other and a number of <<Api>> packages, each with
+ * its <<Resource>> classes and their <<HttpMethod>> operations referring to the
+ * ApiModels. Resources are linked in chains of <<ResourcePath>> dependencies of
+ * the given depth. The same parameters (and seed) always produce the same model
+ */
+public class SyntheticModel {
+	private static final String[] PROFILES = { "raml.profile.uml", "rest.profile.uml" };
+	private static final String[] METHODS = { "Get", "Post", "Put", "Delete" };
+	private int apis = 1;
+	private int resources = 10;
+	private int methods = 2;
+	private int types = 20;
+	private double associationDensity = 1;
+	private int pathDepth = 2;
+	private long seed = 0;
+
+	/*
+	 * Returns the model for one of the predefined scales: small, medium or large
+	 */
+	public static SyntheticModel ofScale(String scale) {
+		SyntheticModel model = new SyntheticModel();
+		switch(scale) {
+		case "small":
+			model.setApis(1);
+			model.setResources(10);
+			model.setMethods(2);
+			model.setTypes(20);
+			break;
+		case "medium":
+			model.setApis(4);
+			model.setResources(50);
+			model.setMethods(4);
+			model.setTypes(200);
+			break;
+		case "large":
+			model.setApis(8);
+			model.setResources(200);
+			model.setMethods(4);
+			model.setTypes(1000);
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown scale "+scale);
+		}
+		return model;
+	}
+
+	public void setApis(int apis) {
+		this.apis = apis;
+	}
+
+	/*
+	 * Sets the number of resources of each API
+	 */
+	public void setResources(int resources) {
+		this.resources = resources;
+	}
+
+	/*
+	 * Sets the number of operations of each resource
+	 */
+	public void setMethods(int methods) {
+		this.methods = methods;
+	}
+
+	/*
+	 * Sets the number of ApiModel classes, shared by the APIs
+	 */
+	public void setTypes(int types) {
+		this.types = types;
+	}
+
+	/*
+	 * Sets the average number of associations from each ApiModel class to the others
+	 */
+	public void setAssociationDensity(double associationDensity) {
+		this.associationDensity = associationDensity;
+	}
+
+	/*
+	 * Sets the number of resources in each chain of ResourcePath links,
+	 * 1 makes all the resources top-level ones
+	 */
+	public void setPathDepth(int pathDepth) {
+		if(pathDepth < 1) {
+			throw new IllegalArgumentException("Path depth must be at least 1");
+		}
+		this.pathDepth = pathDepth;
+	}
+
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	public String getName() {
+		return "Synthetic_"+this.apis+"x"+this.resources+"x"+this.methods+"_"+this.types+"_"+this.associationDensity+"_"+this.pathDepth;
+	}
+
+	/*
+	 * Writes the model (and the profiles it applies) to the directory,
+	 * returns the model file
+	 */
+	public File write(File directory) throws IOException {
+		directory.mkdirs();
+		for(String profile : PROFILES) {
+			try(InputStream in = SyntheticModel.class.getResourceAsStream("/profiles/"+profile)) {
+				if(in == null) {
+					throw new Uml2RamlException("Profile "+profile+" not found in the classpath");
+				}
+				Files.copy(in, new File(directory, profile).toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		ResourceSet resourceSet = new ResourceSetImpl();
+		UMLResourcesUtil.init(resourceSet);
+		resourceSet.getPackageRegistry().put(UMLPackage.eNS_URI, UMLPackage.eINSTANCE);
+		resourceSet.getResourceFactoryRegistry().getExtensionToFactoryMap().put(UMLResource.FILE_EXTENSION, UMLResource.Factory.INSTANCE);
+		try {
+			Profile ramlProfile = (Profile)load(resourceSet, URI.createFileURI(new File(directory, PROFILES[0]).getAbsolutePath()));
+			Profile restProfile = (Profile)load(resourceSet, URI.createFileURI(new File(directory, PROFILES[1]).getAbsolutePath()));
+			Package primitiveTypes = (Package)load(resourceSet, URI.createURI(UMLResource.UML_PRIMITIVE_TYPES_LIBRARY_URI));
+			File umlFile = new File(directory, getName()+"."+UMLResource.FILE_EXTENSION);
+			Resource resource = resourceSet.createResource(URI.createFileURI(umlFile.getAbsolutePath()));
+			Model model = UMLFactory.eINSTANCE.createModel();
+			model.setName(getName());
+			//stereotypes can be applied only to elements contained in a resource
+			resource.getContents().add(model);
+			model.applyProfile(ramlProfile);
+			model.applyProfile(restProfile);
+			model.createPackageImport(primitiveTypes);
+			Builder builder = new Builder(model, ramlProfile, restProfile, primitiveTypes);
+			builder.createTypes();
+			for(int i = 0; i < this.apis; i++) {
+				builder.createApi(i);
+			}
+			resource.save(null);
+			return umlFile;
+		} finally {
+			for(Resource resource : resourceSet.getResources()) {
+				resource.unload();
+			}
+		}
+	}
+
+	private static Package load(ResourceSet resourceSet, URI uri) {
+		Resource resource = resourceSet.getResource(uri, true);
+		return (Package)resource.getContents().get(0);
+	}
+
+	private class Builder {
+		private Random random = new Random(SyntheticModel.this.seed);
+		private Model model;
+		private Profile ramlProfile;
+		private Profile restProfile;
+		private Package primitiveTypes;
+		private List<org.eclipse.uml2.uml.Class> apiModels = new ArrayList<>();
+
+		private Builder(Model model, Profile ramlProfile, Profile restProfile, Package primitiveTypes) {
+			this.model = model;
+			this.ramlProfile = ramlProfile;
+			this.restProfile = restProfile;
+			this.primitiveTypes = primitiveTypes;
+		}
+
+		/*
+		 * ApiModel classes with a few attributes of primitive types and navigable
+		 * associations (single or multi-valued) to random other classes
+		 */
+		private void createTypes() {
+			Package typesPackage = this.model.createNestedPackage("Types");
+			Stereotype apiModel = getStereotype(this.ramlProfile, "ApiModel");
+			for(int i = 0; i < SyntheticModel.this.types; i++) {
+				org.eclipse.uml2.uml.Class type = typesPackage.createOwnedClass("Type"+i, false);
+				type.applyStereotype(apiModel);
+				type.createOwnedAttribute("id", getPrimitiveType("Integer"));
+				type.createOwnedAttribute("name", getPrimitiveType("String"));
+				type.createOwnedAttribute("active", getPrimitiveType("Boolean"));
+				this.apiModels.add(type);
+			}
+			if(this.apiModels.size() < 2) {
+				return;
+			}
+			for(int i = 0; i < this.apiModels.size(); i++) {
+				org.eclipse.uml2.uml.Class type = this.apiModels.get(i);
+				int associations = (int)SyntheticModel.this.associationDensity;
+				if(this.random.nextDouble() < SyntheticModel.this.associationDensity-associations) {
+					associations++;
+				}
+				for(int j = 0; j < associations; j++) {
+					org.eclipse.uml2.uml.Class target = this.apiModels.get(this.random.nextInt(this.apiModels.size()));
+					if(target == type) {
+						target = this.apiModels.get((i+1)%this.apiModels.size());
+					}
+					int upper = j%2 == 0 ? 1 : -1;
+					type.createAssociation(true, AggregationKind.NONE_LITERAL, "ref"+j, 0, upper, target,
+							false, AggregationKind.NONE_LITERAL, "type"+i+"ref"+j, 0, -1);
+				}
+			}
+		}
+
+		/*
+		 * An API package with its resources, every pathDepth resources a new
+		 * chain of ResourcePath links starts from a top-level resource
+		 */
+		private void createApi(int index) {
+			Package api = this.model.createNestedPackage("Api"+index);
+			Stereotype apiStereotype = getStereotype(this.restProfile, "Api");
+			api.applyStereotype(apiStereotype);
+			api.setValue(apiStereotype, "baseUri", "http://api"+index+".example.org");
+			Stereotype resourceStereotype = getStereotype(this.restProfile, "Resource");
+			Stereotype pathStereotype = getStereotype(this.restProfile, "ResourcePath");
+			org.eclipse.uml2.uml.Class parent = null;
+			for(int i = 0; i < SyntheticModel.this.resources; i++) {
+				org.eclipse.uml2.uml.Class resource = api.createOwnedClass("R"+i, false);
+				resource.applyStereotype(resourceStereotype);
+				if(i%SyntheticModel.this.pathDepth == 0) {
+					resource.setValue(resourceStereotype, "path", "/r"+i);
+				} else {
+					Dependency link = parent.createDependency(resource);
+					link.applyStereotype(pathStereotype);
+					link.setValue(pathStereotype, "path", i%2 == 0 ? "/r"+i : "/{id"+i+"}");
+				}
+				for(int j = 0; j < SyntheticModel.this.methods; j++) {
+					createMethod(resource, j);
+				}
+				parent = resource;
+			}
+		}
+
+		/*
+		 * Get and Delete operations take a query parameter, Post and Put a request
+		 * body; all of them return an ApiModel (when there are types)
+		 */
+		private void createMethod(org.eclipse.uml2.uml.Class resource, int index) {
+			String method = METHODS[index%METHODS.length];
+			Operation operation = resource.createOwnedOperation(method.toLowerCase()+index, null, null);
+			operation.applyStereotype(getStereotype(this.ramlProfile, method));
+			if((method.equals("Post") || method.equals("Put")) && !this.apiModels.isEmpty()) {
+				Parameter body = operation.createOwnedParameter("body", randomApiModel());
+				body.setDirection(ParameterDirectionKind.IN_LITERAL);
+			} else {
+				Parameter query = operation.createOwnedParameter("query", getPrimitiveType("String"));
+				query.setDirection(ParameterDirectionKind.IN_LITERAL);
+			}
+			if(this.apiModels.size() > 0) {
+				Parameter result = operation.createOwnedParameter("result", randomApiModel());
+				result.setDirection(ParameterDirectionKind.RETURN_LITERAL);
+			}
+		}
+
+		private org.eclipse.uml2.uml.Class randomApiModel() {
+			return this.apiModels.get(this.random.nextInt(this.apiModels.size()));
+		}
+
+		private PrimitiveType getPrimitiveType(String name) {
+			return (PrimitiveType)this.primitiveTypes.getOwnedType(name);
+		}
+
+		private Stereotype getStereotype(Profile profile, String name) {
+			Stereotype stereotype = profile.getOwnedStereotype(name);
+			if(stereotype == null) {
+				throw new Uml2RamlException("Stereotype "+name+" not found in profile "+profile.getName());
+			}
+			return stereotype;
+		}
+	}
+}
@@ -0,0 +1,71 @@
+/********************************************************************************
+* Copyright (c) 2017 Davide Rossi
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 2.0 which is available at
+* http://www.eclipse.org/legal/epl-2.0.
+*
+* This Source Code may also be made available under the following Secondary
+* Licenses when the conditions for such availability set forth in the Eclipse
+* Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+* with the GNU Classpath Exception which is
+* available at https://www.gnu.org/software/classpath/license.html.
+*
+* SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+********************************************************************************/
+package net.morcilab.uml2raml.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/*
+ * The synthetic model file used by a benchmark trial, written to a temporary
+ * directory (with the profiles) before the trial and removed after it.
+ * The size of the model is set with the JMH parameters, e.g. -p scale=large
+ */
+@State(Scope.Benchmark)
+public class SyntheticModelState {
+	@Param({"small", "medium", "large"})
+	public String scale;
+	@Param({"1.5"})
+	public double associationDensity;
+	@Param({"3"})
+	public int pathDepth;
+	private File directory;
+	private File umlFile;
+
+	@Setup
+	public void writeModel() throws IOException {
+		SyntheticModel model = SyntheticModel.ofScale(this.scale);
+		model.setAssociationDensity(this.associationDensity);
+		model.setPathDepth(this.pathDepth);
+		this.directory = Files.createTempDirectory("uml2raml-benchmarks").toFile();
+		this.umlFile = model.write(this.directory);
+	}
+
+	@TearDown
+	public void deleteModel() {
+		File[] files = this.directory.listFiles();
+		if(files != null) {
+			for(File file : files) {
+				file.delete();
+			}
+		}
+		this.directory.delete();
+	}
+
+	public File getDirectory() {
+		return this.directory;
+	}
+
+	public File getUmlFile() {
+		return this.umlFile;
+	}
+}
@@ -0,0 +1,142 @@
+/********************************************************************************
+* Copyright (c) 2017 Davide Rossi
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 2.0 which is available at
+* http://www.eclipse.org/legal/epl-2.0.
+*
+* This Source Code may also be made available under the following Secondary
+* Licenses when the conditions for such availability set forth in the Eclipse
+* Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+* with the GNU Classpath Exception which is
+* available at https://www.gnu.org/software/classpath/license.html.
+*
+* SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+********************************************************************************/
+package net.morcilab.uml2raml.m2t;
+
+import static net.morcilab.uml2raml.m2t.ProfileNames.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.uml2.uml.Element;
+import org.eclipse.uml2.uml.NamedElement;
+import org.eclipse.uml2.uml.Package;
+import org.eclipse.uml2.uml.resource.UMLResource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.morcilab.uml2raml.benchmarks.SyntheticModelState;
+import net.morcilab.uml2raml.raml.RamlModel;
+import net.morcilab.uml2raml.raml.RamlObjectType;
+import net.morcilab.uml2raml.raml.RamlSimpleType;
+import net.morcilab.uml2raml.raml.RamlType;
+
+/*
+ * The steps of a generation on a loaded model: the whole processModel, the
+ * closure of the types referred to by each API and the materialization of
+ * the types of the closures. With freshIndex the UmlIndex of the model is
+ * dropped before each invocation, as in a generation after a new load;
+ * otherwise the lookups are served by the tables built by the previous ones
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GenerateBenchmark {
+	@Param({"true", "false"})
+	public boolean freshIndex;
+	@Param({"1"})
+	public int threads;
+	private GenerateSession session;
+	private UMLResource umlResource;
+	private UmlIndex index;
+	private Generate generate;
+	private ModelProcessor<Element> processor;
+	//the types referred to directly by each API and their closure
+	private List<List<String>> typeNames = new ArrayList<>();
+	private List<List<String>> closures = new ArrayList<>();
+
+	@Setup
+	public void load(SyntheticModelState model) throws IOException {
+		this.session = new GenerateSession();
+		this.umlResource = this.session.load(model.getUmlFile().getPath());
+		EcoreUtil.resolveAll(this.umlResource);
+		this.index = UmlIndex.getIndex(this.umlResource);
+		this.generate = new Generate();
+		this.generate.setThreads(this.threads);
+		this.processor = new ModelProcessor<>(this.index.getModelAccess(), false, new GenerationReport());
+		Element rootElement = (Element)this.umlResource.getContents().get(0);
+		for(Package packageElement : UmlUtils.findElements(rootElement, Package.class, RESTPROFILE_API_FQN)) {
+			RamlModel ramlModel = this.processor.processAPI(packageElement);
+			this.typeNames.add(new ArrayList<>(ramlModel.getTypeNameSet()));
+			this.processor.computeTypesSetClosure(ramlModel);
+			this.closures.add(new ArrayList<>(ramlModel.getTypeNameSet()));
+		}
+	}
+
+	@Setup(Level.Invocation)
+	public void invalidateIndex() {
+		if(this.freshIndex) {
+			this.index.invalidate();
+		}
+	}
+
+	@TearDown
+	public void close() {
+		this.session.close();
+	}
+
+	@Benchmark
+	public Map<String, RamlModel> processModel() {
+		return this.generate.processModel(this.umlResource, null);
+	}
+
+	@Benchmark
+	public void computeTypesSetClosure(Blackhole blackhole) {
+		for(List<String> apiTypeNames : this.typeNames) {
+			RamlModel ramlModel = new RamlModel("Closure");
+			ramlModel.setTypeNameSet(new LinkedHashSet<>(apiTypeNames));
+			this.processor.computeTypesSetClosure(ramlModel);
+			blackhole.consume(ramlModel.getTypeNameSet());
+		}
+	}
+
+	@Benchmark
+	public void materializeTypes(Blackhole blackhole) {
+		for(List<String> closure : this.closures) {
+			RamlModel ramlModel = new RamlModel("Types");
+			List<RamlType> ramlTypes = new ArrayList<>();
+			for(String typeName : closure) {
+				NamedElement namedElement = this.index.getElementByQN(typeName);
+				if(namedElement instanceof org.eclipse.uml2.uml.Class) {
+					ramlTypes.add(new RamlObjectType(typeName, ramlModel));
+				} else {
+					ramlTypes.add(new RamlSimpleType(typeName, ramlModel));
+				}
+			}
+			this.processor.processRamlTypes(ramlTypes, null);
+			blackhole.consume(ramlTypes);
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package net.morcilab.uml2raml.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * The inputs of a generation: a hash of the plugin configuration and the
+ * content hashes of the files read (the model and its profiles) and written.
+ * A generation is up to date when the configuration is the same and none of
+ * the files has been changed or removed since the fingerprint was stored
+ */
+class Fingerprint {
+	private String configuration;
+	private Map<String, String> files = new LinkedHashMap<>();
+
+	public Fingerprint(String configuration) {
+		this.configuration = hash(configuration.getBytes(StandardCharsets.UTF_8));
+	}
+
+	public void addFile(File file) throws IOException {
+		this.files.put(file.getAbsolutePath(), hash(file));
+	}
+
+	/*
+	 * Compares the configuration with the stored one and the files listed in
+	 * the stored fingerprint with their current content
+	 */
+	public boolean isUpToDate(File fingerprintFile) throws IOException {
+		if(!fingerprintFile.isFile()) {
+			return false;
+		}
+		List<String> lines = Files.readAllLines(fingerprintFile.toPath(), StandardCharsets.UTF_8);
+		if(lines.isEmpty() || !lines.get(0).equals(this.configuration)) {
+			return false;
+		}
+		for(String line : lines.subList(1, lines.size())) {
+			int separator = line.indexOf(' ');
+			if(separator < 0) {
+				return false;
+			}
+			File file = new File(line.substring(separator+1));
+			if(!file.isFile() || !line.substring(0, separator).equals(hash(file))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public void write(File fingerprintFile) throws IOException {
+		List<String> lines = new ArrayList<>();
+		lines.add(this.configuration);
+		for(Map.Entry<String, String> entry : this.files.entrySet()) {
+			lines.add(entry.getValue()+" "+entry.getKey());
+		}
+		fingerprintFile.getParentFile().mkdirs();
+		Files.write(fingerprintFile.toPath(), lines, StandardCharsets.UTF_8);
+	}
+
+	private static String hash(File file) throws IOException {
+		return hash(Files.readAllBytes(file.toPath()));
+	}
+
+	static String hash(byte[] bytes) {
+		try {
+			StringBuilder hex = new StringBuilder();
+			for(byte b : MessageDigest.getInstance("SHA-256").digest(bytes)) {
+				hex.append(String.format("%02x", b));
+			}
+			return hex.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -1,5 +1,13 @@
 package net.morcilab.uml2raml.maven;
 
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
@@ -8,9 +16,12 @@ import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 
 import net.morcilab.uml2raml.m2t.Generate;
+import net.morcilab.uml2raml.m2t.GenerateSession;
 
 @Mojo(name = "uml2raml", defaultPhase = LifecyclePhase.GENERATE_SOURCES)
 public class MavenPlugin extends AbstractMojo {
+	//shared by the executions of the plugin in the same JVM, profiles are loaded again only when their files change
+	private static GenerateSession SESSION;
 	@Parameter(property = "umlFile", defaultValue = "in.uml")
 	private String umlFile;
 	@Parameter(property = "ramlFile", defaultValue = "out.raml")
@@ -25,12 +36,52 @@ public class MavenPlugin extends AbstractMojo {
 	private String arrayAsTypes;
 	@Parameter(property = "apiName", defaultValue = "")
 	private String apiName;
+	@Parameter(property = "threads", defaultValue = "1")
+	private String threads;
+	@Parameter(property = "cacheDirectory", defaultValue = "")
+	private String cacheDirectory;
+	//with apiName only the fragments of the model used by the selected APIs are loaded
+	@Parameter(property = "lazyLoading", defaultValue = "false")
+	private String lazyLoading;
+	//stream the stereotyped elements from the model files instead of loading the UML model
+	@Parameter(property = "fastPath", defaultValue = "false")
+	private String fastPath;
+	//like fastPath, reusing the facts cached next to the model while it and its profiles do not change
+	@Parameter(property = "factsCache", defaultValue = "false")
+	private String factsCache;
+	//when set every API (or the ones in the comma-separated apiName) is written to its own file
+	@Parameter(property = "ramlFilePattern", defaultValue = "")
+	private String ramlFilePattern;
+	@Parameter(property = "force", defaultValue = "false")
+	private String force;
+	//the JSON report of the generation, by default in the uml2raml directory of the build directory
+	@Parameter(property = "statsFile", defaultValue = "")
+	private String statsFile;
+	@Parameter(defaultValue = "${project.build.directory}", readonly = true)
+	private File buildDirectory;
+	//part of the fingerprint, other versions may generate different RAML
+	@Parameter(defaultValue = "${plugin.version}", readonly = true)
+	private String pluginVersion;
 
 	public void execute() throws MojoExecutionException, MojoFailureException {
 		getLog().info("uml2raml");
 		getLog().info("umlFile: "+umlFile);
-		getLog().info("ramlFile: "+ramlFile);
+		boolean multipleFiles = ramlFilePattern != null && !ramlFilePattern.equals("");
+		String output = multipleFiles ? ramlFilePattern : ramlFile;
+		getLog().info((multipleFiles ? "ramlFilePattern: " : "ramlFile: ")+output);
 		try {
+			//the fingerprint of the last generation is kept in the build directory
+			Fingerprint fingerprint = null;
+			File fingerprintFile = null;
+			String outputHash = output == null ? null : Fingerprint.hash(new File(output).getAbsolutePath().getBytes("UTF-8"));
+			if(output != null && !output.equals("-") && buildDirectory != null) {
+				fingerprint = new Fingerprint(pluginVersion+"\n"+umlFile+"\n"+output+"\n"+generateDescriptionFiles+"\n"+descriptionPath+"\n"+arrayAsTypes+"\n"+apiName);
+				fingerprintFile = new File(buildDirectory, "uml2raml/"+outputHash+".fingerprint");
+				if((force == null || !force.equalsIgnoreCase("true")) && fingerprint.isUpToDate(fingerprintFile)) {
+					getLog().info(output+" is up to date");
+					return;
+				}
+			}
 			Generate generate = new Generate();
 			if(verbose != null && verbose.equalsIgnoreCase("true")) {
 				generate.setVerbose(true);
@@ -44,10 +95,63 @@ public class MavenPlugin extends AbstractMojo {
 			if(arrayAsTypes != null && arrayAsTypes.equalsIgnoreCase("true")) {
 				generate.setArraysAsTypes(true);
 			}
+			if(threads != null && !threads.equals("")) {
+				generate.setThreads(Integer.parseInt(threads));
+			}
+			if(cacheDirectory != null && !cacheDirectory.equals("")) {
+				generate.setCacheDirectory(cacheDirectory);
+			}
+			if(lazyLoading != null && lazyLoading.equalsIgnoreCase("true")) {
+				generate.setLazyLoading(true);
+			}
+			if(fastPath != null && fastPath.equalsIgnoreCase("true")) {
+				generate.setFastPath(true);
+			}
+			if(factsCache != null && factsCache.equalsIgnoreCase("true")) {
+				generate.setFactsCache(true);
+			}
 			if(apiName != null && apiName.equals("")) {
 				 apiName = null;
 			}
-			generate.generateFile(umlFile, ramlFile, apiName);
+			List<String> outputFiles = new ArrayList<>();
+			synchronized(MavenPlugin.class) {
+				if(SESSION == null) {
+					SESSION = new GenerateSession();
+				}
+				generate.setSession(SESSION);
+				if(multipleFiles) {
+					Collection<String> apiNames = apiName == null ? null : Arrays.asList(apiName.split(","));
+					outputFiles.addAll(generate.generateFiles(umlFile, ramlFilePattern, apiNames).values());
+				} else {
+					generate.generateFile(umlFile, ramlFile, apiName);
+					outputFiles.add(ramlFile);
+				}
+			}
+			File reportFile = null;
+			if(statsFile != null && !statsFile.equals("")) {
+				reportFile = new File(statsFile);
+			} else if(outputHash != null && buildDirectory != null) {
+				reportFile = new File(buildDirectory, "uml2raml/"+outputHash+".stats.json");
+			}
+			if(reportFile != null) {
+				if(reportFile.getAbsoluteFile().getParentFile() != null) {
+					reportFile.getAbsoluteFile().getParentFile().mkdirs();
+				}
+				Files.write(reportFile.toPath(), generate.getReport().toJSON().getBytes(StandardCharsets.UTF_8));
+				getLog().info("Generation report: "+reportFile);
+			}
+			if(fingerprint != null) {
+				for(File inputFile : generate.getInputFiles()) {
+					fingerprint.addFile(inputFile);
+				}
+				for(String outputFile : outputFiles) {
+					fingerprint.addFile(new File(outputFile));
+				}
+				for(File descriptionFile : generate.getDescriptionFiles()) {
+					fingerprint.addFile(descriptionFile);
+				}
+				fingerprint.write(fingerprintFile);
+			}
 		} catch (Exception e) {
 			throw new MojoExecutionException(e.getMessage(), e);
 		}
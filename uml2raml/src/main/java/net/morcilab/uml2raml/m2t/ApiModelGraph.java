@@ -0,0 +1,89 @@
+/********************************************************************************
+* Copyright (c) 2017 Davide Rossi
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 2.0 which is available at
+* http://www.eclipse.org/legal/epl-2.0.
+*
+* This Source Code may also be made available under the following Secondary
+* Licenses when the conditions for such availability set forth in the Eclipse
+* Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+* with the GNU Classpath Exception which is
+* available at https://www.gnu.org/software/classpath/license.html.
+*
+* SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+********************************************************************************/
+package net.morcilab.uml2raml.m2t;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * The references between <<ApiModel>> types, keyed by qualified name.
+ * The types referenced by a class are the <<ApiModel>> end types of its
+ * associations and the <<ApiModel>> types of its attributes; they are
+ * computed once per class and reused by all the closures on the graph
+ * (closures on the same graph can be computed concurrently)
+ */
+public class ApiModelGraph<E> {
+	private ModelAccess<E> model;
+	private Map<String, Set<String>> references = new ConcurrentHashMap<>();
+
+	public ApiModelGraph(ModelAccess<E> model) {
+		this.model = model;
+	}
+
+	/*
+	 * Returns the qualified names of the <<ApiModel>> types directly referenced
+	 * by the type. Types that are not classes (faceted DataTypes) have no references
+	 */
+	public Set<String> getReferencedTypeNames(String typeFQN) {
+		Set<String> typeNames = this.references.get(typeFQN);
+		if(typeNames == null) {
+			E clazz = this.model.getClassByQN(typeFQN);
+			if(clazz == null) {
+				typeNames = Collections.emptySet();
+			} else {
+				typeNames = new LinkedHashSet<>();
+				for(E association : this.model.getAssociations(clazz)) {
+					for(E type : this.model.getEndTypes(association)) {
+						if(this.model.isApiModel(type)) {
+							typeNames.add(this.model.getQualifiedName(type));
+						}
+					}
+				}
+				for(E property : this.model.getAllAttributes(clazz)) {
+					E type = this.model.getType(property);
+					if(this.model.isApiModel(type)) {
+						typeNames.add(this.model.getQualifiedName(type));
+					}
+				}
+			}
+			this.references.put(typeFQN, typeNames);
+		}
+		return typeNames;
+	}
+
+	/*
+	 * Returns the qualified names of all the types reachable from the given ones
+	 * (included), in breadth-first order
+	 */
+	public Set<String> getClosure(Collection<String> typeNames) {
+		Set<String> closure = new LinkedHashSet<>(typeNames);
+		Queue<String> worklist = new LinkedList<>(closure);
+		while(!worklist.isEmpty()) {
+			for(String typeName : getReferencedTypeNames(worklist.remove())) {
+				if(closure.add(typeName)) {
+					worklist.add(typeName);
+				}
+			}
+		}
+		return closure;
+	}
+}
@@ -0,0 +1,200 @@
+/********************************************************************************
+* Copyright (c) 2017 Davide Rossi
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 2.0 which is available at
+* http://www.eclipse.org/legal/epl-2.0.
+*
+* This Source Code may also be made available under the following Secondary
+* Licenses when the conditions for such availability set forth in the Eclipse
+* Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+* with the GNU Classpath Exception which is
+* available at https://www.gnu.org/software/classpath/license.html.
+*
+* SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+********************************************************************************/
+package net.morcilab.uml2raml.m2t;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.morcilab.uml2raml.m2t.ModelFacts.ElementFacts;
+import net.morcilab.uml2raml.m2t.ModelFacts.Kind;
+import net.morcilab.uml2raml.raml.RamlTypeDeclaration;
+
+/*
+ * The access to the facts of a UML model streamed from its files (see
+ * ModelFactsReader). The facts are only read, the resource graphs and the
+ * type declarations are memoized as the index of a loaded model does
+ */
+class FactsModelAccess implements ModelAccess<ElementFacts> {
+	private final ModelFacts facts;
+	private final ApiModelGraph<ElementFacts> apiModelGraph = new ApiModelGraph<>(this);
+	private Map<ElementFacts, ResourceGraph<ElementFacts>> resourceGraphs = new ConcurrentHashMap<>();
+	private Map<RamlTypeDeclaration, RamlTypeDeclaration> internedTypeDeclarations = new ConcurrentHashMap<>();
+
+	FactsModelAccess(ModelFacts facts) {
+		this.facts = facts;
+	}
+
+	@Override
+	public String getId(ElementFacts element) {
+		return element.getId();
+	}
+
+	@Override
+	public String getName(ElementFacts element) {
+		return element.getName();
+	}
+
+	@Override
+	public String getQualifiedName(ElementFacts element) {
+		return element.getQualifiedName();
+	}
+
+	@Override
+	public boolean isClass(ElementFacts element) {
+		return element != null && element.getKind() == Kind.CLASS;
+	}
+
+	@Override
+	public boolean isDataType(ElementFacts element) {
+		return element != null && element.getKind() == Kind.DATA_TYPE;
+	}
+
+	@Override
+	public boolean isTypedElement(ElementFacts element) {
+		return element != null && (element.getKind() == Kind.PROPERTY || element.getKind() == Kind.PARAMETER);
+	}
+
+	@Override
+	public ElementFacts getOwner(ElementFacts element) {
+		return element.getOwner();
+	}
+
+	@Override
+	public ElementFacts getNearestPackage(ElementFacts element) {
+		return element.getNearestPackage();
+	}
+
+	@Override
+	public List<ElementFacts> getAllOwnedElements(ElementFacts element) {
+		return element.getAllOwnedElements();
+	}
+
+	@Override
+	public StereotypeProperties getStereotype(ElementFacts element, String stereotypeFQName) {
+		return element.getStereotype(stereotypeFQName);
+	}
+
+	@Override
+	public boolean hasStereotype(ElementFacts element, String stereotypeFQName) {
+		return element.hasStereotype(stereotypeFQName);
+	}
+
+	@Override
+	public List<ElementFacts> getOperations(ElementFacts element) {
+		if(isClass(element)) {
+			return element.getOwnedElements(Kind.OPERATION);
+		}
+		return Collections.emptyList();
+	}
+
+	@Override
+	public List<ElementFacts> getParameters(ElementFacts operation) {
+		return operation.getOwnedElements(Kind.PARAMETER);
+	}
+
+	@Override
+	public String getDirection(ElementFacts parameter) {
+		return parameter.getDirection();
+	}
+
+	@Override
+	public List<ElementFacts> getAllAttributes(ElementFacts classifier) {
+		if(isClass(classifier) || isDataType(classifier)) {
+			return classifier.getAllAttributes();
+		}
+		return Collections.emptyList();
+	}
+
+	@Override
+	public List<ElementFacts> getAssociations(ElementFacts classifier) {
+		return classifier == null ? Collections.emptyList() : classifier.getAssociations();
+	}
+
+	@Override
+	public List<ElementFacts> getEndTypes(ElementFacts association) {
+		return association.getEndTypes();
+	}
+
+	@Override
+	public List<ElementFacts> getClientDependencies(ElementFacts element) {
+		return element.getClientDependencies();
+	}
+
+	@Override
+	public List<ElementFacts> getSuppliers(ElementFacts dependency) {
+		return dependency.getSuppliers();
+	}
+
+	@Override
+	public ElementFacts getType(ElementFacts typedElement) {
+		return typedElement == null ? null : typedElement.getType();
+	}
+
+	@Override
+	public int getLower(ElementFacts element) {
+		return element.getLower();
+	}
+
+	@Override
+	public int getUpper(ElementFacts element) {
+		return element.getUpper();
+	}
+
+	@Override
+	public boolean isUnique(ElementFacts element) {
+		return element.isUnique();
+	}
+
+	@Override
+	public ElementFacts getElementByQN(String qualifiedName) {
+		return this.facts.getElementByQN(qualifiedName);
+	}
+
+	@Override
+	public ElementFacts getClassByQN(String qualifiedName) {
+		return this.facts.getClassByQN(qualifiedName);
+	}
+
+	@Override
+	public RamlTypeDeclaration getTypeDeclaration(ElementFacts element) {
+		return intern(RamlUmlUtils.createTypeDeclaration(this, element));
+	}
+
+	@Override
+	public RamlTypeDeclaration intern(RamlTypeDeclaration declaration) {
+		RamlTypeDeclaration interned = this.internedTypeDeclarations.get(declaration);
+		if(interned == null) {
+			declaration.freeze();
+			interned = this.internedTypeDeclarations.putIfAbsent(declaration, declaration);
+			if(interned == null) {
+				interned = declaration;
+			}
+		}
+		return interned;
+	}
+
+	@Override
+	public ResourceGraph<ElementFacts> getResourceGraph(ElementFacts thePackage) {
+		return this.resourceGraphs.computeIfAbsent(thePackage, key -> new ResourceGraph<>(this, key));
+	}
+
+	@Override
+	public ApiModelGraph<ElementFacts> getApiModelGraph() {
+		return this.apiModelGraph;
+	}
+}
@@ -16,11 +16,26 @@
 package net.morcilab.uml2raml.m2t;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import net.morcilab.uml2raml.raml.RamlDescriptableElement;
 import net.morcilab.uml2raml.raml.RamlElement;
@@ -31,35 +46,138 @@ import net.morcilab.uml2raml.raml.RamlModel;
  * RAML document
  */
 public class FileManager {
-	public static void generateDescriptionFiles(RamlModel model, String descriptionDirectory, String ramlFilename) throws IOException {
+	/*
+	 * The description files of a model: the ones created, the ones skipped
+	 * because they already existed and the includes replacing the "!"
+	 * descriptions when the model is written
+	 */
+	public static class DescriptionFiles {
+		private List<String> created;
+		private List<String> skipped;
+		private Map<RamlElement, String> descriptions;
+
+		DescriptionFiles(List<String> created, List<String> skipped, Map<RamlElement, String> descriptions) {
+			this.created = Collections.unmodifiableList(created);
+			this.skipped = Collections.unmodifiableList(skipped);
+			this.descriptions = Collections.unmodifiableMap(descriptions);
+		}
+
+		public List<String> getCreated() {
+			return this.created;
+		}
+
+		public List<String> getSkipped() {
+			return this.skipped;
+		}
+
+		/*
+		 * The descriptions to write, by element (see RamlModel.write)
+		 */
+		public Map<RamlElement, String> getDescriptions() {
+			return this.descriptions;
+		}
+	}
+
+	/*
+	 * Computes the includes of .md files replacing the "!" descriptions of the
+	 * model, relative to the RAML file, and creates the files missing from the
+	 * description directory. The model is not modified, the same model can be
+	 * written to other files. The directory is listed once and the missing files
+	 * are written in parallel
+	 */
+	public static DescriptionFiles generateDescriptionFiles(RamlModel model, String descriptionDirectory, String ramlFilename) throws IOException {
 		if(ramlFilename == null || ramlFilename.equals("-")) {
-			return;
+			return new DescriptionFiles(Collections.emptyList(), Collections.emptyList(), Collections.emptyMap());
 		}
 		Path ramlPath = new File(ramlFilename).toPath().toAbsolutePath().getParent();
-		Path relPath = ramlPath.relativize(new File(descriptionDirectory).toPath().toAbsolutePath());
+		Path descriptionPath = Paths.get(descriptionDirectory).toAbsolutePath();
+		Path relPath = ramlPath.relativize(descriptionPath);
 
 		final String relDirectory = relPath.toString().equals("") ? "" : relPath.toString()+"/";
 
-		List<RamlElement> allElements = new ArrayList<>(model.getAllChildren());
-		allElements.add(model);
-		for(RamlElement element : allElements) {
-			if(element instanceof RamlDescriptableElement) {
-				String description = ((RamlDescriptableElement)element).getDescription();
-				if(description != null && description.trim().equals("!")) {
-					String filename = element.getFQName()+".md";
-					((RamlDescriptableElement)element).setDescription("!include "+relDirectory+filename);
-					createDescriptionFile(descriptionDirectory, filename , element.getName());
-				}
+		//the element name of each description file, in model order
+		Map<String, String> descriptionFiles = new LinkedHashMap<>();
+		Map<RamlElement, String> descriptions = new IdentityHashMap<>();
+		for(RamlElement element : model.descendants()) {
+			addDescriptionFile(element, relDirectory, descriptionFiles, descriptions);
+		}
+		addDescriptionFile(model, relDirectory, descriptionFiles, descriptions);
+		if(descriptionFiles.isEmpty()) {
+			return new DescriptionFiles(Collections.emptyList(), Collections.emptyList(), Collections.emptyMap());
+		}
+
+		Set<String> existingFiles = new HashSet<>();
+		if(Files.isDirectory(descriptionPath)) {
+			try(Stream<Path> files = Files.list(descriptionPath)) {
+				files.forEach(file -> existingFiles.add(file.getFileName().toString()));
+			}
+		}
+		List<String> skipped = new ArrayList<>();
+		List<String> missing = new ArrayList<>();
+		for(String filename : descriptionFiles.keySet()) {
+			if(existingFiles.contains(filename)) {
+				skipped.add(filename);
+			} else {
+				missing.add(filename);
+			}
+		}
+		List<String> created;
+		try {
+			created = missing.parallelStream().
+				filter(filename -> {
+					try {
+						return createDescriptionFile(descriptionPath.resolve(filename), descriptionFiles.get(filename));
+					} catch(IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				}).
+				collect(Collectors.toList());
+		} catch(UncheckedIOException e) {
+			throw e.getCause();
+		}
+		//files created by someone else after the listing
+		if(created.size() < missing.size()) {
+			missing.removeAll(created);
+			skipped.addAll(missing);
+		}
+		return new DescriptionFiles(created, skipped, descriptions);
+	}
+
+	private static void addDescriptionFile(RamlElement element, String relDirectory, Map<String, String> descriptionFiles, Map<RamlElement, String> descriptions) {
+		if(element instanceof RamlDescriptableElement) {
+			String description = ((RamlDescriptableElement)element).getDescription();
+			if(description != null && description.trim().equals("!")) {
+				String filename = element.getFQName()+".md";
+				descriptions.put(element, "!include "+relDirectory+filename);
+				//the first element with a given file name sets its content
+				descriptionFiles.putIfAbsent(filename, element.getName());
 			}
 		}
 	}
 
-	public static void createDescriptionFile(String path, String filename, String elementName) throws IOException {
-		File file = new File(path+filename);
-		if(!file.exists()) {
-			FileWriter fileWriter = new FileWriter(file);
-			fileWriter.write("This is the description for **"+elementName+"**\n");
-			fileWriter.close();
+	/*
+	 * Writes the content to the file only if it differs from the current one,
+	 * so that unchanged outputs keep their timestamp. Returns true if the file was written
+	 */
+	public static boolean writeIfChanged(String filename, String content) throws IOException {
+		Path path = new File(filename).toPath();
+		byte[] bytes = content.getBytes(Charset.defaultCharset());
+		if(Files.isRegularFile(path) && Files.size(path) == bytes.length && Arrays.equals(Files.readAllBytes(path), bytes)) {
+			return false;
+		}
+		Files.write(path, bytes);
+		return true;
+	}
+
+	/*
+	 * Creates the description file of an element, returns false if it already exists
+	 */
+	public static boolean createDescriptionFile(Path path, String elementName) throws IOException {
+		try {
+			Files.write(path, ("This is the description for **"+elementName+"**\n").getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE_NEW);
+			return true;
+		} catch(FileAlreadyExistsException e) {
+			return false;
 		}
 	}
 }
@@ -18,67 +18,92 @@ package net.morcilab.uml2raml.m2t;
 import static net.morcilab.uml2raml.m2t.ProfileNames.*;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
-import java.io.Writer;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import org.eclipse.emf.common.util.EList;
 import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.InternalEObject;
 import org.eclipse.emf.ecore.resource.Resource;
-import org.eclipse.emf.ecore.resource.Resource.Diagnostic;
 import org.eclipse.emf.ecore.resource.ResourceSet;
-import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.util.InternalEList;
 import org.eclipse.uml2.uml.DataType;
 import org.eclipse.uml2.uml.Element;
-import org.eclipse.uml2.uml.Model;
 import org.eclipse.uml2.uml.NamedElement;
 import org.eclipse.uml2.uml.Operation;
 import org.eclipse.uml2.uml.Package;
+import org.eclipse.uml2.uml.PackageableElement;
 import org.eclipse.uml2.uml.Parameter;
 import org.eclipse.uml2.uml.ParameterDirectionKind;
 import org.eclipse.uml2.uml.Property;
-import org.eclipse.uml2.uml.Stereotype;
+import org.eclipse.uml2.uml.TypedElement;
 import org.eclipse.uml2.uml.UMLPackage;
 import org.eclipse.uml2.uml.resource.UMLResource;
-import org.eclipse.uml2.uml.resources.util.UMLResourcesUtil;
 
+import net.morcilab.uml2raml.m2t.FileManager.DescriptionFiles;
+import net.morcilab.uml2raml.m2t.GenerationReport.Counter;
+import net.morcilab.uml2raml.m2t.GenerationReport.Phase;
+import net.morcilab.uml2raml.m2t.ModelFacts.ElementFacts;
+import net.morcilab.uml2raml.m2t.ModelFactsReader.UnsupportedModelException;
 import net.morcilab.uml2raml.raml.RamlTypeDeclaration;
+import net.morcilab.uml2raml.raml.RamlElement;
 import net.morcilab.uml2raml.raml.RamlMethod;
 import net.morcilab.uml2raml.raml.RamlMethodEnum;
 import net.morcilab.uml2raml.raml.RamlModel;
+import net.morcilab.uml2raml.raml.RamlModel.WriteMode;
 import net.morcilab.uml2raml.raml.RamlObjectType;
 import net.morcilab.uml2raml.raml.RamlResource;
 import net.morcilab.uml2raml.raml.RamlSimpleType;
 import net.morcilab.uml2raml.raml.RamlType;
 
 /*
- * The main generation class. For the various element types (API, Resource,
- * method, ...) a couple of methods are provided: process<Type> and
- * setup<Type>. Process creates the elements in the RAML model and
- * attaches them to the tree, setup<Type> fills the properties reading
- * values from the UML model
+ * The main generation class. It loads the UML model (or streams its facts,
+ * see ModelFactsReader), finds the API packages and lets a ModelProcessor
+ * produce their RAML models, then writes them
  */
 public class Generate {
 	
 	private static Logger LOG = Logger.getGlobal();
+	//replaced by the API package name in the file name pattern of generateFiles
+	public static final String API_NAME_PLACEHOLDER = "{api}";
+	//Flight Recorder events are emitted only on JVMs providing the JFR API (see JfrEvents)
+	static final boolean JFR_AVAILABLE = isJfrAvailable();
 
 	private boolean generateDescriptionFiles = false;
 	private String descriptionPath = "";
 	private boolean arraysAsTypes = false;
+	private int threads = 1;
+	private boolean lazyLoading = false;
+	private GenerateSession session;
+	private ModelFactsReader factsReader;
+	private ModelFactsCache factsCache;
+	private ResourceCache resourceCache;
+	private List<File> inputFiles = new ArrayList<>();
+	//written concurrently by generateFiles
+	private List<File> descriptionFiles = new CopyOnWriteArrayList<>();
+	private IncrementalState incrementalState;
+	private GenerationReport report = new GenerationReport();
 	
 	static {
 		System.setProperty("java.util.logging.SimpleFormatter.format", "[%1$tF %1$tT] [%4$-7s] %5$s %n");
@@ -88,13 +113,30 @@ public class Generate {
 		LOG.setLevel(Level.OFF);
 	}
 
+	private static boolean isJfrAvailable() {
+		try {
+			Class.forName("jdk.jfr.Event");
+			return true;
+		} catch(ClassNotFoundException | LinkageError e) {
+			return false;
+		}
+	}
+
 	public static void usage() {
-		System.out.println("Usage: Generate [-v] [-a <apiname>] [-d] [-dp <path>] file.uml [file.raml]");
+		System.out.println("Usage: Generate [-v] [-a <apiname>] [-lazy] [-fast] [-facts] [-d] [-dp <path>] [-t <threads>] [-c <path>] [-o <pattern>] [-watch] [-stats] file.uml [file.raml]");
 		System.out.println("\t-v: verbose");
-		System.out.println("\t-a <apiname>: create the RAML model from a specific API package");
+		System.out.println("\t-a <apiname>: create the RAML model from a specific API package (a comma-separated list with -o)");
+		System.out.println("\t-lazy: with -a, only load and resolve the parts of the model used by the selected APIs");
+		System.out.println("\t-fast: read the stereotyped elements streaming the model files instead of loading the UML model");
+		System.out.println("\t-facts: like -fast, reusing the facts cached next to the model (file.uml.facts) while the model and its profiles do not change");
 		System.out.println("\t-d: create md description files where description is set to '!'");
 		System.out.println("\t-dp <path>: path in which the md description files are created");
 		System.out.println("\t-at <path>: arrays in parameters and properties generate new types");
+		System.out.println("\t-t <threads>: number of threads used to process the API packages in parallel");
+		System.out.println("\t-c <path>: directory of the cache of parsed UML files");
+		System.out.println("\t-watch: keep running and regenerate when the model or its profiles change");
+		System.out.println("\t-o <pattern>: write each API to its own file, "+API_NAME_PLACEHOLDER+" in the pattern is replaced by the name of the API package");
+		System.out.println("\t-stats: print the time spent in each phase of the generation and the work done");
 	}
 
 	public static void main(String[] args) throws IOException, Uml2RamlException {
@@ -104,6 +146,9 @@ public class Generate {
 			Generate generate = new Generate();
 			int index = 0;
 			String apiName = null;
+			String ramlFilenamePattern = null;
+			boolean watch = false;
+			boolean stats = false;
 			while(args[index].startsWith("-")) {
 				if(args[index].equals("-v")) {
 					generate.setVerbose(true);
@@ -123,18 +168,72 @@ public class Generate {
 					index++;
 					generate.setArraysAsTypes(true);
 				}
+				if(args[index].contentEquals("-t")) {
+					index++;
+					generate.setThreads(Integer.parseInt(args[index]));
+				}
+				if(args[index].contentEquals("-c")) {
+					index++;
+					generate.setCacheDirectory(args[index]);
+				}
+				if(args[index].contentEquals("-lazy")) {
+					generate.setLazyLoading(true);
+				}
+				if(args[index].contentEquals("-fast")) {
+					generate.setFastPath(true);
+				}
+				if(args[index].contentEquals("-facts")) {
+					generate.setFactsCache(true);
+				}
+				if(args[index].contentEquals("-watch")) {
+					watch = true;
+				}
+				if(args[index].contentEquals("-stats")) {
+					stats = true;
+				}
+				if(args[index].contentEquals("-o")) {
+					index++;
+					ramlFilenamePattern = args[index];
+				}
 				index++;
 			}
-			String inFilename = null;
 			if(index >= args.length) {
 				usage();
 			} else {
-				inFilename = args[index];
-				String outFilename = null;
-				if(args.length > index+1) {
-					outFilename = args[index+1];
+				String umlFilename = args[index];
+				String ramlFilename = args.length > index+1 ? args[index+1] : null;
+				String pattern = ramlFilenamePattern;
+				String apiNames = apiName;
+				boolean printStats = stats;
+				GenerateWatcher.Generation generation = () -> {
+					if(pattern != null) {
+						generate.generateFiles(umlFilename, pattern, apiNames == null ? null : Arrays.asList(apiNames.split(",")));
+					} else {
+						generate.generateFile(umlFilename, ramlFilename, apiNames);
+					}
+					//on stderr, the RAML may be written to stdout
+					if(printStats) {
+						System.err.print(generate.getReport());
+					}
+				};
+				if(watch) {
+					try(GenerateWatcher watcher = new GenerateWatcher(generate)) {
+						//reported on stderr even when not verbose, the RAML may be written to stdout
+						watcher.watch(generation, new GenerateWatcher.Listener() {
+							@Override
+							public void regenerated(Set<Path> changedFiles, long millis) {
+								System.err.println("Regenerated in "+millis+" ms after changes to "+changedFiles);
+							}
+
+							@Override
+							public void failed(Set<Path> changedFiles, Exception e) {
+								System.err.println("Generation failed after changes to "+changedFiles+": "+e.getMessage());
+							}
+						});
+					}
+				} else {
+					generation.run();
 				}
-				generate.generateFile(inFilename, outFilename, apiName);
 			}
 		}
 	}
@@ -162,6 +261,85 @@ public class Generate {
 		this.arraysAsTypes = arraysAsTypes;
 	}
 
+	/*
+	 * When incremental, the RAML models and types generated are kept and reused
+	 * by the next generations of the same model if the UML elements they were
+	 * derived from did not change (see IncrementalState)
+	 */
+	public void setIncremental(boolean incremental) {
+		this.incrementalState = incremental ? new IncrementalState() : null;
+	}
+
+	public IncrementalState getIncrementalState() {
+		return this.incrementalState;
+	}
+
+	/*
+	 * When lazy, generations of selected APIs only load the parts of the model
+	 * they use: the model is not resolved as a whole and its fragments (e.g.
+	 * Papyrus controlled units) are loaded when the API packages or the types
+	 * they refer to are reached. The packages are then processed sequentially
+	 * and incremental state is not used. Generations of all the APIs load the
+	 * whole model
+	 */
+	public void setLazyLoading(boolean lazyLoading) {
+		this.lazyLoading = lazyLoading;
+	}
+
+	/*
+	 * When set, the models are not loaded with EMF: the elements the generation
+	 * reads are streamed from the model files into ModelFacts (see
+	 * ModelFactsReader), which takes a fraction of the time and of the memory.
+	 * Session, cache, incremental state and lazy loading are not used; models
+	 * the reader does not support are loaded with EMF
+	 */
+	public void setFastPath(boolean fastPath) {
+		this.factsReader = fastPath ? new ModelFactsReader() : null;
+		this.factsCache = null;
+	}
+
+	/*
+	 * When set, the fast path is used and the facts of a model are stored next
+	 * to it (see ModelFactsCache): the following generations read them instead
+	 * of the model files while the model and its profiles do not change
+	 */
+	public void setFactsCache(boolean factsCache) {
+		setFastPath(factsCache);
+		this.factsCache = factsCache ? new ModelFactsCache(this.factsReader) : null;
+	}
+
+	/*
+	 * Sets the session used to load the models: profiles loaded by a generation
+	 * are reused by the following ones. With no session (the default) each
+	 * generation loads everything in a new ResourceSet
+	 */
+	public void setSession(GenerateSession session) {
+		this.session = session;
+	}
+
+	public GenerateSession getSession() {
+		return this.session;
+	}
+
+	/*
+	 * Sets the directory of the cache of parsed UML resources, null (the default)
+	 * disables the cache
+	 */
+	public void setCacheDirectory(String cacheDirectory) {
+		this.resourceCache = cacheDirectory == null ? null : new ResourceCache(new File(cacheDirectory));
+	}
+
+	/*
+	 * Sets the number of threads used to process the API packages of a model
+	 * and the types they refer to; 1 (the default) processes them sequentially
+	 */
+	public void setThreads(int threads) {
+		if(threads < 1) {
+			throw new IllegalArgumentException("The number of threads must be at least 1");
+		}
+		this.threads = threads;
+	}
+
 	public Map<String, RamlModel> generate(String umlFilename, String... apiNames) throws IOException {
 		if(apiNames.length == 0) {
 			return generate(umlFilename, (Collection<String>)null);
@@ -170,25 +348,118 @@ public class Generate {
 		}
 	}
 
+	/*
+	 * Returns the RAML models of the selected API packages (all of them if
+	 * apiNames is null) by title
+	 */
 	public Map<String, RamlModel> generate(String umlFilename, Collection<String> apiNames) throws IOException {
-		//load UML models
-		ResourceSet set = new ResourceSetImpl();
-		UMLResourcesUtil.init(set);
+		Map<String, RamlModel> ramlModels = new LinkedHashMap<>();
+		for(RamlModel ramlModel : generateApis(umlFilename, apiNames).values()) {
+			ramlModels.put(ramlModel.getName(), ramlModel);
+		}
+		return ramlModels;
+	}
 
-		set.getPackageRegistry().put(UMLPackage.eNS_URI, UMLPackage.eINSTANCE);
-		set.getResourceFactoryRegistry().getExtensionToFactoryMap().put(UMLResource.FILE_EXTENSION, UMLResource.Factory.INSTANCE);
-		Resource resource = set.getResource(URI.createFileURI(new File(umlFilename).getAbsolutePath()), true);
-		resource.load(null);
-		for(Diagnostic error : resource.getErrors()) {
-			LOG.warning(error.getMessage());
+	/*
+	 * Returns the RAML models of the selected API packages by package name
+	 */
+	private Map<String, RamlModel> generateApis(String umlFilename, Collection<String> apiNames) throws IOException {
+		GenerationReport report = new GenerationReport();
+		this.report = report;
+		this.descriptionFiles = new CopyOnWriteArrayList<>();
+		if(this.factsReader != null) {
+			try {
+				return generateFromFacts(umlFilename, apiNames);
+			} catch(UnsupportedModelException e) {
+				LOG.warning("Loading the model with EMF: "+e.getMessage());
+				report = new GenerationReport();
+				report.increment(Counter.FAST_PATH_FALLBACKS);
+				this.report = report;
+			}
 		}
-		for(Diagnostic warning : resource.getWarnings()) {
-			LOG.warning(warning.getMessage());
+		//load UML models, in a session of its own if none is set
+		GenerateSession generateSession = this.session != null ? this.session : new GenerateSession();
+		if(this.resourceCache != null) {
+			generateSession.setResourceCache(this.resourceCache);
 		}
-		UMLResource umlResource = (UMLResource)resource;
+		try {
+			long start = System.nanoTime();
+			Object loadEvent = JFR_AVAILABLE ? JfrEvents.beginModelLoad() : null;
+			UMLResource umlResource = generateSession.load(umlFilename);
+			if(loadEvent != null && JfrEvents.end(loadEvent)) {
+				JfrEvents.commitModelLoad(loadEvent, umlFilename, generateSession.getResourceSet().getResources().size());
+			}
+			report.stop(Phase.LOAD, start);
+			//process the model
+			Map<String, RamlModel> ramlModels = processModel(umlResource, apiNames);
+			this.inputFiles = getLoadedFiles(generateSession.getResourceSet());
+			report.finish();
+			return ramlModels;
+		} finally {
+			if(generateSession == this.session) {
+				generateSession.unload();
+			} else {
+				generateSession.close();
+			}
+		}
+	}
+
+	private Map<String, RamlModel> generateFromFacts(String umlFilename, Collection<String> apiNames) throws IOException {
+		long start = System.nanoTime();
+		Object loadEvent = JFR_AVAILABLE ? JfrEvents.beginModelLoad() : null;
+		ModelFacts facts = this.factsCache != null ? this.factsCache.read(umlFilename) : this.factsReader.read(umlFilename);
+		if(loadEvent != null && JfrEvents.end(loadEvent)) {
+			JfrEvents.commitModelLoad(loadEvent, umlFilename, facts.getFiles().size());
+		}
+		this.report.stop(Phase.LOAD, start);
+		this.report.add(Counter.ELEMENTS_VISITED, facts.getElementCount());
+		List<ElementFacts> apiPackages = facts.getApiPackages().stream()
+				.filter(packageElement ->
+					apiNames == null || apiNames.contains(packageElement.getName())
+				).collect(Collectors.toList());
+		ModelProcessor<ElementFacts> processor = new ModelProcessor<>(new FactsModelAccess(facts), this.arraysAsTypes, this.report);
+		Map<String, RamlModel> ramlModels = processor.processApiPackages(apiPackages, this.threads);
+		List<File> inputFiles = new ArrayList<>();
+		for(String file : facts.getFiles()) {
+			inputFiles.add(new File(file));
+		}
+		this.inputFiles = inputFiles;
+		this.report.finish();
+		return ramlModels;
+	}
+
+	/*
+	 * Returns the report of the last generation (or of the one in progress),
+	 * the writing of the files is included when the generation writes them
+	 */
+	public GenerationReport getReport() {
+		return this.report;
+	}
+
+	/*
+	 * Returns the files (the model and the profiles) loaded by the last generation;
+	 * with a session the profiles loaded by the previous generations are included
+	 */
+	public List<File> getInputFiles() {
+		return this.inputFiles;
+	}
 
-		//process the model
-		return processModel(umlResource, apiNames);
+	/*
+	 * Returns the description files included by the RAML files written by the
+	 * last generation, the ones created and the ones already existing
+	 */
+	public List<File> getDescriptionFiles() {
+		return this.descriptionFiles;
+	}
+
+	private static List<File> getLoadedFiles(ResourceSet resourceSet) {
+		List<File> files = new ArrayList<>();
+		for(Resource resource : resourceSet.getResources()) {
+			if(resource.getURI().isFile()) {
+				files.add(new File(resource.getURI().toFileString()));
+			}
+		}
+		return files;
 	}
 
 	public RamlModel generateOne(String umlFilename, String apiName) throws IOException, Uml2RamlException {
@@ -207,406 +478,274 @@ public class Generate {
 	
 	public void generateFile(String umlFilename, String ramlFilename, String apiName) throws IOException, Uml2RamlException {
 		RamlModel model = apiName == null ? generateOne(umlFilename) : generateOne(umlFilename, apiName);
-		if(this.generateDescriptionFiles) {
-			LOG.info("Creating description files");
-			FileManager.generateDescriptionFiles(model, this.descriptionPath, ramlFilename);
-		}
-		Writer writer;
-		boolean closeWriter = false;
-		if(ramlFilename == null || ramlFilename.equals("-")) {
-			writer = new OutputStreamWriter(System.out);
-		} else {
-			writer = new FileWriter(ramlFilename);
-			closeWriter = true;
-		}
-		model.write(writer);
-		writer.flush();
-		if(closeWriter) {
-			writer.close();
-		}
-	}
-
-	private void setupAPI(RamlModel ramlModel, Map<String, String> resourcePropsMap, Package packageElement) {
-		//RAML: title
-		ramlModel.setTitle(resourcePropsMap.get(RAMLPROFILE_API_TITLE));
-		//RAML: description?
-		ramlModel.setDescription(resourcePropsMap.get(RESTPROFILE_API_DESCRIPTION));
-		//RAML: version?
-		ramlModel.setVersion(resourcePropsMap.get(RAMLPROFILE_API_VERSION));
-		//RAML: baseUri?
-		ramlModel.setBaseUri(resourcePropsMap.get(RESTPROFILE_API_BASEURI));
-		//RAML: baseUriParameters?
-		ramlModel.setBaseUriParameters(resourcePropsMap.get(RAMLPROFILE_API_BASE_URI_PARAMETERS));
-		//RAML: protocols?
-		ramlModel.setProtocols(resourcePropsMap.get(RAMLPROFILE_API_PROTOCOLS));
-		//RAML: mediaType?
-		ramlModel.setMediaType(resourcePropsMap.get(RESTPROFILE_API_MEDIATYPE));
-		//RAML: documentation?
-		//only inclusion is supported
-		ramlModel.setDocumentation(resourcePropsMap.get(RAMLPROFILE_API_DOCUMENTATION));
-		//RAML: types?
-		//support only includes (i.e. array of strings)
-		ramlModel.setTypes(UmlUtils.getStringListStereotypeProperty(packageElement, RAMLPROFILE_RAML_API_FQN, RAMLPROFILE_API_TYPES));
-		//RAML: traits?
-		ramlModel.setTraits(UmlUtils.getStringListStereotypeProperty(packageElement, RAMLPROFILE_RAML_API_FQN, RAMLPROFILE_API_TRAITS));
-		//RAML: resourceTypes?
-		ramlModel.setResourceTypes(UmlUtils.getStringListStereotypeProperty(packageElement, RAMLPROFILE_RAML_API_FQN, RAMLPROFILE_API_RESOURCE_TYPES));
-		//RAML: annotationTypes?
-		//TODO: unsupported
-		//RAML: (<annotationName>)?
-		//TODO: unsupported
-		//RAML: securitySchemes?
-		ramlModel.setSecuritySchemes(resourcePropsMap.get(RAMLPROFILE_API_SECURITY_SCHEMES));
-		//RAML: securedBy?
-		ramlModel.setSecuredBy(resourcePropsMap.get(RAMLPROFILE_API_SECURED_BY));
-		//RAML: uses?
-		ramlModel.setUses(UmlUtils.getStringListStereotypeProperty(packageElement, RAMLPROFILE_RAML_API_FQN, RAMLPROFILE_API_USES));
-	}
-
-	private void setupResource(RamlResource ramlResource, Map<String, String> resourcePropsMap, org.eclipse.uml2.uml.Class resourceElement) {
-		ramlResource.setTypeName(resourcePropsMap.get(PROFILE_NAME));
-		ramlResource.setPath(resourcePropsMap.get(RESTPROFILE_PATH));
-		//RAML: description?
-		ramlResource.setDescription(resourcePropsMap.get(RESTPROFILE_RESOURCE_DESCRIPTION));
-		//RAML: is?
-		ramlResource.setIs(resourcePropsMap.get(RESTPROFILE_RESOURCE_IS));
-		//RAML: type
-		ramlResource.setType(resourcePropsMap.get(RESTPROFILE_RESOURCE_TYPE));
-		//RAML: securedBy
-		ramlResource.setSecuredBy(resourcePropsMap.get(RESTPROFILE_RESOURCE_SECURED_BY));
-		//RAML: uriParameters
-		//TODO: unsupported
+		writeFile(model, ramlFilename);
+		this.report.finish();
 	}
-	
-	private void setupMethod(RamlMethod ramlMethod, Operation operation) {
-		//set method name from applied stereotype
-		Stereotype methodStereotype = UmlUtils.getStereotypeOrSubstereotype(operation, RESTPROFILE_METHOD_FQN);
-		ramlMethod.setMethodName(methodStereotype.getName().toLowerCase());
-		//TODO: annotationName? headers? protocols? is? securedBy?
-		//RAML: description? - mapped to description stereotype property
-		String description = UmlUtils.getStringStereotypeProperty(operation, RESTPROFILE_METHOD_FQN, RAMLPROFILE_METHOD_DESCRIPTION);
-		if(description != null) {
-			ramlMethod.setDescription(description);
-		}
-		//RAML: displayName? - mapped to operation name
-		String displayName = operation.getName();
-		if(displayName != null) {
-			ramlMethod.setDisplayName(displayName);
-		}
-		//RAML: is?
-		ramlMethod.setIs(UmlUtils.getStringStereotypeProperty(operation, RESTPROFILE_METHOD_FQN, RAMLPROFILE_METHOD_IS));
-		//RAML: protocols?
-		ramlMethod.setProtocols(UmlUtils.getStringStereotypeProperty(operation, RESTPROFILE_METHOD_FQN, RAMLPROFILE_METHOD_PROTOCOLS));
-		//RAML: queryParameters?
-		ramlMethod.setQueryParameters(UmlUtils.getStringStereotypeProperty(operation, RESTPROFILE_METHOD_FQN, RAMLPROFILE_METHOD_QUERY_PARAMETERS));
-		//RAML: body? - mapped to operation in and inout parameters
-		//retrieve all in/input parameters that are not query parameters
-		if(ramlMethod.hasRequestBody()) {
-			List<Parameter> inParameters = operation.getOwnedParameters().stream()
-					.filter(parameter -> 
-						parameter.getDirection() == ParameterDirectionKind.IN_LITERAL || 
-						parameter.getDirection() == ParameterDirectionKind.INOUT_LITERAL
-					).filter(parameter ->
-						UmlUtils.getStereotypeOrSubstereotype(parameter, RESTPROFILE_QUERY_PARAMETER_FQN) == null
-					).collect(Collectors.toList());
-			for(Parameter parameter : inParameters) {
-				String mediaType = UmlUtils.getStringStereotypeProperty(parameter, RESTPROFILE_HTTPREQUEST_FQN, RESTPROFILE_REQUEST_MEDIATYPE);
-				if(mediaType == null) {
-					mediaType = "";
+
+	/*
+	 * Loads the model once and writes each API (all of them if apiNames is null)
+	 * to its own file, named replacing API_NAME_PLACEHOLDER in the pattern with the
+	 * name of the API package (not the title, which is free text and need not be
+	 * unique). The files are written concurrently.
+	 * Returns the names of the files written, by API package name
+	 */
+	public Map<String, String> generateFiles(String umlFilename, String ramlFilenamePattern, Collection<String> apiNames) throws IOException, Uml2RamlException {
+		if(!ramlFilenamePattern.contains(API_NAME_PLACEHOLDER)) {
+			throw new IllegalArgumentException("The file name pattern must contain "+API_NAME_PLACEHOLDER);
+		}
+		Map<String, RamlModel> ramlModels = generateApis(umlFilename, apiNames);
+		if(apiNames != null) {
+			for(String apiName : apiNames) {
+				if(!ramlModels.containsKey(apiName)) {
+					throw new IllegalArgumentException("API "+apiName+" not found in the model");
 				}
-				RamlTypeDeclaration bodyType = RamlUmlUtils.parameterTypeMapper(parameter);
-				//TODO ugly workaround for inline array type declarations in raml-to-jax-rs
-				if(this.arraysAsTypes && bodyType.isArray()) {
-					bodyType = createArrayTypeAndReturnReference(bodyType, ramlMethod.getModel());
+			}
+		}
+		Map<String, String> ramlFilenames = new LinkedHashMap<>();
+		for(String apiName : ramlModels.keySet()) {
+			ramlFilenames.put(apiName, ramlFilenamePattern.replace(API_NAME_PLACEHOLDER, apiName));
+		}
+		if(ramlModels.size() > 0) {
+			ForkJoinPool pool = new ForkJoinPool(Math.min(ramlModels.size(), Runtime.getRuntime().availableProcessors()));
+			try {
+				List<Future<RamlModel>> futures = new ArrayList<>();
+				for(Map.Entry<String, RamlModel> entry : ramlModels.entrySet()) {
+					futures.add(pool.submit(() -> {
+						writeFile(entry.getValue(), ramlFilenames.get(entry.getKey()));
+						return entry.getValue();
+					}));
 				}
-				ramlMethod.addRequestBodyType(mediaType, bodyType);
+				getAll(futures);
+			} finally {
+				pool.shutdownNow();
 			}
 		}
-		//RAML: queryParameters? - mapped to stereotyped in and inout parameters; 
-		//the stereotype is not needed for methods that do not support a request body
-		List<Parameter> queryParameters = operation.getOwnedParameters().stream()
-				.filter(parameter -> 
-					parameter.getDirection() == ParameterDirectionKind.IN_LITERAL || 
-					parameter.getDirection() == ParameterDirectionKind.INOUT_LITERAL
-				).filter(parameter -> 
-					UmlUtils.getStereotypeOrSubstereotype(parameter, RESTPROFILE_QUERY_PARAMETER_FQN) != null ||
-					!ramlMethod.hasRequestBody()
-				).collect(Collectors.toList());
-		for(Parameter parameter : queryParameters) {
-			RamlTypeDeclaration parameterType = RamlUmlUtils.typeMapper(parameter);
-			String dfault = UmlUtils.getStringStereotypeProperty(parameter, RESTPROFILE_QUERY_PARAMETER_FQN, RAMLPROFILE_QUERY_PARAMETER_DEFAULT);
-			if(dfault != null && !dfault.trim().equals("")) {
-				parameterType.addFacet(RAMLPROFILE_QUERY_PARAMETER_DEFAULT, dfault);
+		this.report.finish();
+		return ramlFilenames;
+	}
+
+	private void writeFile(RamlModel model, String ramlFilename) throws IOException {
+		long start = System.nanoTime();
+		Object writeEvent = JFR_AVAILABLE ? JfrEvents.beginWrite() : null;
+		Map<RamlElement, String> descriptions = Collections.emptyMap();
+		if(this.generateDescriptionFiles) {
+			LOG.info("Creating description files");
+			DescriptionFiles descriptionFiles = FileManager.generateDescriptionFiles(model, this.descriptionPath, ramlFilename);
+			descriptions = descriptionFiles.getDescriptions();
+			LOG.info(descriptionFiles.getCreated().size()+" description files created, "+descriptionFiles.getSkipped().size()+" already existing");
+			this.report.add(Counter.DESCRIPTION_FILES_CREATED, descriptionFiles.getCreated().size());
+			this.report.add(Counter.DESCRIPTION_FILES_SKIPPED, descriptionFiles.getSkipped().size());
+			for(String filename : descriptionFiles.getCreated()) {
+				this.descriptionFiles.add(Paths.get(this.descriptionPath, filename).toFile());
 			}
-			String example = UmlUtils.getStringStereotypeProperty(parameter, RESTPROFILE_QUERY_PARAMETER_FQN, RAMLPROFILE_QUERY_PARAMETER_EXAMPLE);
-			if(example != null && !example.trim().equals("")) {
-				parameterType.addFacet(RAMLPROFILE_QUERY_PARAMETER_EXAMPLE, example);
+			for(String filename : descriptionFiles.getSkipped()) {
+				this.descriptionFiles.add(Paths.get(this.descriptionPath, filename).toFile());
 			}
-			ramlMethod.putQueryParameter(parameter.getName(), parameterType);
-		}
-		//RAML: responses? - mapped to operation return, out and inout parameters
-		List<Parameter> outParameters = operation.getOwnedParameters().stream()
-				.filter(parameter -> 
-					parameter.getDirection() == ParameterDirectionKind.RETURN_LITERAL || 
-					parameter.getDirection() == ParameterDirectionKind.OUT_LITERAL ||
-					parameter.getDirection() == ParameterDirectionKind.INOUT_LITERAL
-				).collect(Collectors.toList());
-		for(Parameter parameter : outParameters) {
-			Integer responseCode = UmlUtils.getIntegerStereotypeProperty(parameter, RESTPROFILE_HTTPRESPONSE_FQN, RESTPROFILE_RESPONSE_CODE);
-			if(responseCode == null) {
-				responseCode = 200;
+		}
+		StringWriter writer = new StringWriter();
+		model.write(writer, WriteMode.TYPEREF, descriptions);
+		String content = writer.toString();
+		long bytes = 0;
+		if(ramlFilename == null || ramlFilename.equals("-")) {
+			OutputStreamWriter out = new OutputStreamWriter(System.out);
+			out.write(content);
+			out.flush();
+			bytes = content.getBytes(Charset.defaultCharset()).length;
+		} else {
+			//the file is not touched if the content is the same
+			if(FileManager.writeIfChanged(ramlFilename, content)) {
+				bytes = content.getBytes(Charset.defaultCharset()).length;
+			} else {
+				LOG.info(ramlFilename+" is up to date");
+			}
+		}
+		this.report.add(Counter.BYTES_WRITTEN, bytes);
+		this.report.stop(Phase.WRITE, start);
+		if(writeEvent != null && JfrEvents.end(writeEvent)) {
+			JfrEvents.commitWrite(writeEvent, model.getName(), ramlFilename == null ? "-" : ramlFilename, bytes);
+		}
+	}
+
+	Map<String, RamlModel> processModel(UMLResource umlResource, Collection<String> apiNames) {
+		IncrementalState state = this.incrementalState;
+		if(state == null || isLazy(apiNames)) {
+			return processApiPackages(umlResource, apiNames);
+		}
+		//the RAML models only depend on the UML model and on arraysAsTypes
+		long start = System.nanoTime();
+		state.begin(umlResource, "arraysAsTypes="+this.arraysAsTypes);
+		this.report.stop(Phase.DIGEST, start);
+		try {
+			Map<String, RamlModel> ramlModels = processApiPackages(umlResource, apiNames);
+			state.commit(umlResource);
+			return ramlModels;
+		} catch(RuntimeException | Error e) {
+			state.clear();
+			throw e;
+		}
+	}
+
+	private Map<String, RamlModel> processApiPackages(UMLResource umlResource, Collection<String> apiNames) {
+		Element rootElement = (Element)umlResource.getAllContents().next();
+		//qualified name lookups are served by the index attached to the resource,
+		//which counts them in the report of the generation
+		UmlIndex index = UmlIndex.getIndex(umlResource);
+		index.setReport(this.report);
+		boolean lazy = isLazy(apiNames);
+		index.setScoped(lazy);
+		try {
+			//for each API package in the model
+			List<Package> apiPackages;
+			if(lazy && rootElement instanceof Package) {
+				apiPackages = findApiPackagesLazily((Package)rootElement, apiNames);
+			} else {
+				apiPackages = UmlUtils.findElements(rootElement, Package.class, RESTPROFILE_API_FQN).stream()
+					.filter(packageElement -> 
+						apiNames == null || apiNames.contains(packageElement.getName())
+					).collect(Collectors.toList());
 			}
-			String mediaType = UmlUtils.getStringStereotypeProperty(parameter, RESTPROFILE_HTTPRESPONSE_FQN, RESTPROFILE_RESPONSE_MEDIATYPE);
-			if(mediaType == null) {
-				mediaType = "";
+			//a lazily loaded model is resolved while it is processed, which cannot be done concurrently
+			int threads = lazy ? 1 : this.threads;
+			if(!lazy) {
+				//building the index resolves the containment proxies: the fragments of the model
+				//are attached to it before the qualified names of their elements are read.
+				//The model is only read while the packages are processed: with more threads all
+				//the proxies are resolved first so that they do not modify the shared resource
+				long start = System.nanoTime();
+				if(threads > 1) {
+					EcoreUtil.resolveAll(umlResource);
+				}
+				index.build();
+				this.report.stop(Phase.RESOLVE, start);
 			}
-			RamlTypeDeclaration bodyType = RamlUmlUtils.parameterTypeMapper(parameter);
-			//TODO ugly workaround for inline array type declarations in raml-to-jax-rs
-			if(this.arraysAsTypes && bodyType.isArray()) {
-				bodyType = createArrayTypeAndReturnReference(bodyType, ramlMethod.getModel());
+			ModelProcessor<Element> processor;
+			if(this.incrementalState != null && !lazy) {
+				processor = new IncrementalProcessor(index, this.incrementalState, this.arraysAsTypes, this.report);
+			} else {
+				processor = new ModelProcessor<>(index.getModelAccess(), this.arraysAsTypes, this.report);
 			}
-			ramlMethod.putResponse(responseCode, bodyType, mediaType);
+			return processor.processApiPackages(new ArrayList<>(apiPackages), threads);
+		} finally {
+			index.setReport(null);
 		}
 	}
-	
-	private RamlTypeDeclaration createArrayTypeAndReturnReference(RamlTypeDeclaration bodyType, RamlModel model) {
-		//produce a new type with the declaration of the parameter
-		String arrayTypeName = bodyType.getName()+"Array";
-		RamlSimpleType arrayType = new RamlSimpleType(arrayTypeName, model);
-		arrayType.setTypeDeclaration(bodyType);
-		arrayType.setProcessed(true);
-		model.addType(arrayType);
-		//let the parameter reference the new type
-		bodyType = new RamlTypeDeclaration(arrayTypeName);
-		return bodyType;
-	}
-
-	private void processMethod(RamlResource resource, Operation operation) {
-		if(operation.getName() == null || operation.getName().trim().equals("")) {
-			throw new RuntimeException("Operation "+operation.getQualifiedName()+" must have a name");
-		}
-		LOG.info("Processing Method operation: "+operation.getQualifiedName());
-		RamlMethodEnum methodEnum = RamlUmlUtils.getMethodEnumFromOperation(operation);
-		RamlMethod ramlMethod = new RamlMethod(operation.getName(), methodEnum, resource);
-		setupMethod(ramlMethod, operation);
-		
-		//add ApiModel parameters to the model's types list
-		operation.getOwnedParameters().stream()
-			.filter(parameter -> 
-				RamlUmlUtils.isApiModel(parameter.getType())
-			).forEach(parameter -> 
-				resource.getModel().addTypeName(parameter.getType().getQualifiedName())
-			);
-	}
-
-	private void processResource(RamlModel model, RamlResource parent, org.eclipse.uml2.uml.Class resourceElement) {
-		LOG.info("Processing Resource class: "+resourceElement.getQualifiedName());
-		//name (becomes RAML displayName?)
-		Map<String, String> resourcePropsMap = UmlUtils.getProfileProperties(resourceElement, RESTPROFILE_RESOURCE_FQN);
-		String resourceName = RamlUmlUtils.typeMapper(resourceElement).getName();
-		if(resourceName == null || resourceName.trim().equals("")) {
-			throw new IllegalArgumentException("One of the REST resources has no name");
-		}
-		resourcePropsMap.put(PROFILE_NAME, resourceName);
-		//path
-		String path = resourcePropsMap.get(RESTPROFILE_PATH);
-		if(path == null) {
-			path = RamlUmlUtils.getPath(resourceElement, true);
-			if(path == null || path.trim().equals("")) {
-				throw new IllegalArgumentException("Resource "+resourceName+" has no path");				
+
+	private boolean isLazy(Collection<String> apiNames) {
+		return this.lazyLoading && apiNames != null;
+	}
+
+	/*
+	 * Finds the selected API packages among the packages of the root without
+	 * resolving the rest of the model. The root packages in fragments of their
+	 * own are loaded to read their names, their files are read concurrently first.
+	 * The files of the fragments of the API packages and of the types they refer
+	 * to are read in advance as well
+	 */
+	private static List<Package> findApiPackagesLazily(Package rootPackage, Collection<String> apiNames) {
+		ResourceSet resourceSet = rootPackage.eResource().getResourceSet();
+		EList<PackageableElement> packagedElements = rootPackage.getPackagedElements();
+		List<URI> fragments = new ArrayList<>();
+		for(Object element : ((InternalEList<?>)packagedElements).basicList()) {
+			if(element instanceof Package && ((EObject)element).eIsProxy()) {
+				fragments.add(((InternalEObject)element).eProxyURI().trimFragment());
 			}
 		}
-		resourcePropsMap.put(RESTPROFILE_PATH, path);
-		RamlResource ramlResource = new RamlResource(resourceName, model, parent);
-		setupResource(ramlResource, resourcePropsMap, resourceElement);
-		//setup URI parameters from profile
-		Pattern pattern = Pattern.compile("\\{[^}]*\\}");
-		Matcher matcher = pattern.matcher(path);
-		while(matcher.find()) {
-			String uriParameter = matcher.group().replace("{", "").replace("}", "");
-			ramlResource.addUriParameter(uriParameter);
-		}
-
-		//search for REST operations and keep track of types
-		resourceElement.getOwnedOperations().stream().
-			filter(operation -> 
-				RamlUmlUtils.isHTTPMethod(operation)
-			).forEach(operation -> 
-				processMethod(ramlResource, operation)
-			);
-
-		//look for explicit dependencies towards ApiModel classes and add them to model's types list
-		//that allows a ApiModel to be produced in the RAML model even in not explicitly referenced by parameters
-		resourceElement.getClientDependencies().stream().
-			filter(dependency -> 
-				RamlUmlUtils.isApiModel(dependency)
-			).forEach(dependency -> 
-				model.addTypeName(dependency.getQualifiedName())
-			);
-
-		//recursively process linked resources
-		RamlUmlUtils.getLinkedResources(resourceElement).stream().
-			forEach(linkedResource -> 
-				processResource(model, ramlResource, linkedResource)
-			);
-	}
-
-	private RamlModel processAPI(Package packageElement) {
-		LOG.info("Processing API package: "+packageElement.getQualifiedName());
-		Map<String, String> profilePropsMap = UmlUtils.getProfileProperties(packageElement, RESTPROFILE_API_FQN);
-		if(profilePropsMap.get(RAMLPROFILE_API_TITLE) == null) {
-			if(packageElement.getName() == null || packageElement.getName().trim().equals("")) {
-				throw new Uml2RamlException("API package with no name and to title property set");
+		GenerateSession.prefetch(resourceSet, fragments);
+		List<Package> apiPackages = new ArrayList<>();
+		for(PackageableElement element : packagedElements) {
+			if(element instanceof Package && apiNames.contains(element.getName()) &&
+					UmlUtils.getStereotypeOrSubstereotype(element, RESTPROFILE_API_FQN) != null) {
+				apiPackages.add((Package)element);
 			}
-			profilePropsMap.put(RAMLPROFILE_API_TITLE, packageElement.getName());
 		}
-		RamlModel ramlModel = new RamlModel(profilePropsMap.get(RAMLPROFILE_API_TITLE));
-		setupAPI(ramlModel, profilePropsMap, packageElement);
-	
-		//we loop for top-level resources, linked resources are processed recursively
-		RamlUmlUtils.getToplevelResources(packageElement).stream().
-			forEach(resourceElement -> 
-				processResource(ramlModel, null, resourceElement)
-			);
-		
-		return ramlModel;
+		List<URI> referredFragments = new ArrayList<>();
+		for(Package apiPackage : apiPackages) {
+			collectProxyFragments(apiPackage, referredFragments);
+		}
+		GenerateSession.prefetch(resourceSet, referredFragments);
+		return apiPackages;
 	}
 
 	/*
-	 * RamlObjectTypes are initialized by setting their name to the QN of the related APIModel classes.
-	 * processObjectType fills in all the details.
+	 * Collects the resources of the unresolved contents and element types
+	 * under an element, without resolving them
 	 */
-	private void processRamlType(RamlType ramlType, Model model) {
-		if(ramlType.isProcessed()) {
-			return;
-		}
-		String typeFQN = ramlType.getFQName();
-		if(ramlType instanceof RamlSimpleType) {
-			DataType dataType = (DataType)UmlUtils.getElementByQN(model, typeFQN);
-			List<Property> properties = dataType.getAllAttributes().stream().collect(Collectors.toList());
-			if(properties.size() != 1) {
-				throw new Uml2RamlException("DataType "+typeFQN+" must contain only 1 property");
-			}
-			Property property = properties.get(0);
-			if(RamlUmlUtils.getRAMLType(property) == null) {
-				throw new Uml2RamlException("Property "+property.getName()+" of "+typeFQN+" must be a RamlType");
+	private static void collectProxyFragments(EObject eObject, List<URI> fragments) {
+		if(eObject instanceof TypedElement) {
+			Object type = eObject.eGet(UMLPackage.Literals.TYPED_ELEMENT__TYPE, false);
+			if(type instanceof EObject && ((EObject)type).eIsProxy()) {
+				fragments.add(((InternalEObject)type).eProxyURI().trimFragment());
 			}
-			RamlTypeDeclaration propertyType = RamlUmlUtils.typeMapper(property);
-			Map<String, String> facets = RamlUmlUtils.getScalarFacets(dataType, RamlUmlUtils.getRAMLType(property));
-			propertyType.addFacets(facets);
-			((RamlSimpleType)ramlType).setTypeDeclaration(propertyType);
-		} else {
-			RamlObjectType ramlObject = (RamlObjectType)ramlType;
-			org.eclipse.uml2.uml.Class clazz = UmlUtils.getClassByQN(model, typeFQN);
-			if(RamlUmlUtils.isJSONModel(clazz)) {
-				String schema = UmlUtils.getStringStereotypeProperty(clazz, APIMODELPROFILE_JSON_SCHEMA_MODEL_FQN, RAMLPROFILE_MODEL_SCHEMA);
-				if(schema == null || schema.trim().equals("")) {
-					throw new Uml2RamlException("JsonModel "+typeFQN+" must set the stereotype property "+RAMLPROFILE_MODEL_SCHEMA);
-				}
-				ramlObject.setJSONSchema(schema);
-			} else if(RamlUmlUtils.isXMLModel(clazz)) {
-				String schema = UmlUtils.getStringStereotypeProperty(clazz, APIMODELPROFILE_XML_SCHEMA_MODEL_FQN, RAMLPROFILE_MODEL_SCHEMA);
-				if(schema == null || schema.trim().equals("")) {
-					throw new Uml2RamlException("XmlModel "+typeFQN+" must set the stereotype property "+RAMLPROFILE_MODEL_SCHEMA);
-				}
-				ramlObject.setXMLSchema(schema);			
+		}
+		for(Object content : ((InternalEList<?>)eObject.eContents()).basicList()) {
+			if(((EObject)content).eIsProxy()) {
+				fragments.add(((InternalEObject)content).eProxyURI().trimFragment());
 			} else {
-				String dfault = UmlUtils.getStringStereotypeProperty(clazz, APIMODELPROFILE_API_MODEL_FQN, RAMLPROFILE_API_MODEL_DEFAULT);
-				if(dfault != null && !dfault.trim().equals("")) {
-					ramlObject.setDefault(dfault);
-				}
-				String example = UmlUtils.getStringStereotypeProperty(clazz, APIMODELPROFILE_API_MODEL_FQN, RAMLPROFILE_API_MODEL_EXAMPLE);
-				if(example != null && ! example.trim().equals("")) {
-					ramlObject.setExample(example);
-				}
-				String examples = UmlUtils.getStringStereotypeProperty(clazz, APIMODELPROFILE_API_MODEL_FQN, RAMLPROFILE_API_MODEL_EXAMPLES);
-				if(examples != null && ! examples.trim().equals("")) {
-					ramlObject.setExamples(examples);
-				}
-				EList<Property> properties = clazz.allAttributes();
-				for(Property property : properties) {
-					try {
-						RamlTypeDeclaration type = RamlUmlUtils.typeMapper(property);
-						String name = property.getName();
-						boolean isOptional = false;
-						if(property.getLower() == 0 && property.getUpper() == 1) {
-							isOptional = true;
-						}
-						ramlObject.addProperty(name, type, isOptional);
-					} catch(IllegalArgumentException e) {
-						//a reference to an invalid type, skip it
-						LOG.warning("Reference to invalid type while processing "+typeFQN+", skipping it");
-					}
-				}
+				collectProxyFragments((EObject)content, fragments);
 			}
 		}
-		ramlType.setProcessed(true);
-	}
-
-	private static void computeTypesSetClosure(RamlModel ramlModel, Model model) {
-		Set<String> typeNameSet = ramlModel.getTypeNameSet();
-		if(typeNameSet.size() == 0) {
-			return;
-		}
-		//retrieve all referenced types names
-		Set<String> processedTypeNames = new HashSet<>();
-		Set<String> deltaTypeNames = new HashSet<>(typeNameSet);
-		do {
-			String ramlTypeName = deltaTypeNames.iterator().next();
-			processedTypeNames.add(ramlTypeName);
-			String typeFQN = ramlTypeName;
-			org.eclipse.uml2.uml.Class clazz = UmlUtils.getClassByQN(model, typeFQN);
-			if(clazz != null) { //if it is a class it is an ApiModel, otherwise is a Faceted DataType
-				//concatenate all associations end types and properties types and, 
-				//for each type that is an apiModel add it to typesSet
-				Stream.concat(
-					clazz.getAssociations().stream()
-						.map(association -> 
-							association.getEndTypes()
-						).flatMap(endTypes -> 
-							endTypes.stream()
-						),
-					clazz.getAllAttributes().stream()
-						.map(property -> 
-							property.getType()
-						)
-					)
-					.filter(type -> 
-						RamlUmlUtils.isApiModel(type)
-					).forEach(type -> {
-						typeNameSet.add(type.getQualifiedName());
-					});
-			}
-			deltaTypeNames = new HashSet<>(typeNameSet);
-			deltaTypeNames.removeAll(processedTypeNames);
-		} while(!deltaTypeNames.isEmpty());
-		ramlModel.setTypeNameSet(processedTypeNames);
 	}
 
-	private Map<String, RamlModel> processModel(UMLResource umlResource, Collection<String> apiNames) {
-		Map<String, RamlModel> ramlModels = new HashMap<>();
-		Element rootElement = (Element)umlResource.getAllContents().next();
-		//for each API package in the model
-		List<Package> listElements = UmlUtils.findElements(rootElement, Package.class, RESTPROFILE_API_FQN);
-		for(Package packageElement : listElements) {
-			if(apiNames == null || apiNames.contains(packageElement.getName())) {
-				RamlModel ramlModel = processAPI(packageElement);
-				//process referred ApiModels
-				computeTypesSetClosure(ramlModel, rootElement.getModel());
-				for(String ramlTypeName : ramlModel.getTypeNameSet()) {
-					NamedElement namedElement = UmlUtils.getElementByQN(rootElement.getModel(), ramlTypeName);
-					RamlType ramlType;
-					if(namedElement instanceof org.eclipse.uml2.uml.Class) { //type is a class, must be an ApiModel
-						ramlType = new RamlObjectType(ramlTypeName, ramlModel);
-					} else { //type must be a Faceted DataType
-						ramlType = new RamlSimpleType(ramlTypeName, ramlModel);
-					}
-					processRamlType(ramlType, rootElement.getModel());
-					ramlModel.addType(ramlType);
-				}
-				ramlModels.put(ramlModel.getName(), ramlModel);
+	/*
+	 * Reuses the RAML models and types of the previous generation of the model
+	 * when the elements they were derived from did not change
+	 */
+	private static class IncrementalProcessor extends ModelProcessor<Element> {
+		private UmlIndex index;
+		private IncrementalState state;
+
+		IncrementalProcessor(UmlIndex index, IncrementalState state, boolean arraysAsTypes, GenerationReport report) {
+			super(index.getModelAccess(), arraysAsTypes, report);
+			this.index = index;
+			this.state = state;
+		}
+
+		@Override
+		protected RamlModel reuseApi(Element packageElement) {
+			return this.state.getUnchangedApi((Package)packageElement, this.index);
+		}
+
+		@Override
+		protected RamlType reuseType(String typeName, RamlModel ramlModel) {
+			return this.state.getUnchangedType(typeName, this.index, ramlModel);
+		}
+
+		@Override
+		protected void recordType(Element typeElement, RamlType ramlType) {
+			this.state.putType((NamedElement)typeElement, ramlType);
+		}
+
+		@Override
+		protected void recordApi(Element packageElement, List<String> typeNames, RamlModel ramlModel) {
+			this.state.putApi((Package)packageElement, typeNames, ramlModel);
+		}
+	}
+
+	/*
+	 * Waits for all the tasks, in order, rethrowing the exception of the first failed one
+	 */
+	static <T> List<T> getAll(List<Future<T>> futures) {
+		try {
+			List<T> results = new ArrayList<>();
+			for(Future<T> future : futures) {
+				results.add(future.get());
+			}
+			return results;
+		} catch(ExecutionException e) {
+			Throwable cause = e.getCause();
+			//fork/join tasks report exceptions raised by other threads with a copy wrapping the original
+			if(cause.getCause() != null && cause.getCause().getClass() == cause.getClass()) {
+				cause = cause.getCause();
 			}
+			if(cause instanceof RuntimeException) {
+				throw (RuntimeException)cause;
+			} else if(cause instanceof Error) {
+				throw (Error)cause;
+			}
+			throw new Uml2RamlException(cause);
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new Uml2RamlException(e);
 		}
-		return ramlModels;
 	}
 }
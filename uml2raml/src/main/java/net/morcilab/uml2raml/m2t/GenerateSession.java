@@ -0,0 +1,281 @@
+/********************************************************************************
+* Copyright (c) 2017 Davide Rossi
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 2.0 which is available at
+* http://www.eclipse.org/legal/epl-2.0.
+*
+* This Source Code may also be made available under the following Secondary
+* Licenses when the conditions for such availability set forth in the Eclipse
+* Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+* with the GNU Classpath Exception which is
+* available at https://www.gnu.org/software/classpath/license.html.
+*
+* SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+********************************************************************************/
+package net.morcilab.uml2raml.m2t;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.Resource.Diagnostic;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.uml2.uml.Profile;
+import org.eclipse.uml2.uml.UMLPackage;
+import org.eclipse.uml2.uml.resource.UMLResource;
+import org.eclipse.uml2.uml.resources.util.UMLResourcesUtil;
+
+/*
+ * A ResourceSet shared by several generations. Profiles (and the UML libraries)
+ * loaded for a model stay in the set and are reused by the next models referring
+ * to them, while the user models are unloaded when their generation is done.
+ * Profiles whose files changed since they were loaded are loaded again.
+ * A session is not thread-safe, generations using the same session must not overlap
+ */
+public class GenerateSession implements Closeable {
+	private static Logger LOG = Logger.getGlobal();
+	private ResourceSet resourceSet;
+	private ResourceCache resourceCache;
+
+	/*
+	 * The resource set of a session, it can read files in advance (see prefetch)
+	 */
+	private class SessionResourceSet extends ResourceSetImpl {
+		//the content of the files read in advance, by resource URI
+		private Map<URI, byte[]> prefetched = new ConcurrentHashMap<>();
+		//the modification time and length of the files of the loaded resources, by resource URI
+		private Map<URI, String> fileStamps = new ConcurrentHashMap<>();
+
+		//resources are loaded from the cache, if any, when there is a valid entry,
+		//otherwise from the prefetched content of their file, if any
+		@Override
+		protected void demandLoad(Resource resource) throws IOException {
+			//taken before reading, a change made while loading is seen by the next load
+			String fileStamp = getFileStamp(resource.getURI());
+			if(fileStamp != null) {
+				this.fileStamps.put(resource.getURI(), fileStamp);
+			}
+			ResourceCache cache = GenerateSession.this.resourceCache;
+			if(cache != null && cache.load(resource)) {
+				this.prefetched.remove(resource.getURI());
+				return;
+			}
+			byte[] content = this.prefetched.remove(resource.getURI());
+			if(content != null) {
+				resource.load(new ByteArrayInputStream(content), getLoadOptions());
+			} else {
+				super.demandLoad(resource);
+			}
+			if(cache != null) {
+				cache.store(resource);
+			}
+		}
+	}
+
+	public GenerateSession() {
+		this.resourceSet = new SessionResourceSet();
+		UMLResourcesUtil.init(this.resourceSet);
+		this.resourceSet.getPackageRegistry().put(UMLPackage.eNS_URI, UMLPackage.eINSTANCE);
+		this.resourceSet.getResourceFactoryRegistry().getExtensionToFactoryMap().put(UMLResource.FILE_EXTENSION, UMLResource.Factory.INSTANCE);
+	}
+
+	/*
+	 * Sets the cache used to load the resources, null disables it
+	 */
+	public void setResourceCache(ResourceCache resourceCache) {
+		this.resourceCache = resourceCache;
+	}
+
+	public ResourceCache getResourceCache() {
+		return this.resourceCache;
+	}
+
+	public ResourceSet getResourceSet() {
+		checkOpen();
+		return this.resourceSet;
+	}
+
+	/*
+	 * Loads a profile (and everything it refers to) in advance, models referring
+	 * to the same profile file will not parse it again
+	 */
+	public void preloadProfile(String profileFilename) throws IOException {
+		Resource resource = loadResource(profileFilename);
+		EcoreUtil.resolveAll(resource);
+	}
+
+	/*
+	 * Loads a user model, the previously loaded one (if any) is unloaded first
+	 */
+	public UMLResource load(String umlFilename) throws IOException {
+		unload();
+		unloadChanged();
+		return (UMLResource)loadResource(umlFilename);
+	}
+
+	/*
+	 * Reads the files of the given resources concurrently, so that they are
+	 * parsed without waiting for the disk when they are demand loaded (e.g. when
+	 * a proxy to one of their elements is resolved). Parsing itself is sequential:
+	 * neither the resource set nor the UML2 cache adapter are thread-safe.
+	 * Resources already loaded and non-file URIs are skipped, read errors are
+	 * left to the load
+	 */
+	public static void prefetch(ResourceSet resourceSet, Collection<URI> uris) {
+		if(!(resourceSet instanceof GenerateSession.SessionResourceSet)) {
+			return;
+		}
+		Map<URI, byte[]> prefetched = ((GenerateSession.SessionResourceSet)resourceSet).prefetched;
+		List<URI> files = uris.stream().
+			filter(uri -> uri.isFile() && !prefetched.containsKey(uri)).
+			filter(uri -> {
+				Resource resource = resourceSet.getResource(uri, false);
+				return resource == null || !resource.isLoaded();
+			}).
+			distinct().collect(Collectors.toList());
+		files.parallelStream().forEach(uri -> {
+			try {
+				prefetched.put(uri, Files.readAllBytes(Paths.get(uri.toFileString())));
+			} catch(IOException e) {
+				LOG.warning("Cannot read "+uri.toFileString()+": "+e.getMessage());
+			}
+		});
+	}
+
+	/*
+	 * Unloads the user model loaded last (with the non-profile resources
+	 * it caused to be loaded), profiles are kept and the state of their
+	 * files is recorded, to load them again if they change
+	 */
+	public void unload() {
+		((SessionResourceSet)getResourceSet()).prefetched.clear();
+		SessionResourceSet sessionResourceSet = (SessionResourceSet)getResourceSet();
+		for(Resource resource : new ArrayList<>(sessionResourceSet.getResources())) {
+			if(!isShared(resource)) {
+				unload(resource);
+			} else if(resource.isLoaded()) {
+				//profiles are also loaded by the XMI parser, without demandLoad
+				String fileStamp = getFileStamp(resource.getURI());
+				if(fileStamp != null) {
+					sessionResourceSet.fileStamps.putIfAbsent(resource.getURI(), fileStamp);
+				}
+			}
+		}
+	}
+
+	/*
+	 * Unloads the resources whose files changed since they were loaded, the
+	 * session can outlive many edits (e.g. in the JVM of an IDE build)
+	 */
+	private void unloadChanged() {
+		SessionResourceSet sessionResourceSet = (SessionResourceSet)getResourceSet();
+		for(Resource resource : new ArrayList<>(sessionResourceSet.getResources())) {
+			String fileStamp = sessionResourceSet.fileStamps.get(resource.getURI());
+			if(fileStamp != null && !fileStamp.equals(getFileStamp(resource.getURI()))) {
+				LOG.info(resource.getURI().toFileString()+" changed, it will be loaded again");
+				unload(resource);
+			}
+		}
+	}
+
+	private void unload(Resource resource) {
+		resource.unload();
+		this.resourceSet.getResources().remove(resource);
+		((SessionResourceSet)this.resourceSet).fileStamps.remove(resource.getURI());
+	}
+
+	/*
+	 * The modification time and length of the file of a resource, null for
+	 * non-file URIs and missing files
+	 */
+	private static String getFileStamp(URI uri) {
+		if(!uri.isFile()) {
+			return null;
+		}
+		File file = new File(uri.toFileString());
+		return file.isFile() ? file.lastModified()+"/"+file.length() : null;
+	}
+
+	/*
+	 * Unloads a single resource, also a profile, so that its file is parsed again
+	 * the next time it is needed. The references to its elements held by the other
+	 * resources become proxies and are resolved against the reloaded one.
+	 * Returns false if the file was not loaded
+	 */
+	public boolean unload(File file) {
+		Resource resource = getResourceSet().getResource(URI.createFileURI(file.getAbsolutePath()), false);
+		if(resource == null) {
+			return false;
+		}
+		unload(resource);
+		return true;
+	}
+
+	/*
+	 * Unloads all the resources, the session can not be used anymore
+	 */
+	@Override
+	public void close() {
+		if(this.resourceSet != null) {
+			for(Resource resource : this.resourceSet.getResources()) {
+				resource.unload();
+			}
+			this.resourceSet.getResources().clear();
+			this.resourceSet = null;
+		}
+	}
+
+	public boolean isClosed() {
+		return this.resourceSet == null;
+	}
+
+	private void checkOpen() {
+		if(this.resourceSet == null) {
+			throw new IllegalStateException("The session is closed");
+		}
+	}
+
+	private Resource loadResource(String filename) throws IOException {
+		Resource resource = getResourceSet().getResource(URI.createFileURI(new File(filename).getAbsolutePath()), true);
+		resource.load(null);
+		for(Diagnostic error : resource.getErrors()) {
+			LOG.warning(error.getMessage());
+		}
+		for(Diagnostic warning : resource.getWarnings()) {
+			LOG.warning(warning.getMessage());
+		}
+		return resource;
+	}
+
+	/*
+	 * Profiles and the resources in the pathmap (UML libraries, metamodels)
+	 * are shared by the models
+	 */
+	static boolean isShared(Resource resource) {
+		if("pathmap".equals(resource.getURI().scheme())) {
+			return true;
+		}
+		for(EObject root : resource.getContents()) {
+			if(root instanceof Profile) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,209 @@
+/********************************************************************************
+* Copyright (c) 2017 Davide Rossi
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 2.0 which is available at
+* http://www.eclipse.org/legal/epl-2.0.
+*
+* This Source Code may also be made available under the following Secondary
+* Licenses when the conditions for such availability set forth in the Eclipse
+* Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+* with the GNU Classpath Exception which is
+* available at https://www.gnu.org/software/classpath/license.html.
+*
+* SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+********************************************************************************/
+package net.morcilab.uml2raml.m2t;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/*
+ * Regenerates the RAML each time the UML model or one of its profiles is saved.
+ * The generations share a session, so that only the files that changed are
+ * parsed again: the model is always reloaded, the profiles stay in memory
+ * until their own file changes. Generations are incremental, only the RAML
+ * derived from the changed elements is generated again
+ */
+public class GenerateWatcher implements Closeable {
+	/*
+	 * A generation run by the watcher, e.g. Generate.generateFile
+	 */
+	public interface Generation {
+		void run() throws IOException;
+	}
+
+	/*
+	 * Notified of the outcome of each regeneration
+	 */
+	public interface Listener {
+		void regenerated(Set<Path> changedFiles, long millis);
+
+		void failed(Set<Path> changedFiles, Exception e);
+	}
+
+	//the outcomes are logged unless another listener is given
+	private static final Listener LOG_LISTENER = new Listener() {
+		@Override
+		public void regenerated(Set<Path> changedFiles, long millis) {
+			LOG.info("Regenerated in "+millis+" ms after changes to "+changedFiles);
+		}
+
+		@Override
+		public void failed(Set<Path> changedFiles, Exception e) {
+			LOG.log(Level.WARNING, "Generation failed after changes to "+changedFiles, e);
+		}
+	};
+
+	private static Logger LOG = Logger.getGlobal();
+	//editors may write a file more than once when saving, events are collected for a while
+	private static final long SETTLE_MILLIS = 50;
+	private Generate generate;
+	private GenerateSession session;
+	private boolean closeSession = false;
+	private WatchService watchService;
+	private Map<Path, WatchKey> watchedDirectories = new LinkedHashMap<>();
+	private Set<Path> watchedFiles = new LinkedHashSet<>();
+	private long changeNanos;
+
+	public GenerateWatcher(Generate generate) throws IOException {
+		this.generate = generate;
+		if(generate.getSession() == null) {
+			generate.setSession(new GenerateSession());
+			this.closeSession = true;
+		}
+		this.session = generate.getSession();
+		//the APIs and types not affected by a change are reused
+		if(generate.getIncrementalState() == null) {
+			generate.setIncremental(true);
+		}
+		this.watchService = FileSystems.getDefault().newWatchService();
+	}
+
+	/*
+	 * Runs the generation and then regenerates after every change to its input
+	 * files, until the thread is interrupted. The time from the change to the end
+	 * of the generation is logged after each cycle. A failed generation is
+	 * logged and the files are watched for the next change
+	 */
+	public void watch(Generation generation) throws IOException {
+		watch(generation, LOG_LISTENER);
+	}
+
+	/*
+	 * As watch, the outcome of each cycle is passed to the listener
+	 */
+	public void watch(Generation generation, Listener listener) throws IOException {
+		generate(generation);
+		try {
+			while(true) {
+				Set<Path> changedFiles = awaitChanges();
+				reload(changedFiles);
+				try {
+					generate(generation);
+					listener.regenerated(changedFiles, TimeUnit.NANOSECONDS.toMillis(System.nanoTime()-this.changeNanos));
+				} catch(IOException | RuntimeException e) {
+					listener.failed(changedFiles, e);
+				}
+			}
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/*
+	 * Runs the generation and watches the files it read
+	 */
+	public void generate(Generation generation) throws IOException {
+		try {
+			generation.run();
+		} finally {
+			for(File inputFile : this.generate.getInputFiles()) {
+				watch(inputFile.toPath().toAbsolutePath());
+			}
+		}
+	}
+
+	/*
+	 * Blocks until at least one of the watched files is created or modified,
+	 * returns the changed files. The time of the first change is recorded
+	 */
+	public Set<Path> awaitChanges() throws InterruptedException {
+		Set<Path> changedFiles = new LinkedHashSet<>();
+		WatchKey key = this.watchService.take();
+		while(key != null) {
+			Path directory = (Path)key.watchable();
+			for(WatchEvent<?> event : key.pollEvents()) {
+				if(event.kind() == StandardWatchEventKinds.OVERFLOW) {
+					if(changedFiles.isEmpty()) {
+						this.changeNanos = System.nanoTime();
+					}
+					changedFiles.addAll(this.watchedFiles);
+				} else {
+					Path file = directory.resolve((Path)event.context());
+					if(this.watchedFiles.contains(file)) {
+						if(changedFiles.isEmpty()) {
+							this.changeNanos = System.nanoTime();
+						}
+						changedFiles.add(file);
+					}
+				}
+			}
+			key.reset();
+			if(changedFiles.isEmpty()) {
+				key = this.watchService.take();
+			} else {
+				key = this.watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS);
+			}
+		}
+		return changedFiles;
+	}
+
+	/*
+	 * Unloads the changed files from the session, they are parsed again by the next generation
+	 */
+	public void reload(Set<Path> changedFiles) {
+		for(Path changedFile : changedFiles) {
+			this.session.unload(changedFile.toFile());
+		}
+	}
+
+	public Set<Path> getWatchedFiles() {
+		return this.watchedFiles;
+	}
+
+	private void watch(Path file) throws IOException {
+		if(this.watchedFiles.add(file)) {
+			Path directory = file.getParent();
+			if(!this.watchedDirectories.containsKey(directory)) {
+				this.watchedDirectories.put(directory, directory.register(this.watchService,
+						StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY));
+			}
+		}
+	}
+
+	/*
+	 * Stops watching the files, the session is closed if created by the watcher
+	 */
+	@Override
+	public void close() throws IOException {
+		this.watchService.close();
+		if(this.closeSession) {
+			this.session.close();
+		}
+	}
+}
@@ -0,0 +1,157 @@
+/********************************************************************************
+* Copyright (c) 2017 Davide Rossi
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 2.0 which is available at
+* http://www.eclipse.org/legal/epl-2.0.
+*
+* This Source Code may also be made available under the following Secondary
+* Licenses when the conditions for such availability set forth in the Eclipse
+* Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+* with the GNU Classpath Exception which is
+* available at https://www.gnu.org/software/classpath/license.html.
+*
+* SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+********************************************************************************/
+package net.morcilab.uml2raml.m2t;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Where the time of a generation went: the time spent in each phase and a few
+ * counters of the work done. With more threads the phases overlap and the
+ * time of a phase is the sum of the times spent in it by each thread, so it
+ * can be longer than the total (wall) time of the generation.
+ * Counters and times are updated concurrently by the threads of a generation
+ */
+public class GenerationReport {
+	public enum Phase {
+		LOAD("load"),
+		//resolving the proxies and building the index, before the parallel processing
+		RESOLVE("resolve"),
+		//comparing the model with the previous generation (incremental generations)
+		DIGEST("digest"),
+		RESOURCES("resources"),
+		CLOSURE("closure"),
+		TYPES("types"),
+		WRITE("write");
+
+		private String label;
+
+		private Phase(String label) {
+			this.label = label;
+		}
+
+		public String getLabel() {
+			return this.label;
+		}
+	}
+
+	public enum Counter {
+		ELEMENTS_VISITED("elementsVisited"),
+		STEREOTYPE_LOOKUPS("stereotypeLookups"),
+		QUALIFIED_NAME_LOOKUPS("qualifiedNameLookups"),
+		TYPES_MATERIALIZED("typesMaterialized"),
+		BYTES_WRITTEN("bytesWritten"),
+		DESCRIPTION_FILES_CREATED("descriptionFilesCreated"),
+		//description files already existing
+		DESCRIPTION_FILES_SKIPPED("descriptionFilesSkipped"),
+		//models the fast path does not support, loaded with EMF instead
+		FAST_PATH_FALLBACKS("fastPathFallbacks");
+
+		private String label;
+
+		private Counter(String label) {
+			this.label = label;
+		}
+
+		public String getLabel() {
+			return this.label;
+		}
+	}
+
+	private long startNanos = System.nanoTime();
+	private volatile long totalNanos;
+	private LongAdder[] phaseNanos = new LongAdder[Phase.values().length];
+	private LongAdder[] counters = new LongAdder[Counter.values().length];
+
+	public GenerationReport() {
+		for(int i = 0; i < this.phaseNanos.length; i++) {
+			this.phaseNanos[i] = new LongAdder();
+		}
+		for(int i = 0; i < this.counters.length; i++) {
+			this.counters[i] = new LongAdder();
+		}
+	}
+
+	/*
+	 * Adds the time elapsed since startNanos (a System.nanoTime value) to the phase
+	 */
+	public void stop(Phase phase, long startNanos) {
+		this.phaseNanos[phase.ordinal()].add(System.nanoTime()-startNanos);
+	}
+
+	public void increment(Counter counter) {
+		this.counters[counter.ordinal()].increment();
+	}
+
+	public void add(Counter counter, long value) {
+		this.counters[counter.ordinal()].add(value);
+	}
+
+	/*
+	 * Sets the total time of the generation to the time elapsed since the report was created
+	 */
+	public void finish() {
+		this.totalNanos = System.nanoTime()-this.startNanos;
+	}
+
+	public long getTotalNanos() {
+		return this.totalNanos;
+	}
+
+	public long getNanos(Phase phase) {
+		return this.phaseNanos[phase.ordinal()].sum();
+	}
+
+	public long getCount(Counter counter) {
+		return this.counters[counter.ordinal()].sum();
+	}
+
+	/*
+	 * The report as a JSON object, times are in milliseconds
+	 */
+	public String toJSON() {
+		StringBuilder json = new StringBuilder();
+		json.append("{\n  \"totalMillis\": ").append(toMillis(this.totalNanos)).append(",\n  \"phases\": {");
+		Phase[] phases = Phase.values();
+		for(int i = 0; i < phases.length; i++) {
+			json.append(i == 0 ? "\n" : ",\n").append("    \"").append(phases[i].getLabel()).append("Millis\": ").append(toMillis(getNanos(phases[i])));
+		}
+		json.append("\n  },\n  \"counters\": {");
+		Counter[] counters = Counter.values();
+		for(int i = 0; i < counters.length; i++) {
+			json.append(i == 0 ? "\n" : ",\n").append("    \"").append(counters[i].getLabel()).append("\": ").append(getCount(counters[i]));
+		}
+		json.append("\n  }\n}\n");
+		return json.toString();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder text = new StringBuilder();
+		text.append(String.format(Locale.ROOT, "%-22s %10s ms%n", "total", toMillis(this.totalNanos)));
+		for(Phase phase : Phase.values()) {
+			text.append(String.format(Locale.ROOT, "%-22s %10s ms%n", phase.getLabel(), toMillis(getNanos(phase))));
+		}
+		for(Counter counter : Counter.values()) {
+			text.append(String.format(Locale.ROOT, "%-22s %10d%n", counter.getLabel(), getCount(counter)));
+		}
+		return text.toString();
+	}
+
+	private static String toMillis(long nanos) {
+		return String.format(Locale.ROOT, "%.3f", nanos/1e6);
+	}
+}
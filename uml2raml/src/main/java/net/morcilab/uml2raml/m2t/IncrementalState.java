@@ -0,0 +1,333 @@
+/********************************************************************************
+* Copyright (c) 2017 Davide Rossi
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 2.0 which is available at
+* http://www.eclipse.org/legal/epl-2.0.
+*
+* This Source Code may also be made available under the following Secondary
+* Licenses when the conditions for such availability set forth in the Eclipse
+* Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+* with the GNU Classpath Exception which is
+* available at https://www.gnu.org/software/classpath/license.html.
+*
+* SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+********************************************************************************/
+package net.morcilab.uml2raml.m2t;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.uml2.uml.Classifier;
+import org.eclipse.uml2.uml.Dependency;
+import org.eclipse.uml2.uml.Element;
+import org.eclipse.uml2.uml.NamedElement;
+import org.eclipse.uml2.uml.Package;
+
+import net.morcilab.uml2raml.raml.RamlModel;
+import net.morcilab.uml2raml.raml.RamlType;
+
+/*
+ * What a generation leaves for the next generation of the same model file:
+ * the RAML models and types produced, each with the ids of the UML elements
+ * it was derived from, and the digest of the model. When the model is loaded
+ * again only the APIs and the types derived from changed elements are
+ * generated again, the others are reused.
+ * The dependencies of an API are the elements of its package, the <<Resource>>
+ * classes linked from it and the elements they refer to (with their owners,
+ * as their qualified names are used); the dependencies of a type are its
+ * classifier, its parents and the elements they refer to. The types of an API
+ * are the closure of the types it refers to, computed again on each generation.
+ * Adding or removing packages and classifiers, reloading a profile or changing
+ * the options of the generation make the next generation a full one
+ */
+public class IncrementalState {
+	private static class ApiEntry {
+		private RamlModel model;
+		private List<String> typeNames;
+		private List<String> closure;
+		private Set<String> dependencies;
+	}
+
+	private static class TypeEntry {
+		private RamlType type;
+		private Set<String> dependencies;
+	}
+
+	private URI resourceURI;
+	private String options;
+	private List<WeakReference<Resource>> sharedResources = new ArrayList<>();
+	private ModelDigest digest;
+	private ModelDigest nextDigest;
+	//null when everything has to be generated again
+	private Set<String> changedIds;
+	private Map<String, ApiEntry> apis = new ConcurrentHashMap<>();
+	private Map<String, TypeEntry> types = new ConcurrentHashMap<>();
+	private Map<String, Boolean> changedTypes = new ConcurrentHashMap<>();
+	private Set<String> reusedApis = ConcurrentHashMap.newKeySet();
+	private Set<String> reusedTypes = ConcurrentHashMap.newKeySet();
+
+	/*
+	 * Starts the generation of a model, the options are the ones affecting the
+	 * RAML produced. Finds the elements changed since the last generation
+	 */
+	public void begin(Resource resource, String options) {
+		this.nextDigest = new ModelDigest(resource);
+		this.changedTypes.clear();
+		this.reusedApis.clear();
+		this.reusedTypes.clear();
+		if(this.digest == null || !resource.getURI().equals(this.resourceURI) || !options.equals(this.options)
+				|| !sharedResourcesLoaded(resource) || this.nextDigest.hasNamespaceChanges(this.digest)) {
+			this.changedIds = null;
+			this.apis.clear();
+			this.types.clear();
+		} else {
+			this.changedIds = this.nextDigest.getChangedIds(this.digest);
+		}
+		this.resourceURI = resource.getURI();
+		this.options = options;
+	}
+
+	/*
+	 * Ends a successful generation, the next one is compared to this
+	 */
+	public void commit(Resource resource) {
+		this.digest = this.nextDigest;
+		this.nextDigest = null;
+		this.sharedResources.clear();
+		for(Resource sharedResource : resource.getResourceSet().getResources()) {
+			if(sharedResource != resource) {
+				this.sharedResources.add(new WeakReference<>(sharedResource));
+			}
+		}
+	}
+
+	/*
+	 * Forgets everything, e.g. after a failed generation
+	 */
+	public void clear() {
+		this.digest = null;
+		this.nextDigest = null;
+		this.changedIds = null;
+		this.apis.clear();
+		this.types.clear();
+		this.sharedResources.clear();
+	}
+
+	/*
+	 * Returns the RAML model generated last time for the API package if neither
+	 * the package, nor the elements it depends on, nor its types changed
+	 */
+	public RamlModel getUnchangedApi(Package packageElement, UmlIndex index) {
+		ApiEntry entry = this.apis.get(ModelDigest.getId(packageElement));
+		if(entry == null || this.changedIds == null) {
+			return null;
+		}
+		if(isChanged(entry.dependencies) || isChanged(getApiDependencies(packageElement))) {
+			return null;
+		}
+		List<String> closure = new ArrayList<>(index.getApiModelGraph().getClosure(entry.typeNames));
+		if(!closure.equals(entry.closure)) {
+			return null;
+		}
+		for(String typeName : closure) {
+			if(isTypeChanged(typeName, index)) {
+				return null;
+			}
+		}
+		this.reusedApis.add(entry.model.getName());
+		return entry.model;
+	}
+
+	/*
+	 * Records the RAML model generated for an API package, typeNames are the
+	 * types it refers to directly
+	 */
+	public void putApi(Package packageElement, Collection<String> typeNames, RamlModel model) {
+		ApiEntry entry = new ApiEntry();
+		entry.model = model;
+		entry.typeNames = new ArrayList<>(typeNames);
+		entry.closure = new ArrayList<>(model.getTypeNameSet());
+		entry.dependencies = getApiDependencies(packageElement);
+		this.apis.put(ModelDigest.getId(packageElement), entry);
+	}
+
+	/*
+	 * Returns a copy for the model of the type generated last time, null if
+	 * the type has to be generated again
+	 */
+	public RamlType getUnchangedType(String typeName, UmlIndex index, RamlModel model) {
+		if(isTypeChanged(typeName, index)) {
+			return null;
+		}
+		this.reusedTypes.add(typeName);
+		return this.types.get(typeName).type.copy(model);
+	}
+
+	public void putType(NamedElement typeElement, RamlType type) {
+		TypeEntry entry = new TypeEntry();
+		entry.type = type;
+		entry.dependencies = getTypeDependencies(typeElement);
+		this.types.put(type.getFQName(), entry);
+		this.changedTypes.put(type.getFQName(), false);
+	}
+
+	/*
+	 * Names of the APIs and of the types reused by the last generation
+	 */
+	public Set<String> getReusedApis() {
+		return this.reusedApis;
+	}
+
+	public Set<String> getReusedTypes() {
+		return this.reusedTypes;
+	}
+
+	private boolean isTypeChanged(String typeName, UmlIndex index) {
+		Boolean changed = this.changedTypes.get(typeName);
+		if(changed == null) {
+			TypeEntry entry = this.types.get(typeName);
+			NamedElement typeElement = index.getElementByQN(typeName);
+			changed = this.changedIds == null || entry == null || typeElement == null
+					|| isChanged(entry.dependencies) || isChanged(getTypeDependencies(typeElement));
+			this.changedTypes.putIfAbsent(typeName, changed);
+		}
+		return changed;
+	}
+
+	private boolean isChanged(Set<String> dependencies) {
+		for(String id : this.changedIds) {
+			if(dependencies.contains(id)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean sharedResourcesLoaded(Resource resource) {
+		Collection<Resource> resources = resource.getResourceSet().getResources();
+		for(WeakReference<Resource> reference : this.sharedResources) {
+			Resource sharedResource = reference.get();
+			if(sharedResource == null || !sharedResource.isLoaded() || !resources.contains(sharedResource)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static Set<String> getApiDependencies(Package packageElement) {
+		Dependencies dependencies = new Dependencies(packageElement.eResource());
+		dependencies.addOwners(packageElement);
+		dependencies.addSubtree(packageElement);
+		//the links of the resources (wherever the dependencies are) and the linked
+		//resources are generated with the API, also when outside its package
+		Set<EObject> checked = new HashSet<>();
+		boolean added = true;
+		while(added) {
+			added = false;
+			List<EObject> candidates = new ArrayList<>(dependencies.visited);
+			candidates.addAll(dependencies.targets);
+			for(EObject candidate : candidates) {
+				if(checked.add(candidate) && candidate instanceof org.eclipse.uml2.uml.Class && RamlUmlUtils.isResource((Element)candidate)) {
+					for(Dependency dependency : ((NamedElement)candidate).getClientDependencies()) {
+						dependencies.addElement(dependency);
+					}
+					if(!dependencies.visited.contains(candidate)) {
+						dependencies.addSubtree(candidate);
+					}
+					added = true;
+				}
+			}
+		}
+		return dependencies.ids;
+	}
+
+	private static Set<String> getTypeDependencies(NamedElement typeElement) {
+		Dependencies dependencies = new Dependencies(typeElement.eResource());
+		dependencies.addOwners(typeElement);
+		dependencies.addSubtree(typeElement);
+		if(typeElement instanceof Classifier) {
+			//inherited attributes
+			for(Classifier parent : ((Classifier)typeElement).allParents()) {
+				if(parent.eResource() == typeElement.eResource()) {
+					dependencies.addOwners(parent);
+					dependencies.addSubtree(parent);
+				}
+			}
+		}
+		return dependencies.ids;
+	}
+
+	/*
+	 * The ids of the elements of a subtree, with their owners and the elements
+	 * they (or the stereotypes applied to them) refer to in the same resource
+	 */
+	private static class Dependencies {
+		private Resource resource;
+		private Set<String> ids = new HashSet<>();
+		private Set<EObject> visited = new HashSet<>();
+		private List<EObject> targets = new ArrayList<>();
+
+		private Dependencies(Resource resource) {
+			this.resource = resource;
+		}
+
+		private void addOwners(EObject eObject) {
+			for(EObject owner = eObject; owner != null && this.ids.add(ModelDigest.getId(owner)); owner = owner.eContainer());
+		}
+
+		private void addSubtree(EObject root) {
+			addElement(root);
+			for(Iterator<EObject> iterator = root.eAllContents(); iterator.hasNext(); ) {
+				addElement(iterator.next());
+			}
+		}
+
+		private void addElement(EObject eObject) {
+			if(!this.visited.add(eObject)) {
+				return;
+			}
+			this.ids.add(ModelDigest.getId(eObject));
+			addReferences(eObject);
+			if(eObject instanceof Element) {
+				for(EObject stereotypeApplication : ((Element)eObject).getStereotypeApplications()) {
+					addReferences(stereotypeApplication);
+				}
+			}
+		}
+
+		private void addReferences(EObject eObject) {
+			for(EReference reference : eObject.eClass().getEAllReferences()) {
+				if(reference.isContainment() || reference.isContainer() || reference.isDerived() || reference.isTransient() || !eObject.eIsSet(reference)) {
+					continue;
+				}
+				Object value = eObject.eGet(reference);
+				if(reference.isMany()) {
+					for(Object target : (List<?>)value) {
+						addTarget((EObject)target);
+					}
+				} else {
+					addTarget((EObject)value);
+				}
+			}
+		}
+
+		private void addTarget(EObject target) {
+			if(target != null && target.eResource() == this.resource) {
+				addOwners(target);
+				this.targets.add(target);
+			}
+		}
+	}
+}
@@ -0,0 +1,75 @@
+/********************************************************************************
+* Copyright (c) 2017 Davide Rossi
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 2.0 which is available at
+* http://www.eclipse.org/legal/epl-2.0.
+*
+* This Source Code may also be made available under the following Secondary
+* Licenses when the conditions for such availability set forth in the Eclipse
+* Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+* with the GNU Classpath Exception which is
+* available at https://www.gnu.org/software/classpath/license.html.
+*
+* SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+********************************************************************************/
+package net.morcilab.uml2raml.m2t;
+
+/*
+ * The Flight Recorder events of a generation, Java 8 version: no event is
+ * recorded. On Java 11+ the multi-release jar replaces this class with the one
+ * in src/main/java11, which has the same methods and uses the JFR API
+ */
+final class JfrEvents {
+	private JfrEvents() {
+	}
+
+	/*
+	 * Ends the event, returns true if it has to be committed
+	 */
+	static boolean end(Object begun) {
+		return false;
+	}
+
+	static Object beginModelLoad() {
+		return null;
+	}
+
+	static void commitModelLoad(Object begun, String file, int resources) {
+	}
+
+	static Object beginApiPackage() {
+		return null;
+	}
+
+	static void commitApiPackage(Object begun, String qualifiedName, int resources, int types) {
+	}
+
+	static Object beginResource() {
+		return null;
+	}
+
+	static void commitResource(Object begun, String qualifiedName, String path, int methods, int linkedResources) {
+	}
+
+	static Object beginTypeClosure() {
+		return null;
+	}
+
+	static void commitTypeClosure(Object begun, String api, int referredTypes, int closureTypes) {
+	}
+
+	static Object beginRamlType() {
+		return null;
+	}
+
+	static void commitRamlType(Object begun, String qualifiedName, String kind) {
+	}
+
+	static Object beginWrite() {
+		return null;
+	}
+
+	static void commitWrite(Object begun, String api, String file, long bytes) {
+	}
+}
@@ -0,0 +1,152 @@
+/********************************************************************************
+* Copyright (c) 2017 Davide Rossi
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 2.0 which is available at
+* http://www.eclipse.org/legal/epl-2.0.
+*
+* This Source Code may also be made available under the following Secondary
+* Licenses when the conditions for such availability set forth in the Eclipse
+* Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+* with the GNU Classpath Exception which is
+* available at https://www.gnu.org/software/classpath/license.html.
+*
+* SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+********************************************************************************/
+package net.morcilab.uml2raml.m2t;
+
+import static net.morcilab.uml2raml.m2t.ProfileNames.*;
+
+import java.util.List;
+
+import net.morcilab.uml2raml.raml.RamlTypeDeclaration;
+
+/*
+ * The features of the UML elements a generation reads, for elements of type E.
+ * ModelProcessor produces the RAML models through it, from the UML model loaded
+ * with EMF (UmlModelAccess) or from the facts streamed from the model files
+ * (FactsModelAccess). Lists are returned in model order and must not be modified;
+ * the lookups and the graphs are shared by the API packages processed in parallel
+ */
+public interface ModelAccess<E> {
+	/*
+	 * The id of the element in its file (the xmi:id)
+	 */
+	public String getId(E element);
+
+	public String getName(E element);
+
+	public String getQualifiedName(E element);
+
+	public boolean isClass(E element);
+
+	public boolean isDataType(E element);
+
+	public boolean isTypedElement(E element);
+
+	public E getOwner(E element);
+
+	/*
+	 * The nearest package owning the element (the element itself for packages)
+	 */
+	public E getNearestPackage(E element);
+
+	/*
+	 * Returns all the owned elements, recursively, in containment order
+	 */
+	public List<E> getAllOwnedElements(E element);
+
+	/*
+	 * Returns the application of the stereotype, or of the first applied one
+	 * specializing it, as UmlUtils.getStereotypeOrSubstereotype does
+	 */
+	public StereotypeProperties getStereotype(E element, String stereotypeFQName);
+
+	public boolean hasStereotype(E element, String stereotypeFQName);
+
+	/*
+	 * The owned operations of a class
+	 */
+	public List<E> getOperations(E element);
+
+	public List<E> getParameters(E operation);
+
+	/*
+	 * The direction of a parameter: in, inout, out or return
+	 */
+	public String getDirection(E parameter);
+
+	/*
+	 * The properties of a classifier, followed by the inherited ones
+	 */
+	public List<E> getAllAttributes(E classifier);
+
+	/*
+	 * The associations having an end typed by the classifier
+	 */
+	public List<E> getAssociations(E classifier);
+
+	public List<E> getEndTypes(E association);
+
+	public List<E> getClientDependencies(E element);
+
+	public List<E> getSuppliers(E dependency);
+
+	public E getType(E typedElement);
+
+	public int getLower(E element);
+
+	public int getUpper(E element);
+
+	public boolean isUnique(E element);
+
+	public default boolean isMultivalued(E element) {
+		int upper = getUpper(element);
+		return upper == -1 || upper > 1;
+	}
+
+	/*
+	 * Returns the first element (in containment order) with the qualified name
+	 */
+	public E getElementByQN(String qualifiedName);
+
+	public E getClassByQN(String qualifiedName);
+
+	/*
+	 * Returns the declaration of the type of a property or of a parameter, or the
+	 * one of a resource class (see RamlUmlUtils.typeMapper), shared and frozen
+	 */
+	public RamlTypeDeclaration getTypeDeclaration(E element);
+
+	/*
+	 * Returns the shared frozen declaration equal to the given one
+	 */
+	public RamlTypeDeclaration intern(RamlTypeDeclaration declaration);
+
+	public ResourceGraph<E> getResourceGraph(E thePackage);
+
+	public ApiModelGraph<E> getApiModelGraph();
+
+	public default boolean isResource(E element) {
+		return element != null && isClass(element) && hasStereotype(element, RESTPROFILE_RESOURCE_FQN);
+	}
+
+	public default boolean isApiModel(E element) {
+		if(element == null) {
+			return false;
+		}
+		return (isClass(element) && hasStereotype(element, APIMODELPROFILE_API_MODEL_FQN)) ||
+				(isDataType(element) && hasStereotype(element, APIMODELPROFILE_FACETED_SCALAR_FQN));
+	}
+
+	/*
+	 * Returns the RAML type of a typed element, null if its type is not a RAML type
+	 */
+	public default String getRAMLType(E element) {
+		if(!isTypedElement(element)) {
+			return null;
+		}
+		String typeQN = getQualifiedName(getType(element));
+		return typeQN.startsWith(RAML_TYPE_PREFIX) ? typeQN.substring(RAML_TYPE_PREFIX.length()) : null;
+	}
+}
@@ -0,0 +1,164 @@
+/********************************************************************************
+* Copyright (c) 2017 Davide Rossi
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 2.0 which is available at
+* http://www.eclipse.org/legal/epl-2.0.
+*
+* This Source Code may also be made available under the following Secondary
+* Licenses when the conditions for such availability set forth in the Eclipse
+* Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+* with the GNU Classpath Exception which is
+* available at https://www.gnu.org/software/classpath/license.html.
+*
+* SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+********************************************************************************/
+package net.morcilab.uml2raml.m2t;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.emf.common.util.TreeIterator;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.util.FeatureMap;
+import org.eclipse.uml2.uml.Classifier;
+import org.eclipse.uml2.uml.Element;
+import org.eclipse.uml2.uml.Package;
+import org.eclipse.uml2.uml.util.UMLUtil;
+
+/*
+ * Content digests of the elements of a UML resource, by element id.
+ * The digest of an element covers its own attributes, its references (as URIs),
+ * the ids of its children and the values of the stereotypes applied to it, but
+ * not the contents of its children: comparing the digests of two loads of the
+ * same file tells exactly which elements were changed, added or removed
+ */
+public class ModelDigest {
+	private Map<String, String> digests = new HashMap<>();
+	//packages and classifiers, adding or removing them may change qualified name lookups
+	private Set<String> namespaceIds = new HashSet<>();
+
+	public ModelDigest(Resource resource) {
+		MessageDigest messageDigest;
+		try {
+			messageDigest = MessageDigest.getInstance("SHA-256");
+		} catch(NoSuchAlgorithmException e) {
+			throw new Uml2RamlException(e);
+		}
+		StringBuilder content = new StringBuilder();
+		for(TreeIterator<EObject> iterator = resource.getAllContents(); iterator.hasNext(); ) {
+			EObject eObject = iterator.next();
+			//stereotype applications are part of the digest of the element they are applied to
+			if(!(eObject instanceof Element) && UMLUtil.getBaseElement(eObject) != null) {
+				iterator.prune();
+				continue;
+			}
+			content.setLength(0);
+			appendContent(content, eObject);
+			if(eObject instanceof Element) {
+				for(EObject stereotypeApplication : ((Element)eObject).getStereotypeApplications()) {
+					appendContent(content, stereotypeApplication);
+					for(Iterator<EObject> values = stereotypeApplication.eAllContents(); values.hasNext(); ) {
+						appendContent(content, values.next());
+					}
+				}
+			}
+			String id = getId(eObject);
+			byte[] digest = messageDigest.digest(content.toString().getBytes(StandardCharsets.UTF_8));
+			this.digests.put(id, Base64.getEncoder().encodeToString(digest));
+			if(eObject instanceof Package || eObject instanceof Classifier) {
+				this.namespaceIds.add(id);
+			}
+		}
+	}
+
+	/*
+	 * Returns the id of an element in its resource (the xmi:id for Papyrus models)
+	 */
+	public static String getId(EObject eObject) {
+		Resource resource = eObject.eResource();
+		if(resource == null) {
+			return EcoreUtil.getURI(eObject).toString();
+		}
+		return resource.getURIFragment(eObject);
+	}
+
+	public int size() {
+		return this.digests.size();
+	}
+
+	/*
+	 * Returns the ids of the elements changed, added or removed since the previous digest
+	 */
+	public Set<String> getChangedIds(ModelDigest previous) {
+		Set<String> changedIds = new HashSet<>();
+		for(Map.Entry<String, String> entry : this.digests.entrySet()) {
+			if(!entry.getValue().equals(previous.digests.get(entry.getKey()))) {
+				changedIds.add(entry.getKey());
+			}
+		}
+		for(String id : previous.digests.keySet()) {
+			if(!this.digests.containsKey(id)) {
+				changedIds.add(id);
+			}
+		}
+		return changedIds;
+	}
+
+	/*
+	 * True if packages or classifiers were added or removed since the previous digest
+	 */
+	public boolean hasNamespaceChanges(ModelDigest previous) {
+		return !this.namespaceIds.equals(previous.namespaceIds);
+	}
+
+	private static void appendContent(StringBuilder content, EObject eObject) {
+		content.append(eObject.eClass().getName()).append('\n');
+		for(EStructuralFeature feature : eObject.eClass().getEAllStructuralFeatures()) {
+			if(feature.isDerived() || feature.isTransient() || !eObject.eIsSet(feature)) {
+				continue;
+			}
+			content.append(feature.getName()).append('=');
+			Object value = eObject.eGet(feature, false);
+			if(feature.isMany()) {
+				for(Object item : (List<?>)value) {
+					appendValue(content, feature, item);
+				}
+			} else {
+				appendValue(content, feature, value);
+			}
+			content.append('\n');
+		}
+	}
+
+	private static void appendValue(StringBuilder content, EStructuralFeature feature, Object value) {
+		if(value instanceof FeatureMap.Entry) {
+			FeatureMap.Entry entry = (FeatureMap.Entry)value;
+			content.append(entry.getEStructuralFeature().getName()).append(':');
+			appendValue(content, entry.getEStructuralFeature(), entry.getValue());
+		} else if(value instanceof EObject) {
+			EObject target = (EObject)value;
+			//children by id, their own digests cover their content
+			if(feature instanceof EReference && ((EReference)feature).isContainment()) {
+				content.append(getId(target));
+			} else {
+				content.append(EcoreUtil.getURI(target));
+			}
+		} else {
+			content.append(value);
+		}
+		content.append(' ');
+	}
+}
@@ -0,0 +1,840 @@
+/********************************************************************************
+* Copyright (c) 2017 Davide Rossi
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 2.0 which is available at
+* http://www.eclipse.org/legal/epl-2.0.
+*
+* This Source Code may also be made available under the following Secondary
+* Licenses when the conditions for such availability set forth in the Eclipse
+* Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+* with the GNU Classpath Exception which is
+* available at https://www.gnu.org/software/classpath/license.html.
+*
+* SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+********************************************************************************/
+package net.morcilab.uml2raml.m2t;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * The part of a UML model a generation reads: the packages, the <<Resource>>
+ * classes with their <<HttpMethod>> operations and <<ResourcePath>> links,
+ * the <<ApiModel>> classes and faceted DataTypes with their properties,
+ * generalizations and associations, and the stereotype applications of all
+ * of them. It is built by ModelFactsReader streaming the XMI files, without
+ * creating the UML model, and ModelProcessor produces the RAML models from it
+ * (see FactsModelAccess).
+ * Elements are kept in containment order, the types outside the kept part
+ * (e.g. UML primitive types and RAML types) only have a kind and a name.
+ * The facts have a compact binary form (see ModelFactsCache) that other
+ * emitters can read as well
+ */
+public class ModelFacts {
+	private static final int FORMAT_VERSION = 1;
+	//the tags of the stereotype property values in the binary form
+	private static final int NULL_VALUE = 0;
+	private static final int STRING_VALUE = 1;
+	private static final int INTEGER_VALUE = 2;
+	private static final int DOUBLE_VALUE = 3;
+	private static final int BOOLEAN_VALUE = 4;
+	private static final int LITERAL_VALUE = 5;
+	private static final int LIST_VALUE = 6;
+
+	public enum Kind {
+		PACKAGE,
+		//Class and its specializations (e.g. Component)
+		CLASS,
+		//DataType, PrimitiveType and Enumeration
+		DATA_TYPE,
+		OPERATION,
+		PARAMETER,
+		PROPERTY,
+		DEPENDENCY,
+		ASSOCIATION,
+		OTHER
+	}
+
+	/*
+	 * An enumeration literal value of a stereotype property
+	 */
+	public static final class LiteralValue {
+		private final String name;
+
+		public LiteralValue(String name) {
+			this.name = name;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof LiteralValue && this.name.equals(((LiteralValue)obj).name);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.name.hashCode();
+		}
+
+		@Override
+		public String toString() {
+			return this.name;
+		}
+	}
+
+	/*
+	 * A stereotype application: the stereotype, its generalizations and the
+	 * properties that have a value, converted as StereotypeValues does
+	 * (enumeration literals are LiteralValues)
+	 */
+	public static class StereotypeFacts implements StereotypeProperties {
+		public static final StereotypeFacts NOT_APPLIED = new StereotypeFacts(null, null, Collections.emptySet(), Collections.emptyMap());
+		private final String qualifiedName;
+		private final String name;
+		//the qualified names of the stereotype and of all its generalizations
+		private final Set<String> closure;
+		private final Map<String, Object> values;
+
+		public StereotypeFacts(String qualifiedName, String name, Set<String> closure, Map<String, Object> values) {
+			this.qualifiedName = qualifiedName;
+			this.name = name;
+			this.closure = closure;
+			this.values = values;
+		}
+
+		@Override
+		public String getQualifiedName() {
+			return this.qualifiedName;
+		}
+
+		@Override
+		public String getName() {
+			return this.name;
+		}
+
+		public Set<String> getClosure() {
+			return this.closure;
+		}
+
+		@Override
+		public boolean isApplied() {
+			return this.qualifiedName != null;
+		}
+
+		public boolean hasValue(String propertyName) {
+			return this.values.containsKey(propertyName);
+		}
+
+		public Object get(String propertyName) {
+			return this.values.get(propertyName);
+		}
+
+		@Override
+		public String getString(String propertyName) {
+			Object value = this.values.get(propertyName);
+			return value instanceof String ? (String)value : null;
+		}
+
+		@Override
+		public Integer getInteger(String propertyName) {
+			Object value = this.values.get(propertyName);
+			return value instanceof Integer ? (Integer)value : null;
+		}
+
+		@Override
+		public Double getDouble(String propertyName) {
+			Object value = this.values.get(propertyName);
+			return value instanceof Double ? (Double)value : null;
+		}
+
+		@Override
+		public String getEnumerationLiteralName(String propertyName) {
+			Object value = this.values.get(propertyName);
+			return value instanceof LiteralValue ? ((LiteralValue)value).getName() : null;
+		}
+
+		/*
+		 * Returns the string items of a multi-valued property, null if there are none
+		 */
+		@Override
+		public List<String> getStringList(String propertyName) {
+			Object values = this.values.get(propertyName);
+			if(values instanceof List) {
+				List<String> items = new ArrayList<String>();
+				for(Object value : (List<?>)values) {
+					if(value instanceof String) {
+						items.add((String)value);
+					}
+				}
+				return items.size() > 0 ? items : null;
+			} else {
+				return null;
+			}
+		}
+
+		/*
+		 * Returns all the string-valued properties
+		 */
+		@Override
+		public Map<String, String> getStrings() {
+			Map<String, String> strings = new HashMap<>();
+			for(Map.Entry<String, Object> entry : this.values.entrySet()) {
+				if(entry.getValue() instanceof String) {
+					strings.put(entry.getKey(), (String)entry.getValue());
+				}
+			}
+			return strings;
+		}
+	}
+
+	/*
+	 * A UML element, with the features the generation reads for its kind
+	 */
+	public static class ElementFacts {
+		private final String id;
+		private final Kind kind;
+		private final String name;
+		private final String qualifiedName;
+		private ElementFacts owner;
+		private List<ElementFacts> ownedElements = Collections.emptyList();
+		private List<StereotypeFacts> stereotypes = Collections.emptyList();
+		//typed and multiplicity elements
+		private ElementFacts type;
+		private int lower = 1;
+		private int upper = 1;
+		private boolean unique = true;
+		//parameters
+		private String direction = "in";
+		//classifiers: the general classifiers and the associations having an end typed by them
+		private List<ElementFacts> generals = Collections.emptyList();
+		private List<ElementFacts> associations = Collections.emptyList();
+		//classes: the stereotyped dependencies they are a client of
+		private List<ElementFacts> clientDependencies = Collections.emptyList();
+		//dependencies
+		private List<ElementFacts> suppliers = Collections.emptyList();
+		//associations: the types of the member ends
+		private List<ElementFacts> endTypes = Collections.emptyList();
+		//private properties are not inherited
+		private boolean inheritable = true;
+
+		public ElementFacts(String id, Kind kind, String name, String qualifiedName) {
+			this.id = id;
+			this.kind = kind;
+			this.name = name;
+			this.qualifiedName = qualifiedName;
+		}
+
+		/*
+		 * The id of the element in its file (the xmi:id)
+		 */
+		public String getId() {
+			return this.id;
+		}
+
+		public Kind getKind() {
+			return this.kind;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+
+		public String getQualifiedName() {
+			return this.qualifiedName;
+		}
+
+		public ElementFacts getOwner() {
+			return this.owner;
+		}
+
+		public List<ElementFacts> getOwnedElements() {
+			return this.ownedElements;
+		}
+
+		/*
+		 * The applied stereotypes, in the order of their applications
+		 */
+		public List<StereotypeFacts> getStereotypes() {
+			return this.stereotypes;
+		}
+
+		/*
+		 * Returns the application of the stereotype, or of the first applied one
+		 * specializing it, as UmlUtils.getStereotypeOrSubstereotype does;
+		 * NOT_APPLIED if there is none
+		 */
+		public StereotypeFacts getStereotype(String stereotypeFQName) {
+			for(StereotypeFacts stereotype : this.stereotypes) {
+				if(stereotypeFQName.equals(stereotype.getQualifiedName())) {
+					return stereotype;
+				}
+			}
+			for(StereotypeFacts stereotype : this.stereotypes) {
+				if(stereotype.getClosure().contains(stereotypeFQName)) {
+					return stereotype;
+				}
+			}
+			return StereotypeFacts.NOT_APPLIED;
+		}
+
+		public boolean hasStereotype(String stereotypeFQName) {
+			return getStereotype(stereotypeFQName).isApplied();
+		}
+
+		public ElementFacts getType() {
+			return this.type;
+		}
+
+		public int getLower() {
+			return this.lower;
+		}
+
+		public int getUpper() {
+			return this.upper;
+		}
+
+		public boolean isUnique() {
+			return this.unique;
+		}
+
+		public boolean isMultivalued() {
+			return this.upper == -1 || this.upper > 1;
+		}
+
+		public String getDirection() {
+			return this.direction;
+		}
+
+		public List<ElementFacts> getGenerals() {
+			return this.generals;
+		}
+
+		public List<ElementFacts> getAssociations() {
+			return this.associations;
+		}
+
+		public List<ElementFacts> getClientDependencies() {
+			return this.clientDependencies;
+		}
+
+		public List<ElementFacts> getSuppliers() {
+			return this.suppliers;
+		}
+
+		public List<ElementFacts> getEndTypes() {
+			return this.endTypes;
+		}
+
+		public boolean isInheritable() {
+			return this.inheritable;
+		}
+
+		/*
+		 * The nearest package owning the element (the element itself for packages)
+		 */
+		public ElementFacts getNearestPackage() {
+			ElementFacts element = this;
+			while(element != null && element.kind != Kind.PACKAGE) {
+				element = element.owner;
+			}
+			return element;
+		}
+
+		/*
+		 * The owned elements of the given kind
+		 */
+		public List<ElementFacts> getOwnedElements(Kind kind) {
+			List<ElementFacts> elements = new ArrayList<>();
+			for(ElementFacts element : this.ownedElements) {
+				if(element.kind == kind) {
+					elements.add(element);
+				}
+			}
+			return elements;
+		}
+
+		/*
+		 * The properties of a classifier, followed by the inherited ones,
+		 * as Classifier.getAllAttributes returns them
+		 */
+		public List<ElementFacts> getAllAttributes() {
+			List<ElementFacts> attributes = new ArrayList<>();
+			collectAttributes(this, attributes, new ArrayList<>(), true);
+			return attributes;
+		}
+
+		private static void collectAttributes(ElementFacts classifier, List<ElementFacts> attributes, List<ElementFacts> visited, boolean own) {
+			if(visited.contains(classifier)) {
+				return;
+			}
+			visited.add(classifier);
+			for(ElementFacts element : classifier.ownedElements) {
+				if(element.kind == Kind.PROPERTY && (own || element.inheritable) && !attributes.contains(element)) {
+					attributes.add(element);
+				}
+			}
+			for(ElementFacts general : classifier.generals) {
+				collectAttributes(general, attributes, visited, false);
+			}
+		}
+
+		/*
+		 * Returns all the owned elements, recursively, in containment order
+		 */
+		public List<ElementFacts> getAllOwnedElements() {
+			List<ElementFacts> elements = new ArrayList<>();
+			collectOwnedElements(this, elements);
+			return elements;
+		}
+
+		private static void collectOwnedElements(ElementFacts element, List<ElementFacts> elements) {
+			for(ElementFacts ownedElement : element.ownedElements) {
+				elements.add(ownedElement);
+				collectOwnedElements(ownedElement, elements);
+			}
+		}
+
+		/*
+		 * The elements the element refers to, in the order they are written
+		 */
+		private List<List<ElementFacts>> getReferences() {
+			List<List<ElementFacts>> references = new ArrayList<>();
+			references.add(this.ownedElements);
+			references.add(this.type == null ? Collections.emptyList() : Collections.singletonList(this.type));
+			references.add(this.generals);
+			references.add(this.associations);
+			references.add(this.clientDependencies);
+			references.add(this.suppliers);
+			references.add(this.endTypes);
+			return references;
+		}
+
+		@Override
+		public String toString() {
+			return this.kind+" "+(this.qualifiedName != null ? this.qualifiedName : this.id);
+		}
+	}
+
+	private ElementFacts root;
+	private Map<String, ElementFacts> elementsByQN = new HashMap<>();
+	private Map<String, ElementFacts> classesByQN = new HashMap<>();
+	private List<String> files = new ArrayList<>();
+	private int elementCount;
+
+	/*
+	 * The root element of the model (the first element of its main file)
+	 */
+	public ElementFacts getRoot() {
+		return this.root;
+	}
+
+	/*
+	 * Returns the first element (in containment order) with the qualified name
+	 */
+	public ElementFacts getElementByQN(String qualifiedName) {
+		return this.elementsByQN.get(qualifiedName);
+	}
+
+	public ElementFacts getClassByQN(String qualifiedName) {
+		return this.classesByQN.get(qualifiedName);
+	}
+
+	/*
+	 * The model files read, the main one first, then its fragments and the profiles
+	 */
+	public List<String> getFiles() {
+		return Collections.unmodifiableList(this.files);
+	}
+
+	/*
+	 * The number of elements read from the model files, most of them are not kept
+	 */
+	public int getElementCount() {
+		return this.elementCount;
+	}
+
+	/*
+	 * Returns the <<Api>> packages owned by the root, in model order
+	 */
+	public List<ElementFacts> getApiPackages() {
+		List<ElementFacts> apiPackages = new ArrayList<>();
+		if(this.root != null) {
+			for(ElementFacts element : this.root.getOwnedElements(Kind.PACKAGE)) {
+				if(element.hasStereotype(ProfileNames.RESTPROFILE_API_FQN)) {
+					apiPackages.add(element);
+				}
+			}
+		}
+		return apiPackages;
+	}
+
+	void setRoot(ElementFacts root) {
+		this.root = root;
+	}
+
+	void addFile(String file) {
+		this.files.add(file);
+	}
+
+	void setElementCount(int elementCount) {
+		this.elementCount = elementCount;
+	}
+
+	/*
+	 * Adds an element to the qualified name tables, the first one wins
+	 */
+	void index(ElementFacts element) {
+		if(element.getQualifiedName() != null) {
+			this.elementsByQN.putIfAbsent(element.getQualifiedName(), element);
+			if(element.getKind() == Kind.CLASS) {
+				this.classesByQN.putIfAbsent(element.getQualifiedName(), element);
+			}
+		}
+	}
+
+	static void setOwner(ElementFacts element, ElementFacts owner) {
+		element.owner = owner;
+		if(owner.ownedElements.isEmpty()) {
+			owner.ownedElements = new ArrayList<>();
+		}
+		owner.ownedElements.add(element);
+	}
+
+	static void setStereotypes(ElementFacts element, List<StereotypeFacts> stereotypes) {
+		element.stereotypes = stereotypes;
+	}
+
+	static void setType(ElementFacts element, ElementFacts type) {
+		element.type = type;
+	}
+
+	static void setMultiplicity(ElementFacts element, int lower, int upper, boolean unique) {
+		element.lower = lower;
+		element.upper = upper;
+		element.unique = unique;
+	}
+
+	static void setDirection(ElementFacts element, String direction) {
+		element.direction = direction;
+	}
+
+	static void setInheritable(ElementFacts element, boolean inheritable) {
+		element.inheritable = inheritable;
+	}
+
+	static void setGenerals(ElementFacts element, List<ElementFacts> generals) {
+		element.generals = generals;
+	}
+
+	static void setAssociations(ElementFacts element, List<ElementFacts> associations) {
+		element.associations = associations;
+	}
+
+	static void setClientDependencies(ElementFacts element, List<ElementFacts> clientDependencies) {
+		element.clientDependencies = clientDependencies;
+	}
+
+	static void setSuppliers(ElementFacts element, List<ElementFacts> suppliers) {
+		element.suppliers = suppliers;
+	}
+
+	static void setEndTypes(ElementFacts element, List<ElementFacts> endTypes) {
+		element.endTypes = endTypes;
+	}
+
+	/*
+	 * Writes the facts in binary form: the elements are numbered in the order
+	 * they are reached from the root and refer to each other by number, each
+	 * string is written once and then referred to by number
+	 */
+	void write(DataOutputStream out) throws IOException {
+		List<ElementFacts> elements = new ArrayList<>();
+		Map<ElementFacts, Integer> numbers = new IdentityHashMap<>();
+		number(this.root, elements, numbers);
+		for(ElementFacts element : this.elementsByQN.values()) {
+			number(element, elements, numbers);
+		}
+		//breadth-first, the depth of the reference graph is not bounded
+		for(int i = 0; i < elements.size(); i++) {
+			ElementFacts element = elements.get(i);
+			number(element.owner, elements, numbers);
+			for(List<ElementFacts> references : element.getReferences()) {
+				for(ElementFacts reference : references) {
+					number(reference, elements, numbers);
+				}
+			}
+		}
+		FactsOutput output = new FactsOutput(out);
+		out.writeInt(FORMAT_VERSION);
+		out.writeInt(elements.size());
+		for(ElementFacts element : elements) {
+			output.writeString(element.id);
+			out.writeByte(element.kind.ordinal());
+			output.writeString(element.name);
+			output.writeString(element.qualifiedName);
+			out.writeInt(element.lower);
+			out.writeInt(element.upper);
+			out.writeBoolean(element.unique);
+			output.writeString(element.direction);
+			out.writeBoolean(element.inheritable);
+			out.writeInt(element.stereotypes.size());
+			for(StereotypeFacts stereotype : element.stereotypes) {
+				output.writeString(stereotype.qualifiedName);
+				output.writeString(stereotype.name);
+				out.writeInt(stereotype.closure.size());
+				for(String general : stereotype.closure) {
+					output.writeString(general);
+				}
+				out.writeInt(stereotype.values.size());
+				for(Map.Entry<String, Object> value : stereotype.values.entrySet()) {
+					output.writeString(value.getKey());
+					output.writeValue(value.getValue());
+				}
+			}
+		}
+		for(ElementFacts element : elements) {
+			out.writeInt(element.owner == null ? -1 : numbers.get(element.owner));
+			for(List<ElementFacts> references : element.getReferences()) {
+				out.writeInt(references.size());
+				for(ElementFacts reference : references) {
+					out.writeInt(numbers.get(reference));
+				}
+			}
+		}
+		writeIndex(output, this.elementsByQN, numbers);
+		writeIndex(output, this.classesByQN, numbers);
+		out.writeInt(this.files.size());
+		for(String file : this.files) {
+			output.writeString(file);
+		}
+		out.writeInt(this.elementCount);
+	}
+
+	private static void number(ElementFacts element, List<ElementFacts> elements, Map<ElementFacts, Integer> numbers) {
+		if(element != null && !numbers.containsKey(element)) {
+			numbers.put(element, elements.size());
+			elements.add(element);
+		}
+	}
+
+	private static void writeIndex(FactsOutput output, Map<String, ElementFacts> index, Map<ElementFacts, Integer> numbers) throws IOException {
+		output.out.writeInt(index.size());
+		for(Map.Entry<String, ElementFacts> entry : index.entrySet()) {
+			output.writeString(entry.getKey());
+			output.out.writeInt(numbers.get(entry.getValue()));
+		}
+	}
+
+	/*
+	 * Reads facts written by write
+	 */
+	static ModelFacts read(DataInputStream in) throws IOException {
+		if(in.readInt() != FORMAT_VERSION) {
+			throw new IOException("Unsupported facts format");
+		}
+		FactsInput input = new FactsInput(in);
+		ElementFacts[] elements = new ElementFacts[in.readInt()];
+		//the closures are shared by the applications of a stereotype, as when read from the model
+		Map<String, Set<String>> closures = new HashMap<>();
+		for(int i = 0; i < elements.length; i++) {
+			String id = input.readString();
+			Kind kind = Kind.values()[in.readByte()];
+			ElementFacts element = new ElementFacts(id, kind, input.readString(), input.readString());
+			element.lower = in.readInt();
+			element.upper = in.readInt();
+			element.unique = in.readBoolean();
+			element.direction = input.readString();
+			element.inheritable = in.readBoolean();
+			int stereotypeCount = in.readInt();
+			if(stereotypeCount > 0) {
+				List<StereotypeFacts> stereotypes = new ArrayList<>(stereotypeCount);
+				for(int j = 0; j < stereotypeCount; j++) {
+					String qualifiedName = input.readString();
+					String name = input.readString();
+					Set<String> closure = new LinkedHashSet<>();
+					int closureSize = in.readInt();
+					for(int k = 0; k < closureSize; k++) {
+						closure.add(input.readString());
+					}
+					Set<String> sharedClosure = closures.get(qualifiedName);
+					if(sharedClosure == null || !sharedClosure.equals(closure)) {
+						sharedClosure = Collections.unmodifiableSet(closure);
+						closures.put(qualifiedName, sharedClosure);
+					}
+					Map<String, Object> values = new HashMap<>();
+					int valueCount = in.readInt();
+					for(int k = 0; k < valueCount; k++) {
+						values.put(input.readString(), input.readValue());
+					}
+					stereotypes.add(new StereotypeFacts(qualifiedName, name, sharedClosure, values));
+				}
+				element.stereotypes = stereotypes;
+			}
+			elements[i] = element;
+		}
+		for(ElementFacts element : elements) {
+			int owner = in.readInt();
+			element.owner = owner < 0 ? null : elements[owner];
+			element.ownedElements = readReferences(in, elements);
+			List<ElementFacts> type = readReferences(in, elements);
+			element.type = type.isEmpty() ? null : type.get(0);
+			element.generals = readReferences(in, elements);
+			element.associations = readReferences(in, elements);
+			element.clientDependencies = readReferences(in, elements);
+			element.suppliers = readReferences(in, elements);
+			element.endTypes = readReferences(in, elements);
+		}
+		ModelFacts facts = new ModelFacts();
+		facts.root = elements.length > 0 ? elements[0] : null;
+		readIndex(input, facts.elementsByQN, elements);
+		readIndex(input, facts.classesByQN, elements);
+		int fileCount = in.readInt();
+		for(int i = 0; i < fileCount; i++) {
+			facts.files.add(input.readString());
+		}
+		facts.elementCount = in.readInt();
+		return facts;
+	}
+
+	private static List<ElementFacts> readReferences(DataInputStream in, ElementFacts[] elements) throws IOException {
+		int size = in.readInt();
+		if(size == 0) {
+			return Collections.emptyList();
+		}
+		List<ElementFacts> references = new ArrayList<>(size);
+		for(int i = 0; i < size; i++) {
+			references.add(elements[in.readInt()]);
+		}
+		return references;
+	}
+
+	private static void readIndex(FactsInput input, Map<String, ElementFacts> index, ElementFacts[] elements) throws IOException {
+		int size = input.in.readInt();
+		for(int i = 0; i < size; i++) {
+			index.put(input.readString(), elements[input.in.readInt()]);
+		}
+	}
+
+	/*
+	 * Writes each string once, then its number
+	 */
+	private static final class FactsOutput {
+		private final DataOutputStream out;
+		private final Map<String, Integer> strings = new HashMap<>();
+
+		FactsOutput(DataOutputStream out) {
+			this.out = out;
+		}
+
+		void writeString(String string) throws IOException {
+			if(string == null) {
+				this.out.writeInt(-1);
+				return;
+			}
+			Integer number = this.strings.get(string);
+			if(number != null) {
+				this.out.writeInt(number);
+			} else {
+				this.strings.put(string, this.strings.size());
+				//not writeUTF, values such as schemas can be longer than 64KB
+				byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+				this.out.writeInt(-2);
+				this.out.writeInt(bytes.length);
+				this.out.write(bytes);
+			}
+		}
+
+		void writeValue(Object value) throws IOException {
+			if(value == null) {
+				this.out.writeByte(NULL_VALUE);
+			} else if(value instanceof String) {
+				this.out.writeByte(STRING_VALUE);
+				writeString((String)value);
+			} else if(value instanceof Integer) {
+				this.out.writeByte(INTEGER_VALUE);
+				this.out.writeInt((Integer)value);
+			} else if(value instanceof Double) {
+				this.out.writeByte(DOUBLE_VALUE);
+				this.out.writeDouble((Double)value);
+			} else if(value instanceof Boolean) {
+				this.out.writeByte(BOOLEAN_VALUE);
+				this.out.writeBoolean((Boolean)value);
+			} else if(value instanceof LiteralValue) {
+				this.out.writeByte(LITERAL_VALUE);
+				writeString(((LiteralValue)value).getName());
+			} else if(value instanceof List) {
+				this.out.writeByte(LIST_VALUE);
+				this.out.writeInt(((List<?>)value).size());
+				for(Object item : (List<?>)value) {
+					writeValue(item);
+				}
+			} else {
+				throw new IllegalArgumentException("Unsupported stereotype property value "+value);
+			}
+		}
+	}
+
+	private static final class FactsInput {
+		private final DataInputStream in;
+		private final List<String> strings = new ArrayList<>();
+
+		FactsInput(DataInputStream in) {
+			this.in = in;
+		}
+
+		String readString() throws IOException {
+			int number = this.in.readInt();
+			if(number == -1) {
+				return null;
+			} else if(number == -2) {
+				byte[] bytes = new byte[this.in.readInt()];
+				this.in.readFully(bytes);
+				String string = new String(bytes, StandardCharsets.UTF_8);
+				this.strings.add(string);
+				return string;
+			}
+			return this.strings.get(number);
+		}
+
+		Object readValue() throws IOException {
+			int tag = this.in.readByte();
+			switch(tag) {
+			case NULL_VALUE:
+				return null;
+			case STRING_VALUE:
+				return readString();
+			case INTEGER_VALUE:
+				return this.in.readInt();
+			case DOUBLE_VALUE:
+				return this.in.readDouble();
+			case BOOLEAN_VALUE:
+				return this.in.readBoolean();
+			case LITERAL_VALUE:
+				return new LiteralValue(readString());
+			case LIST_VALUE:
+				int size = this.in.readInt();
+				List<Object> items = new ArrayList<>(size);
+				for(int i = 0; i < size; i++) {
+					items.add(readValue());
+				}
+				return Collections.unmodifiableList(items);
+			default:
+				throw new IOException("Unsupported value tag "+tag);
+			}
+		}
+	}
+}
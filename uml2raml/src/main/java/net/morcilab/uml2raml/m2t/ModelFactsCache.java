@@ -0,0 +1,127 @@
+/********************************************************************************
+* Copyright (c) 2017 Davide Rossi
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 2.0 which is available at
+* http://www.eclipse.org/legal/epl-2.0.
+*
+* This Source Code may also be made available under the following Secondary
+* Licenses when the conditions for such availability set forth in the Eclipse
+* Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+* with the GNU Classpath Exception which is
+* available at https://www.gnu.org/software/classpath/license.html.
+*
+* SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+********************************************************************************/
+package net.morcilab.uml2raml.m2t;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Logger;
+
+/*
+ * Cache of the facts of a model, stored in binary form in a file next to the
+ * model (model.uml.facts). The entry starts with the paths and the content
+ * hashes of the files the facts were read from (the model, its fragments and
+ * the profiles) and is used only when all of them match, otherwise the facts
+ * are read with ModelFactsReader and the entry rewritten
+ */
+public class ModelFactsCache {
+	private static Logger LOG = Logger.getGlobal();
+	public static final String CACHE_FILE_EXTENSION = ".facts";
+	private final ModelFactsReader reader;
+
+	public ModelFactsCache(ModelFactsReader reader) {
+		this.reader = reader;
+	}
+
+	public static File getCacheFile(File umlFile) {
+		return new File(umlFile.getPath()+CACHE_FILE_EXTENSION);
+	}
+
+	/*
+	 * Returns the facts of the model, from the cache if they are up to date
+	 */
+	public ModelFacts read(String umlFilename) throws IOException {
+		File umlFile = new File(umlFilename).getCanonicalFile();
+		File cacheFile = getCacheFile(umlFile);
+		ModelFacts facts = load(umlFile, cacheFile);
+		if(facts == null) {
+			facts = this.reader.read(umlFilename);
+			store(facts, cacheFile);
+		}
+		return facts;
+	}
+
+	/*
+	 * Loads the facts from the cache, returns null when there is no valid entry
+	 * for the current content of the files
+	 */
+	private ModelFacts load(File umlFile, File cacheFile) {
+		if(!cacheFile.isFile()) {
+			return null;
+		}
+		//read at once, decoding from a buffered file stream is much slower
+		try(DataInputStream inputStream = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(cacheFile.toPath())))) {
+			int fileCount = inputStream.readInt();
+			for(int i = 0; i < fileCount; i++) {
+				File file = new File(inputStream.readUTF());
+				byte[] contentHash = new byte[inputStream.readInt()];
+				inputStream.readFully(contentHash);
+				//the entry of a model copied with its cache file is not used
+				if(i == 0 && !file.equals(umlFile)) {
+					return null;
+				}
+				if(!file.isFile() || !Arrays.equals(contentHash, ResourceCache.hashContent(file))) {
+					return null;
+				}
+			}
+			ModelFacts facts = ModelFacts.read(inputStream);
+			LOG.info("Loaded the facts of "+umlFile+" from cache");
+			return facts;
+		} catch(IOException | RuntimeException e) {
+			LOG.warning("Facts cache of "+umlFile+" not readable: "+e.getMessage());
+			return null;
+		}
+	}
+
+	/*
+	 * Stores the facts, failures are logged and ignored
+	 */
+	private void store(ModelFacts facts, File cacheFile) {
+		try {
+			List<byte[]> contentHashes = new ArrayList<>();
+			for(String file : facts.getFiles()) {
+				contentHashes.add(ResourceCache.hashContent(new File(file)));
+			}
+			//write to a temporary file and move it, concurrent readers never see partial entries
+			Path tempFile = Files.createTempFile(cacheFile.getAbsoluteFile().getParentFile().toPath(), cacheFile.getName(), ".tmp");
+			try {
+				try(DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+					outputStream.writeInt(contentHashes.size());
+					for(int i = 0; i < contentHashes.size(); i++) {
+						outputStream.writeUTF(facts.getFiles().get(i));
+						outputStream.writeInt(contentHashes.get(i).length);
+						outputStream.write(contentHashes.get(i));
+					}
+					facts.write(outputStream);
+				}
+				Files.move(tempFile, cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			} finally {
+				Files.deleteIfExists(tempFile);
+			}
+		} catch(IOException | RuntimeException e) {
+			LOG.warning("Unable to cache the facts in "+cacheFile+": "+e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,1414 @@
+/********************************************************************************
+* Copyright (c) 2017 Davide Rossi
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 2.0 which is available at
+* http://www.eclipse.org/legal/epl-2.0.
+*
+* This Source Code may also be made available under the following Secondary
+* Licenses when the conditions for such availability set forth in the Eclipse
+* Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+* with the GNU Classpath Exception which is
+* available at https://www.gnu.org/software/classpath/license.html.
+*
+* SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+********************************************************************************/
+package net.morcilab.uml2raml.m2t;
+
+import static net.morcilab.uml2raml.m2t.ProfileNames.*;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import net.morcilab.uml2raml.m2t.ModelFacts.ElementFacts;
+import net.morcilab.uml2raml.m2t.ModelFacts.Kind;
+import net.morcilab.uml2raml.m2t.ModelFacts.LiteralValue;
+import net.morcilab.uml2raml.m2t.ModelFacts.StereotypeFacts;
+
+/*
+ * Reads the ModelFacts of a UML model streaming its XMI files with StAX,
+ * without creating the UML model. The containment tree is read from the
+ * main file and from its fragments (e.g. Papyrus controlled units), the
+ * files the types come from are read when they are referred to, and the
+ * stereotype applications are decoded with the Ecore definitions carried
+ * by the profiles. Profiles are read once per reader and reused until their
+ * files change. Models using what the reader does not handle (e.g. UML
+ * versions needing a migration or non-literal multiplicities) are rejected
+ * with an UnsupportedModelException, they can still be loaded with EMF
+ */
+public class ModelFactsReader {
+	private static Logger LOG = Logger.getGlobal();
+	private static final String UML_NS = "http://www.eclipse.org/uml2/5.0.0/UML";
+	private static final String UML2_NS_PREFIX = "http://www.eclipse.org/uml2/";
+	private static final String ECORE_NS = "http://www.eclipse.org/emf/2002/Ecore";
+	private static final String XSI_NS = "http://www.w3.org/2001/XMLSchema-instance";
+	private static final String UML_ANNOTATION_SOURCE = "http://www.eclipse.org/uml2/2.0.0/UML";
+	private static final String UML_TYPES_URI = "http://www.eclipse.org/uml2/5.0.0/Types#//";
+	private static final String ECORE_TYPES_URI = "http://www.eclipse.org/emf/2002/Ecore#//";
+	private static final String PRIMITIVE_TYPES_URI = "pathmap://UML_LIBRARIES/UMLPrimitiveTypes.library.uml";
+	private static final String PRIMITIVE_TYPES_NAME = "PrimitiveTypes";
+	private static final String METACLASS_ROLE_PREFIX = "base_";
+	private static final Object NO_PROFILE = new Object();
+	//the features whose elements are kept in the containment tree
+	private static final Set<String> TREE_FEATURES = new HashSet<>(Arrays.asList("packagedElement", "nestedClassifier"));
+	//the types of the elements written with no xmi:type, by feature
+	private static final Map<String, String> DEFAULT_TYPES = new HashMap<>();
+	//the owners of these elements are not namespaces, their names are not part of qualified names
+	private static final Set<String> NOT_NAMESPACES = new HashSet<>(Arrays.asList(
+			"Property", "Port", "ExtensionEnd", "Parameter", "EnumerationLiteral", "InstanceSpecification",
+			"Constraint", "Slot", "Comment", "Generalization", "Dependency", "Abstraction", "Realization",
+			"Usage", "Substitution", "Manifestation", "ComponentRealization", "InterfaceRealization", "Deployment"));
+	private static final Map<String, Kind> KINDS = new HashMap<>();
+
+	static {
+		DEFAULT_TYPES.put("ownedAttribute", "Property");
+		DEFAULT_TYPES.put("ownedEnd", "Property");
+		DEFAULT_TYPES.put("ownedOperation", "Operation");
+		DEFAULT_TYPES.put("ownedParameter", "Parameter");
+		DEFAULT_TYPES.put("generalization", "Generalization");
+		DEFAULT_TYPES.put("ownedComment", "Comment");
+		DEFAULT_TYPES.put("ownedLiteral", "EnumerationLiteral");
+		DEFAULT_TYPES.put("ownedRule", "Constraint");
+		DEFAULT_TYPES.put("packageImport", "PackageImport");
+		DEFAULT_TYPES.put("elementImport", "ElementImport");
+		DEFAULT_TYPES.put("profileApplication", "ProfileApplication");
+		DEFAULT_TYPES.put("interfaceRealization", "InterfaceRealization");
+		for(String type : new String[] { "Package", "Model", "Profile" }) {
+			KINDS.put(type, Kind.PACKAGE);
+		}
+		for(String type : new String[] { "Class", "Component", "AssociationClass", "Node", "Device", "ExecutionEnvironment", "Stereotype",
+				"Activity", "StateMachine", "ProtocolStateMachine", "Interaction", "OpaqueBehavior", "FunctionBehavior" }) {
+			KINDS.put(type, Kind.CLASS);
+		}
+		for(String type : new String[] { "DataType", "PrimitiveType", "Enumeration" }) {
+			KINDS.put(type, Kind.DATA_TYPE);
+		}
+		KINDS.put("Operation", Kind.OPERATION);
+		KINDS.put("Parameter", Kind.PARAMETER);
+		for(String type : new String[] { "Property", "Port", "ExtensionEnd" }) {
+			KINDS.put(type, Kind.PROPERTY);
+		}
+		for(String type : new String[] { "Dependency", "Abstraction", "Realization", "Usage", "Substitution", "Manifestation",
+				"ComponentRealization", "InterfaceRealization", "Deployment" }) {
+			KINDS.put(type, Kind.DEPENDENCY);
+		}
+		for(String type : new String[] { "Association", "Extension", "CommunicationPath" }) {
+			KINDS.put(type, Kind.ASSOCIATION);
+		}
+	}
+
+	/*
+	 * Thrown when the model uses something the reader does not handle
+	 */
+	public static class UnsupportedModelException extends Uml2RamlException {
+		private static final long serialVersionUID = -3020418873694785146L;
+
+		public UnsupportedModelException(String message) {
+			super(message);
+		}
+	}
+
+	/*
+	 * An element of the UML tree of a file, with the features the reader needs
+	 */
+	private static final class Node {
+		private final XmiFile file;
+		private String id;
+		private String type;
+		private String feature;
+		private String name;
+		private String qualifiedName;
+		private Node owner;
+		private List<Node> children = Collections.emptyList();
+		//the URI of a containment proxy
+		private String href;
+		private String typeRef;
+		private String associationRef;
+		private List<String> memberEnds = Collections.emptyList();
+		private List<String> clients = Collections.emptyList();
+		private List<String> suppliers = Collections.emptyList();
+		private List<String> generals = Collections.emptyList();
+		private String direction;
+		private String visibility;
+		private boolean unique = true;
+		private int lower = 1;
+		private int upper = 1;
+		private List<Application> applications = Collections.emptyList();
+
+		Node(XmiFile file) {
+			this.file = file;
+		}
+	}
+
+	/*
+	 * A stereotype application: the EClass (by namespace and name), the base
+	 * element and the values as they are written
+	 */
+	private static final class Application {
+		private final XmiFile file;
+		private final String namespace;
+		private final String eClassName;
+		private String baseRef;
+		private Map<String, String> attributes = new HashMap<>();
+		private Map<String, List<String>> elements = new HashMap<>();
+
+		Application(XmiFile file, String namespace, String eClassName) {
+			this.file = file;
+			this.namespace = namespace;
+			this.eClassName = eClassName;
+		}
+	}
+
+	/*
+	 * The EClass defined by a profile for a stereotype
+	 */
+	private static final class EClassDef {
+		private final XmiFile file;
+		private List<String> superTypes = new ArrayList<>();
+		private String stereotypeRef;
+		private List<FeatureDef> features = new ArrayList<>();
+
+		EClassDef(XmiFile file) {
+			this.file = file;
+		}
+	}
+
+	private static final class FeatureDef {
+		private final XmiFile file;
+		private String name;
+		private boolean attribute;
+		private boolean many;
+		private String typeRef;
+		private String defaultValueLiteral;
+
+		FeatureDef(XmiFile file) {
+			this.file = file;
+		}
+	}
+
+	/*
+	 * The literals of an EEnum, the names by literal in definition order
+	 */
+	private static final class EEnumDef {
+		private Map<String, String> names = new LinkedHashMap<>();
+	}
+
+	/*
+	 * What is read from an XMI file
+	 */
+	private static final class XmiFile {
+		private final File file;
+		private final long lastModified;
+		private final long length;
+		private Map<String, Node> nodes = new HashMap<>();
+		private List<Node> roots = new ArrayList<>();
+		private List<Application> applications = new ArrayList<>();
+		private Map<String, String> schemaLocations = new HashMap<>();
+		//EPackages (as maps of EClassDefs by name), EClassDefs and EEnumDefs by id
+		private Map<String, Object> ecore = new HashMap<>();
+		private List<Node> dependencies = new ArrayList<>();
+		private List<Node> associationEnds = new ArrayList<>();
+		private int elementCount;
+
+		XmiFile(File file) {
+			this.file = file;
+			this.lastModified = file.lastModified();
+			this.length = file.length();
+		}
+
+		boolean isProfile() {
+			return this.roots.size() > 0 && "Profile".equals(this.roots.get(0).type);
+		}
+
+		boolean isUpToDate() {
+			return this.file.lastModified() == this.lastModified && this.file.length() == this.length;
+		}
+	}
+
+	/*
+	 * The stereotype an EClass stands for, with the features of its applications
+	 */
+	private static final class StereotypeDef {
+		private String qualifiedName;
+		private String name;
+		private Set<String> closure;
+		private List<FeatureDef> features;
+	}
+
+	private final XMLInputFactory inputFactory;
+	private final Map<String, XmiFile> profiles = new ConcurrentHashMap<>();
+
+	public ModelFactsReader() {
+		this.inputFactory = XMLInputFactory.newInstance();
+		this.inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		this.inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+	}
+
+	/*
+	 * Reads the facts of the model in the file, the profiles read by previous
+	 * calls are reused if their files did not change
+	 */
+	public ModelFacts read(String umlFilename) throws IOException {
+		LOG.info("Reading model facts from "+umlFilename);
+		return new Reading().read(new File(umlFilename));
+	}
+
+	/*
+	 * The state of a read: the files read and the facts created
+	 */
+	private final class Reading {
+		private ModelFacts facts = new ModelFacts();
+		private Map<String, XmiFile> files = new LinkedHashMap<>();
+		//the EPackages of the profile namespaces of a file
+		private Map<XmiFile, Map<String, Object>> ePackages = new IdentityHashMap<>();
+		//the files the locations in a file refer to
+		private Map<XmiFile, Map<String, XmiFile>> locations = new IdentityHashMap<>();
+		private Map<Node, ElementFacts> elementFacts = new IdentityHashMap<>();
+		private Map<EClassDef, StereotypeDef> stereotypes = new IdentityHashMap<>();
+		private Map<String, Node> primitiveTypes = new HashMap<>();
+		private Node primitiveTypesLibrary;
+		private Set<Node> treeNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+		//the classifiers, dependencies and associations whose features were read
+		private Set<Node> completed = Collections.newSetFromMap(new IdentityHashMap<>());
+		private Deque<Node> pending = new ArrayDeque<>();
+		//the inverse references, for the files read when they were built
+		private int invertedFiles = -1;
+		private Map<Node, List<Node>> dependenciesByClient;
+		private Map<Node, List<Node>> associationEndsByType;
+
+		ModelFacts read(File file) throws IOException {
+			XmiFile mainFile = load(file);
+			if(mainFile.roots.isEmpty()) {
+				throw new UnsupportedModelException("No UML element in "+file);
+			}
+			Node rootNode = mainFile.roots.get(0);
+			ElementFacts root = createFacts(rootNode);
+			this.treeNodes.add(rootNode);
+			this.facts.setRoot(root);
+			List<Node> classifiers = new ArrayList<>();
+			buildTree(rootNode, root, classifiers);
+			//the stereotyped classifiers are read completely, with what they refer to
+			for(Node classifier : classifiers) {
+				if(!classifier.applications.isEmpty()) {
+					require(classifier);
+				}
+			}
+			while(!this.pending.isEmpty()) {
+				complete(this.pending.remove());
+			}
+			int elementCount = 0;
+			for(XmiFile xmiFile : this.files.values()) {
+				elementCount += xmiFile.elementCount;
+				this.facts.addFile(xmiFile.file.getPath());
+			}
+			this.facts.setElementCount(elementCount);
+			return this.facts;
+		}
+
+		/*
+		 * Returns the file, reading it if it was not read yet (profiles are shared by the reads)
+		 */
+		private XmiFile load(File file) throws IOException {
+			File canonicalFile = file.getCanonicalFile();
+			String key = canonicalFile.getPath();
+			XmiFile xmiFile = this.files.get(key);
+			if(xmiFile != null) {
+				return xmiFile;
+			}
+			xmiFile = ModelFactsReader.this.profiles.get(key);
+			if(xmiFile == null || !xmiFile.isUpToDate()) {
+				if(!canonicalFile.isFile()) {
+					throw new UnsupportedModelException("File "+file+" not found");
+				}
+				xmiFile = parse(canonicalFile);
+				if(xmiFile.isProfile()) {
+					ModelFactsReader.this.profiles.put(key, xmiFile);
+				}
+			}
+			this.files.put(key, xmiFile);
+			if(!xmiFile.isProfile()) {
+				//stereotypes are attached to the elements of the model files only
+				for(Application application : xmiFile.applications) {
+					if(application.baseRef != null) {
+						Node base = resolve(xmiFile, application.baseRef);
+						if(base.file != null && !base.file.isProfile()) {
+							if(base.applications.isEmpty()) {
+								base.applications = new ArrayList<>();
+							}
+							base.applications.add(application);
+						}
+					}
+				}
+			}
+			return xmiFile;
+		}
+
+		/*
+		 * Returns the file a location relative to a file refers to, reading it if needed
+		 */
+		private XmiFile load(XmiFile from, String location) throws IOException {
+			Map<String, XmiFile> locations = this.locations.computeIfAbsent(from, file -> new HashMap<>());
+			XmiFile xmiFile = locations.get(location);
+			if(xmiFile == null) {
+				xmiFile = load(getFile(from, location));
+				locations.put(location, xmiFile);
+			}
+			return xmiFile;
+		}
+
+		/*
+		 * Resolves a reference: a local id or a URI (the file is read if needed)
+		 */
+		private Node resolve(XmiFile from, String ref) throws IOException {
+			int hash = ref.indexOf('#');
+			if(hash < 0) {
+				return getNode(from, ref);
+			}
+			String location = ref.substring(0, hash);
+			String fragment = ref.substring(hash+1);
+			if(location.isEmpty()) {
+				return getNode(from, fragment);
+			}
+			if(location.equals(PRIMITIVE_TYPES_URI)) {
+				return getPrimitiveType(fragment);
+			}
+			return getNode(load(from, location), fragment);
+		}
+
+		private Node getNode(XmiFile file, String id) {
+			Node node = file.nodes.get(id);
+			if(node == null) {
+				throw new UnsupportedModelException("Element "+id+" not found in "+file.file);
+			}
+			return node;
+		}
+
+		/*
+		 * Returns the definition (EPackage, EClassDef or EEnumDef) a profile reference is to
+		 */
+		private Object resolveEcore(XmiFile from, String ref) throws IOException {
+			int hash = ref.indexOf('#');
+			XmiFile file = from;
+			String id = ref;
+			if(hash >= 0) {
+				String location = ref.substring(0, hash);
+				if(!location.isEmpty()) {
+					file = load(from, location);
+				}
+				id = ref.substring(hash+1);
+			}
+			Object definition = file.ecore.get(id);
+			if(definition == null) {
+				throw new UnsupportedModelException("Profile definition "+ref+" not found in "+file.file);
+			}
+			return definition;
+		}
+
+		/*
+		 * The types of the UML primitive types library
+		 */
+		private Node getPrimitiveType(String name) {
+			if(this.primitiveTypesLibrary == null) {
+				this.primitiveTypesLibrary = new Node(null);
+				this.primitiveTypesLibrary.type = "Model";
+				this.primitiveTypesLibrary.name = PRIMITIVE_TYPES_NAME;
+			}
+			Node primitiveType = this.primitiveTypes.get(name);
+			if(primitiveType == null) {
+				primitiveType = new Node(null);
+				primitiveType.id = name;
+				primitiveType.type = "PrimitiveType";
+				primitiveType.name = name;
+				primitiveType.owner = this.primitiveTypesLibrary;
+				this.primitiveTypes.put(name, primitiveType);
+			}
+			return primitiveType;
+		}
+
+		/*
+		 * Adds the packages and classifiers under the node to the tree, following the
+		 * containment proxies into the fragments; collects the classifiers
+		 */
+		private void buildTree(Node node, ElementFacts facts, List<Node> classifiers) throws IOException {
+			List<Node> children = node.children;
+			for(int i = 0; i < children.size(); i++) {
+				Node child = children.get(i);
+				if(!TREE_FEATURES.contains(child.feature)) {
+					continue;
+				}
+				if(child.href != null) {
+					Node element = resolve(child.file, child.href);
+					if(this.treeNodes.contains(element)) {
+						throw new UnsupportedModelException("Element "+child.href+" contained more than once");
+					}
+					element.owner = node;
+					element.feature = child.feature;
+					element.qualifiedName = null;
+					children.set(i, element);
+					child = element;
+				}
+				this.treeNodes.add(child);
+				ElementFacts childFacts = createFacts(child);
+				ModelFacts.setOwner(childFacts, facts);
+				this.facts.index(childFacts);
+				Kind kind = childFacts.getKind();
+				if(kind == Kind.CLASS || kind == Kind.DATA_TYPE) {
+					classifiers.add(child);
+				}
+				buildTree(child, childFacts, classifiers);
+			}
+		}
+
+		/*
+		 * Returns the facts of the element, creating them with the stereotypes of the element
+		 */
+		private ElementFacts getFacts(Node node) {
+			ElementFacts facts = this.elementFacts.get(node);
+			if(facts == null) {
+				facts = createFacts(node);
+			}
+			return facts;
+		}
+
+		private ElementFacts createFacts(Node node) {
+			Kind kind = KINDS.getOrDefault(node.type, Kind.OTHER);
+			ElementFacts facts = new ElementFacts(node.id, kind, node.name, getQualifiedName(node));
+			this.elementFacts.put(node, facts);
+			if(!node.applications.isEmpty()) {
+				List<StereotypeFacts> stereotypes = new ArrayList<>();
+				for(Application application : node.applications) {
+					StereotypeFacts stereotype = getStereotypeFacts(application);
+					if(stereotype != null) {
+						stereotypes.add(stereotype);
+					}
+				}
+				ModelFacts.setStereotypes(facts, stereotypes);
+			}
+			return facts;
+		}
+
+		/*
+		 * Queues a classifier to be read completely
+		 */
+		private void require(Node node) {
+			if(this.completed.add(node)) {
+				this.pending.add(node);
+			}
+		}
+
+		/*
+		 * Reads the attributes, the stereotyped operations, the generalizations,
+		 * the stereotyped dependencies and the associations of a classifier
+		 */
+		private void complete(Node node) throws IOException {
+			ElementFacts facts = getFacts(node);
+			List<ElementFacts> generals = new ArrayList<>();
+			for(Node child : node.children) {
+				if(child.href != null && !TREE_FEATURES.contains(child.feature)) {
+					throw new UnsupportedModelException("Features of "+facts.getQualifiedName()+" stored in other files");
+				}
+				if("ownedAttribute".equals(child.feature)) {
+					ModelFacts.setOwner(createTypedFacts(child), facts);
+				} else if("ownedOperation".equals(child.feature) && !child.applications.isEmpty()) {
+					ElementFacts operation = createFacts(child);
+					for(Node parameter : child.children) {
+						if("ownedParameter".equals(parameter.feature)) {
+							ElementFacts parameterFacts = createTypedFacts(parameter);
+							if(parameter.direction != null) {
+								ModelFacts.setDirection(parameterFacts, parameter.direction);
+							}
+							ModelFacts.setOwner(parameterFacts, operation);
+						}
+					}
+					ModelFacts.setOwner(operation, facts);
+				} else if("Generalization".equals(child.type)) {
+					for(String generalRef : child.generals) {
+						Node general = resolve(child.file, generalRef);
+						generals.add(getFacts(general));
+						requireClassifier(general);
+					}
+				}
+			}
+			if(!generals.isEmpty()) {
+				ModelFacts.setGenerals(facts, generals);
+			}
+			if(facts.getKind() == Kind.CLASS) {
+				invertReferences();
+				List<ElementFacts> dependencies = new ArrayList<>();
+				for(Node dependency : this.dependenciesByClient.getOrDefault(node, Collections.emptyList())) {
+					if(!dependency.applications.isEmpty()) {
+						dependencies.add(getDependencyFacts(dependency));
+					}
+				}
+				if(!dependencies.isEmpty()) {
+					ModelFacts.setClientDependencies(facts, dependencies);
+				}
+				Set<Node> associationNodes = new LinkedHashSet<>();
+				for(Node end : this.associationEndsByType.getOrDefault(node, Collections.emptyList())) {
+					associationNodes.add(resolve(end.file, end.associationRef));
+				}
+				if(!associationNodes.isEmpty()) {
+					List<ElementFacts> associations = new ArrayList<>();
+					for(Node association : associationNodes) {
+						associations.add(getAssociationFacts(association));
+					}
+					ModelFacts.setAssociations(facts, associations);
+				}
+			}
+		}
+
+		private void requireClassifier(Node node) {
+			Kind kind = KINDS.getOrDefault(node.type, Kind.OTHER);
+			if(kind == Kind.CLASS || kind == Kind.DATA_TYPE) {
+				require(node);
+			}
+		}
+
+		/*
+		 * Creates the facts of a property or of a parameter
+		 */
+		private ElementFacts createTypedFacts(Node node) throws IOException {
+			ElementFacts facts = createFacts(node);
+			if(node.typeRef != null) {
+				ModelFacts.setType(facts, getFacts(resolve(node.file, node.typeRef)));
+			}
+			ModelFacts.setMultiplicity(facts, node.lower, node.upper, node.unique);
+			ModelFacts.setInheritable(facts, !"private".equals(node.visibility));
+			return facts;
+		}
+
+		private ElementFacts getDependencyFacts(Node node) throws IOException {
+			ElementFacts facts = getFacts(node);
+			if(!this.completed.add(node)) {
+				return facts;
+			}
+			boolean resourcePath = facts.hasStereotype(RESTPROFILE_RESOURCEPATH_FQN);
+			List<ElementFacts> suppliers = new ArrayList<>();
+			for(String supplierRef : node.suppliers) {
+				Node supplier = resolve(node.file, supplierRef);
+				if(resourcePath) {
+					//linked resources are read as resources, their graphs come from their packages
+					if(!"Class".equals(supplier.type) || !this.treeNodes.contains(supplier)) {
+						throw new UnsupportedModelException("ResourcePath "+facts.getName()+" must link classes of the model");
+					}
+					require(supplier);
+				}
+				suppliers.add(getFacts(supplier));
+			}
+			ModelFacts.setSuppliers(facts, suppliers);
+			return facts;
+		}
+
+		private ElementFacts getAssociationFacts(Node node) throws IOException {
+			ElementFacts facts = getFacts(node);
+			if(this.completed.add(node)) {
+				Set<ElementFacts> endTypes = new LinkedHashSet<>();
+				for(String memberEndRef : node.memberEnds) {
+					Node memberEnd = resolve(node.file, memberEndRef);
+					if(memberEnd.typeRef != null) {
+						endTypes.add(getFacts(resolve(memberEnd.file, memberEnd.typeRef)));
+					}
+				}
+				ModelFacts.setEndTypes(facts, new ArrayList<>(endTypes));
+			}
+			return facts;
+		}
+
+		/*
+		 * Builds the client dependencies and the association ends of the elements
+		 * of the model files, in the order the files were read, when new files were read
+		 */
+		private void invertReferences() throws IOException {
+			if(this.invertedFiles == this.files.size()) {
+				return;
+			}
+			Map<Node, List<Node>> dependenciesByClient = new IdentityHashMap<>();
+			Map<Node, List<Node>> associationEndsByType = new IdentityHashMap<>();
+			for(XmiFile file : new ArrayList<>(this.files.values())) {
+				//the extensions of the profiles refer to the UML metamodel, not to the model
+				if(file.isProfile()) {
+					continue;
+				}
+				for(Node dependency : file.dependencies) {
+					for(String clientRef : dependency.clients) {
+						dependenciesByClient.computeIfAbsent(resolve(file, clientRef), client -> new ArrayList<>()).add(dependency);
+					}
+				}
+				for(Node end : file.associationEnds) {
+					if(end.typeRef != null) {
+						associationEndsByType.computeIfAbsent(resolve(file, end.typeRef), type -> new ArrayList<>()).add(end);
+					}
+				}
+			}
+			this.dependenciesByClient = dependenciesByClient;
+			this.associationEndsByType = associationEndsByType;
+			this.invertedFiles = this.files.size();
+		}
+
+		/*
+		 * Decodes a stereotype application, null for applications of stereotypes
+		 * of the UML standard profiles (the generation does not use them) and of
+		 * missing profiles
+		 */
+		private StereotypeFacts getStereotypeFacts(Application application) {
+			try {
+				Map<String, Object> ePackages = this.ePackages.computeIfAbsent(application.file, file -> new HashMap<>());
+				Object ePackage = ePackages.get(application.namespace);
+				if(ePackage == null) {
+					ePackage = getEPackage(application.file, application.namespace);
+					ePackages.put(application.namespace, ePackage);
+				}
+				if(ePackage == NO_PROFILE) {
+					return null;
+				}
+				Object eClass = ePackage instanceof Map ? ((Map<?, ?>)ePackage).get(application.eClassName) : null;
+				if(!(eClass instanceof EClassDef)) {
+					throw new UnsupportedModelException("Stereotype "+application.eClassName+" not found in "+application.namespace);
+				}
+				StereotypeDef stereotype = getStereotypeDef((EClassDef)eClass);
+				Map<String, Object> values = new HashMap<>();
+				for(FeatureDef feature : stereotype.features) {
+					if(!feature.attribute || feature.name.startsWith(METACLASS_ROLE_PREFIX)) {
+						continue;
+					}
+					List<String> items = application.elements.get(feature.name);
+					String attribute = application.attributes.get(feature.name);
+					if(feature.many) {
+						if(attribute != null) {
+							throw new UnsupportedModelException("Multi-valued property "+feature.name+" written as an attribute");
+						}
+						if(items == null || items.isEmpty()) {
+							continue;
+						}
+						List<Object> list = new ArrayList<>();
+						for(String item : items) {
+							list.add(item == null ? null : convert(feature, item));
+						}
+						values.put(feature.name, Collections.unmodifiableList(list));
+					} else {
+						if(attribute == null && items != null && !items.isEmpty()) {
+							attribute = items.get(items.size()-1);
+						}
+						if(attribute == null) {
+							continue;
+						}
+						Object value = convert(feature, attribute);
+						if(value == null || value.equals(getDefaultValue(feature))) {
+							continue;
+						}
+						values.put(feature.name, value);
+					}
+				}
+				return new StereotypeFacts(stereotype.qualifiedName, stereotype.name, stereotype.closure, values);
+			} catch(IOException e) {
+				throw new UnsupportedModelException("Profile of "+application.eClassName+" not readable: "+e.getMessage());
+			}
+		}
+
+		/*
+		 * Returns the EPackage of a profile namespace of a file, NO_PROFILE for the
+		 * standard profiles and, as with EMF, for the profiles that cannot be found
+		 */
+		private Object getEPackage(XmiFile file, String namespace) throws IOException {
+			String location = file.schemaLocations.get(namespace);
+			if(location == null) {
+				if(namespace.startsWith(UML2_NS_PREFIX)) {
+					return NO_PROFILE;
+				}
+				throw new UnsupportedModelException("No schema location for the profile "+namespace);
+			}
+			int hash = location.indexOf('#');
+			if(hash > 0 && !getFile(file, location.substring(0, hash)).isFile()) {
+				LOG.warning("Profile "+location+" not found");
+				return NO_PROFILE;
+			}
+			return resolveEcore(file, location);
+		}
+
+		private StereotypeDef getStereotypeDef(EClassDef eClass) throws IOException {
+			StereotypeDef stereotype = this.stereotypes.get(eClass);
+			if(stereotype == null) {
+				if(eClass.stereotypeRef == null) {
+					throw new UnsupportedModelException("Profile definition with no stereotype in "+eClass.file.file);
+				}
+				Node stereotypeNode = resolve(eClass.file, eClass.stereotypeRef);
+				stereotype = new StereotypeDef();
+				stereotype.qualifiedName = getQualifiedName(stereotypeNode);
+				stereotype.name = stereotypeNode.name;
+				//the stereotype and its generalizations, each visited once
+				Set<String> closure = new HashSet<>();
+				Set<Node> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+				Deque<Node> stack = new ArrayDeque<>();
+				stack.push(stereotypeNode);
+				while(!stack.isEmpty()) {
+					Node current = stack.pop();
+					if(visited.add(current)) {
+						closure.add(getQualifiedName(current));
+						for(Node child : current.children) {
+							if("Generalization".equals(child.type)) {
+								for(String generalRef : child.generals) {
+									Node general = resolve(child.file, generalRef);
+									if("Stereotype".equals(general.type)) {
+										stack.push(general);
+									}
+								}
+							}
+						}
+					}
+				}
+				stereotype.closure = Collections.unmodifiableSet(closure);
+				//the features of the supertypes first, as EClass.getEAllStructuralFeatures
+				List<FeatureDef> features = new ArrayList<>();
+				collectFeatures(eClass, features, Collections.newSetFromMap(new IdentityHashMap<>()));
+				stereotype.features = features;
+				this.stereotypes.put(eClass, stereotype);
+			}
+			return stereotype;
+		}
+
+		private void collectFeatures(EClassDef eClass, List<FeatureDef> features, Set<EClassDef> visited) throws IOException {
+			if(!visited.add(eClass)) {
+				return;
+			}
+			for(String superTypeRef : eClass.superTypes) {
+				Object superType = resolveEcore(eClass.file, superTypeRef);
+				if(!(superType instanceof EClassDef)) {
+					throw new UnsupportedModelException("Unsupported supertype "+superTypeRef);
+				}
+				collectFeatures((EClassDef)superType, features, visited);
+			}
+			features.addAll(eClass.features);
+		}
+
+		/*
+		 * Converts a value as EMF does for the type of the feature (enumeration
+		 * literals are converted to LiteralValues)
+		 */
+		private Object convert(FeatureDef feature, String value) throws IOException {
+			String typeRef = feature.typeRef;
+			if(typeRef == null) {
+				throw new UnsupportedModelException("Property "+feature.name+" has no type");
+			}
+			try {
+				if(typeRef.startsWith(UML_TYPES_URI) || typeRef.startsWith(ECORE_TYPES_URI)) {
+					switch(typeRef.substring(typeRef.lastIndexOf('/')+1)) {
+					case "String":
+					case "EString":
+						return value;
+					case "Integer":
+					case "EInt":
+						return Integer.valueOf(value);
+					case "UnlimitedNatural":
+						return "*".equals(value) ? -1 : Integer.valueOf(value);
+					case "Real":
+					case "EDouble":
+						return Double.valueOf(value);
+					case "Boolean":
+					case "EBoolean":
+						return Boolean.valueOf(value);
+					default:
+						throw new UnsupportedModelException("Unsupported type "+typeRef+" of property "+feature.name);
+					}
+				}
+			} catch(NumberFormatException e) {
+				throw new UnsupportedModelException("Invalid value "+value+" of property "+feature.name);
+			}
+			Object type = resolveEcore(feature.file, typeRef);
+			if(!(type instanceof EEnumDef)) {
+				throw new UnsupportedModelException("Unsupported type "+typeRef+" of property "+feature.name);
+			}
+			String name = ((EEnumDef)type).names.get(value);
+			if(name == null) {
+				throw new UnsupportedModelException("Invalid literal "+value+" of property "+feature.name);
+			}
+			return new LiteralValue(name);
+		}
+
+		private Object getDefaultValue(FeatureDef feature) throws IOException {
+			if(feature.defaultValueLiteral != null) {
+				return convert(feature, feature.defaultValueLiteral);
+			}
+			String typeRef = feature.typeRef;
+			switch(typeRef.substring(typeRef.lastIndexOf('/')+1)) {
+			case "Integer":
+			case "EInt":
+			case "UnlimitedNatural":
+				return 0;
+			case "Real":
+			case "EDouble":
+				return 0.0;
+			case "Boolean":
+			case "EBoolean":
+				return false;
+			}
+			if(typeRef.startsWith(UML_TYPES_URI) || typeRef.startsWith(ECORE_TYPES_URI)) {
+				return null;
+			}
+			//enumerations default to their first literal
+			Object type = resolveEcore(feature.file, typeRef);
+			if(type instanceof EEnumDef && !((EEnumDef)type).names.isEmpty()) {
+				return new LiteralValue(((EEnumDef)type).names.values().iterator().next());
+			}
+			return null;
+		}
+	}
+
+	/*
+	 * The qualified name of an element, as NamedElement.getQualifiedName
+	 */
+	private static String getQualifiedName(Node node) {
+		String qualifiedName = node.qualifiedName;
+		if(qualifiedName == null && node.name != null) {
+			Node namespace = node.owner;
+			if(namespace == null || NOT_NAMESPACES.contains(namespace.type)) {
+				qualifiedName = node.name;
+			} else {
+				String namespaceName = getQualifiedName(namespace);
+				if(namespaceName == null) {
+					return null;
+				}
+				qualifiedName = namespaceName+"::"+node.name;
+			}
+			node.qualifiedName = qualifiedName;
+		}
+		return qualifiedName;
+	}
+
+	/*
+	 * The file a URI relative to a file refers to
+	 */
+	private static File getFile(XmiFile from, String location) {
+		try {
+			URI uri = from.file.getParentFile().toURI().resolve(new URI(location));
+			if(!"file".equals(uri.getScheme())) {
+				throw new UnsupportedModelException("Unsupported reference to "+location);
+			}
+			return new File(uri);
+		} catch(URISyntaxException | IllegalArgumentException e) {
+			throw new UnsupportedModelException("Unsupported reference to "+location);
+		}
+	}
+
+	private XmiFile parse(File file) throws IOException {
+		XmiFile xmiFile = new XmiFile(file);
+		try(InputStream in = new BufferedInputStream(Files.newInputStream(file.toPath()), 1 << 16)) {
+			XMLStreamReader reader = this.inputFactory.createXMLStreamReader(in);
+			try {
+				reader.nextTag();
+				String namespace = reader.getNamespaceURI();
+				if(isXmiNamespace(namespace) && "XMI".equals(reader.getLocalName())) {
+					readSchemaLocations(reader, xmiFile);
+					while(nextChild(reader)) {
+						namespace = reader.getNamespaceURI();
+						if(UML_NS.equals(namespace)) {
+							xmiFile.roots.add(readElement(reader, xmiFile, null, null));
+						} else if(namespace == null || isXmiNamespace(namespace) || ECORE_NS.equals(namespace)) {
+							skip(reader);
+						} else {
+							checkNamespace(namespace);
+							readApplication(reader, xmiFile);
+						}
+					}
+				} else if(UML_NS.equals(namespace)) {
+					readSchemaLocations(reader, xmiFile);
+					xmiFile.roots.add(readElement(reader, xmiFile, null, null));
+				} else {
+					checkNamespace(namespace);
+					throw new UnsupportedModelException("Unsupported root element "+reader.getLocalName()+" in "+file);
+				}
+			} finally {
+				reader.close();
+			}
+		} catch(XMLStreamException e) {
+			throw new UnsupportedModelException("Unreadable XMI in "+file+": "+e.getMessage());
+		}
+		return xmiFile;
+	}
+
+	private static boolean isXmiNamespace(String namespace) {
+		return namespace != null && (namespace.startsWith("http://www.omg.org/spec/XMI/") || namespace.equals("http://www.omg.org/XMI"));
+	}
+
+	/*
+	 * Models of other UML versions are migrated by EMF when they are loaded
+	 */
+	private static void checkNamespace(String namespace) {
+		if(namespace != null && namespace.startsWith(UML2_NS_PREFIX) && namespace.endsWith("/UML")) {
+			throw new UnsupportedModelException("Unsupported UML version "+namespace);
+		}
+	}
+
+	private static void readSchemaLocations(XMLStreamReader reader, XmiFile xmiFile) {
+		String schemaLocation = reader.getAttributeValue(XSI_NS, "schemaLocation");
+		if(schemaLocation != null) {
+			String[] tokens = schemaLocation.trim().split("\\s+");
+			for(int i = 0; i+1 < tokens.length; i += 2) {
+				xmiFile.schemaLocations.put(tokens[i], tokens[i+1]);
+			}
+		}
+	}
+
+	/*
+	 * Moves to the next child element, returns false at the end of the current element
+	 */
+	private static boolean nextChild(XMLStreamReader reader) throws XMLStreamException {
+		while(reader.hasNext()) {
+			int event = reader.next();
+			if(event == XMLStreamConstants.START_ELEMENT) {
+				return true;
+			} else if(event == XMLStreamConstants.END_ELEMENT) {
+				return false;
+			}
+		}
+		return false;
+	}
+
+	/*
+	 * Skips the current element with its contents
+	 */
+	private static void skip(XMLStreamReader reader) throws XMLStreamException {
+		int depth = 1;
+		while(depth > 0) {
+			int event = reader.next();
+			if(event == XMLStreamConstants.START_ELEMENT) {
+				depth++;
+			} else if(event == XMLStreamConstants.END_ELEMENT) {
+				depth--;
+			}
+		}
+	}
+
+	/*
+	 * Returns the text of the current element, null if it has child elements
+	 * (which are skipped)
+	 */
+	private static String readText(XMLStreamReader reader) throws XMLStreamException {
+		StringBuilder text = new StringBuilder();
+		while(true) {
+			int event = reader.next();
+			if(event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA || event == XMLStreamConstants.SPACE) {
+				text.append(reader.getText());
+			} else if(event == XMLStreamConstants.START_ELEMENT) {
+				skip(reader);
+				skip(reader);
+				return null;
+			} else if(event == XMLStreamConstants.END_ELEMENT) {
+				return text.toString();
+			}
+		}
+	}
+
+	/*
+	 * Returns the local part of a qualified type (e.g. uml:Class) if its prefix
+	 * is bound to the namespace, null otherwise
+	 */
+	private static String getLocalType(XMLStreamReader reader, String type, String namespace) {
+		int colon = type.indexOf(':');
+		if(colon < 0) {
+			return null;
+		}
+		String typeNamespace = reader.getNamespaceContext().getNamespaceURI(type.substring(0, colon));
+		if(!namespace.equals(typeNamespace)) {
+			checkNamespace(typeNamespace);
+			return null;
+		}
+		return type.substring(colon+1);
+	}
+
+	private static List<String> addRefs(List<String> refs, String value) {
+		if(refs.isEmpty()) {
+			refs = new ArrayList<>(2);
+		}
+		for(String ref : value.trim().split("\\s+")) {
+			if(!ref.isEmpty()) {
+				refs.add(ref);
+			}
+		}
+		return refs;
+	}
+
+	/*
+	 * Reads a UML element, returns null for the elements that are not kept
+	 * (values written as elements and non-containment references)
+	 */
+	private Node readElement(XMLStreamReader reader, XmiFile file, Node owner, String feature) throws XMLStreamException {
+		Node node = new Node(file);
+		node.owner = owner;
+		node.feature = feature;
+		String xmiType = null;
+		for(int i = 0; i < reader.getAttributeCount(); i++) {
+			String namespace = reader.getAttributeNamespace(i);
+			String name = reader.getAttributeLocalName(i);
+			String value = reader.getAttributeValue(i);
+			if(namespace != null && !namespace.isEmpty()) {
+				if(isXmiNamespace(namespace)) {
+					if(name.equals("id")) {
+						node.id = value;
+					} else if(name.equals("type")) {
+						xmiType = value;
+					}
+				}
+				continue;
+			}
+			switch(name) {
+			case "name":
+				node.name = value;
+				break;
+			case "href":
+				node.href = value;
+				break;
+			case "type":
+				node.typeRef = value;
+				break;
+			case "association":
+				node.associationRef = value;
+				break;
+			case "memberEnd":
+				node.memberEnds = addRefs(node.memberEnds, value);
+				break;
+			case "client":
+				node.clients = addRefs(node.clients, value);
+				break;
+			case "supplier":
+				node.suppliers = addRefs(node.suppliers, value);
+				break;
+			case "general":
+				node.generals = addRefs(node.generals, value);
+				break;
+			case "direction":
+				node.direction = value;
+				break;
+			case "visibility":
+				node.visibility = value;
+				break;
+			case "isUnique":
+				node.unique = !"false".equals(value);
+				break;
+			}
+		}
+		if(owner == null) {
+			node.type = reader.getLocalName();
+		} else if(xmiType != null) {
+			node.type = getLocalType(reader, xmiType, UML_NS);
+			if(node.type == null) {
+				throw new UnsupportedModelException("Unsupported element type "+xmiType+" in "+file.file);
+			}
+		} else if(node.id != null) {
+			node.type = DEFAULT_TYPES.get(feature);
+			if(node.type == null) {
+				throw new UnsupportedModelException("Element "+node.id+" with no type in "+file.file);
+			}
+		}
+		if(node.href != null) {
+			skip(reader);
+			//only the containment proxies of the tree are followed
+			return TREE_FEATURES.contains(feature) ? node : null;
+		}
+		if(node.type == null) {
+			skip(reader);
+			return null;
+		}
+		file.elementCount++;
+		if(node.id != null) {
+			file.nodes.put(node.id, node);
+		}
+		while(nextChild(reader)) {
+			String namespace = reader.getNamespaceURI();
+			if(namespace != null && !namespace.isEmpty()) {
+				skip(reader);
+				continue;
+			}
+			String childFeature = reader.getLocalName();
+			switch(childFeature) {
+			case "eAnnotations":
+				if("Profile".equals(node.type)) {
+					readProfileAnnotation(reader, file);
+				} else {
+					skip(reader);
+				}
+				break;
+			case "lowerValue":
+				node.lower = readBound(reader, file);
+				break;
+			case "upperValue":
+				node.upper = readBound(reader, file);
+				break;
+			case "type":
+			case "association":
+			case "memberEnd":
+			case "client":
+			case "supplier":
+			case "general":
+				String href = reader.getAttributeValue(null, "href");
+				skip(reader);
+				if(href != null) {
+					switch(childFeature) {
+					case "type":
+						node.typeRef = href;
+						break;
+					case "association":
+						node.associationRef = href;
+						break;
+					case "memberEnd":
+						node.memberEnds = addRefs(node.memberEnds, href);
+						break;
+					case "client":
+						node.clients = addRefs(node.clients, href);
+						break;
+					case "supplier":
+						node.suppliers = addRefs(node.suppliers, href);
+						break;
+					default:
+						node.generals = addRefs(node.generals, href);
+					}
+				}
+				break;
+			default:
+				Node child = readElement(reader, file, node, childFeature);
+				if(child != null) {
+					if(node.children.isEmpty()) {
+						node.children = new ArrayList<>();
+					}
+					node.children.add(child);
+				}
+			}
+		}
+		if("ownedEnd".equals(feature) && node.associationRef == null) {
+			node.associationRef = owner.id;
+		}
+		Kind kind = KINDS.get(node.type);
+		if(kind == Kind.DEPENDENCY) {
+			file.dependencies.add(node);
+		} else if(kind == Kind.PROPERTY && node.associationRef != null) {
+			file.associationEnds.add(node);
+		}
+		return node;
+	}
+
+	/*
+	 * Reads a multiplicity bound, only literals are supported
+	 */
+	private static int readBound(XMLStreamReader reader, XmiFile file) throws XMLStreamException {
+		String type = reader.getAttributeValue(reader.getNamespaceContext().getNamespaceURI("xmi"), "type");
+		String value = reader.getAttributeValue(null, "value");
+		skip(reader);
+		try {
+			if("uml:LiteralInteger".equals(type)) {
+				return value == null ? 0 : Integer.parseInt(value);
+			} else if("uml:LiteralUnlimitedNatural".equals(type)) {
+				return value == null ? 0 : "*".equals(value) ? -1 : Integer.parseInt(value);
+			}
+		} catch(NumberFormatException e) {
+			//not supported below
+		}
+		throw new UnsupportedModelException("Unsupported multiplicity "+type+" "+value+" in "+file.file);
+	}
+
+	/*
+	 * Reads the EPackages a profile defines, from the annotation of the profile
+	 */
+	private void readProfileAnnotation(XMLStreamReader reader, XmiFile file) throws XMLStreamException {
+		if(!UML_ANNOTATION_SOURCE.equals(reader.getAttributeValue(null, "source"))) {
+			skip(reader);
+			return;
+		}
+		while(nextChild(reader)) {
+			if("contents".equals(reader.getLocalName()) && "EPackage".equals(getEcoreType(reader))) {
+				readEPackage(reader, file);
+			} else {
+				skip(reader);
+			}
+		}
+	}
+
+	private static String getEcoreType(XMLStreamReader reader) {
+		for(int i = 0; i < reader.getAttributeCount(); i++) {
+			if(isXmiNamespace(reader.getAttributeNamespace(i)) && reader.getAttributeLocalName(i).equals("type")) {
+				return getLocalType(reader, reader.getAttributeValue(i), ECORE_NS);
+			}
+		}
+		return null;
+	}
+
+	private static String getXmiId(XMLStreamReader reader) {
+		for(int i = 0; i < reader.getAttributeCount(); i++) {
+			if(isXmiNamespace(reader.getAttributeNamespace(i)) && reader.getAttributeLocalName(i).equals("id")) {
+				return reader.getAttributeValue(i);
+			}
+		}
+		return null;
+	}
+
+	private static void readEPackage(XMLStreamReader reader, XmiFile file) throws XMLStreamException {
+		String id = getXmiId(reader);
+		Map<String, EClassDef> eClasses = new HashMap<>();
+		while(nextChild(reader)) {
+			if("eClassifiers".equals(reader.getLocalName())) {
+				String type = getEcoreType(reader);
+				if("EClass".equals(type)) {
+					String eClassId = getXmiId(reader);
+					String name = reader.getAttributeValue(null, "name");
+					EClassDef eClass = readEClass(reader, file);
+					eClasses.put(name, eClass);
+					if(eClassId != null) {
+						file.ecore.put(eClassId, eClass);
+					}
+				} else if("EEnum".equals(type)) {
+					String eEnumId = getXmiId(reader);
+					EEnumDef eEnum = readEEnum(reader);
+					if(eEnumId != null) {
+						file.ecore.put(eEnumId, eEnum);
+					}
+				} else {
+					skip(reader);
+				}
+			} else {
+				skip(reader);
+			}
+		}
+		if(id != null) {
+			file.ecore.put(id, eClasses);
+		}
+	}
+
+	private static EClassDef readEClass(XMLStreamReader reader, XmiFile file) throws XMLStreamException {
+		EClassDef eClass = new EClassDef(file);
+		String superTypes = reader.getAttributeValue(null, "eSuperTypes");
+		if(superTypes != null) {
+			eClass.superTypes = addRefs(eClass.superTypes, superTypes);
+		}
+		while(nextChild(reader)) {
+			switch(reader.getLocalName()) {
+			case "eAnnotations":
+				//the annotation of the UML source refers to the stereotype
+				if(UML_ANNOTATION_SOURCE.equals(reader.getAttributeValue(null, "source"))) {
+					String references = reader.getAttributeValue(null, "references");
+					if(references != null && !references.trim().isEmpty()) {
+						eClass.stereotypeRef = references.trim().split("\\s+")[0];
+						skip(reader);
+					} else {
+						while(nextChild(reader)) {
+							String href = reader.getAttributeValue(null, "href");
+							if("references".equals(reader.getLocalName()) && href != null && eClass.stereotypeRef == null) {
+								eClass.stereotypeRef = href;
+							}
+							skip(reader);
+						}
+					}
+				} else {
+					skip(reader);
+				}
+				break;
+			case "eSuperTypes":
+				String href = reader.getAttributeValue(null, "href");
+				if(href != null) {
+					eClass.superTypes = addRefs(eClass.superTypes, href);
+				}
+				skip(reader);
+				break;
+			case "eStructuralFeatures":
+				eClass.features.add(readFeature(reader, file));
+				break;
+			default:
+				skip(reader);
+			}
+		}
+		return eClass;
+	}
+
+	private static FeatureDef readFeature(XMLStreamReader reader, XmiFile file) throws XMLStreamException {
+		FeatureDef feature = new FeatureDef(file);
+		feature.attribute = "EAttribute".equals(getEcoreType(reader));
+		feature.name = reader.getAttributeValue(null, "name");
+		String upperBound = reader.getAttributeValue(null, "upperBound");
+		feature.many = upperBound != null && (upperBound.equals("-1") || upperBound.equals("-2") || Integer.parseInt(upperBound) > 1);
+		feature.typeRef = reader.getAttributeValue(null, "eType");
+		feature.defaultValueLiteral = reader.getAttributeValue(null, "defaultValueLiteral");
+		while(nextChild(reader)) {
+			if("eType".equals(reader.getLocalName()) && reader.getAttributeValue(null, "href") != null) {
+				feature.typeRef = reader.getAttributeValue(null, "href");
+			}
+			skip(reader);
+		}
+		return feature;
+	}
+
+	private static EEnumDef readEEnum(XMLStreamReader reader) throws XMLStreamException {
+		EEnumDef eEnum = new EEnumDef();
+		while(nextChild(reader)) {
+			if("eLiterals".equals(reader.getLocalName())) {
+				String name = reader.getAttributeValue(null, "name");
+				String literal = reader.getAttributeValue(null, "literal");
+				eEnum.names.put(literal == null ? name : literal, name);
+			}
+			skip(reader);
+		}
+		return eEnum;
+	}
+
+	/*
+	 * Reads a stereotype application: the base element and the values, the values
+	 * of references and of contained objects are not read
+	 */
+	private static void readApplication(XMLStreamReader reader, XmiFile file) throws XMLStreamException {
+		Application application = new Application(file, reader.getNamespaceURI(), reader.getLocalName());
+		for(int i = 0; i < reader.getAttributeCount(); i++) {
+			String namespace = reader.getAttributeNamespace(i);
+			if(namespace != null && !namespace.isEmpty()) {
+				continue;
+			}
+			String name = reader.getAttributeLocalName(i);
+			if(name.startsWith(METACLASS_ROLE_PREFIX)) {
+				application.baseRef = reader.getAttributeValue(i);
+			} else {
+				application.attributes.put(name, reader.getAttributeValue(i));
+			}
+		}
+		while(nextChild(reader)) {
+			String name = reader.getLocalName();
+			String href = reader.getAttributeValue(null, "href");
+			if(name.startsWith(METACLASS_ROLE_PREFIX)) {
+				if(href != null) {
+					application.baseRef = href;
+				}
+				skip(reader);
+			} else if(href != null) {
+				skip(reader);
+			} else if("true".equals(reader.getAttributeValue(XSI_NS, "nil"))) {
+				skip(reader);
+				application.elements.computeIfAbsent(name, key -> new ArrayList<>()).add(null);
+			} else {
+				String text = readText(reader);
+				if(text != null) {
+					application.elements.computeIfAbsent(name, key -> new ArrayList<>()).add(text);
+				}
+			}
+		}
+		file.applications.add(application);
+	}
+}
@@ -0,0 +1,577 @@
+/********************************************************************************
+* Copyright (c) 2017 Davide Rossi
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 2.0 which is available at
+* http://www.eclipse.org/legal/epl-2.0.
+*
+* This Source Code may also be made available under the following Secondary
+* Licenses when the conditions for such availability set forth in the Eclipse
+* Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+* with the GNU Classpath Exception which is
+* available at https://www.gnu.org/software/classpath/license.html.
+*
+* SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+********************************************************************************/
+package net.morcilab.uml2raml.m2t;
+
+import static net.morcilab.uml2raml.m2t.ProfileNames.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import net.morcilab.uml2raml.m2t.GenerationReport.Counter;
+import net.morcilab.uml2raml.m2t.GenerationReport.Phase;
+import net.morcilab.uml2raml.raml.RamlMethod;
+import net.morcilab.uml2raml.raml.RamlModel;
+import net.morcilab.uml2raml.raml.RamlObjectType;
+import net.morcilab.uml2raml.raml.RamlResource;
+import net.morcilab.uml2raml.raml.RamlSimpleType;
+import net.morcilab.uml2raml.raml.RamlType;
+import net.morcilab.uml2raml.raml.RamlTypeDeclaration;
+
+/*
+ * The production of the RAML models from the API packages of a model, read
+ * through a ModelAccess. For the various element types (API, Resource,
+ * method, ...) a couple of methods are provided: process<Type> and
+ * setup<Type>. Process creates the elements in the RAML model and
+ * attaches them to the tree, setup<Type> fills the properties reading
+ * values from the UML model.
+ * The model is only read, the API packages and their types can be processed
+ * concurrently. The reuse<Type> and record<Type> hooks let a generation reuse
+ * what a previous one produced (see IncrementalState)
+ */
+class ModelProcessor<E> {
+	private static Logger LOG = Logger.getGlobal();
+	private static final Pattern URI_PARAMETER_PATTERN = Pattern.compile("\\{[^}]*\\}");
+	private final ModelAccess<E> model;
+	private final boolean arraysAsTypes;
+	private final GenerationReport report;
+
+	ModelProcessor(ModelAccess<E> model, boolean arraysAsTypes, GenerationReport report) {
+		this.model = model;
+		this.arraysAsTypes = arraysAsTypes;
+		this.report = report;
+	}
+
+	ModelAccess<E> getModel() {
+		return this.model;
+	}
+
+	/*
+	 * Processes the API packages with the given number of threads, returns
+	 * the RAML models by package name in the order of the packages
+	 */
+	Map<String, RamlModel> processApiPackages(List<E> apiPackages, int threads) {
+		Map<String, RamlModel> ramlModels = new LinkedHashMap<>();
+		if(threads > 1) {
+			ForkJoinPool pool = new ForkJoinPool(threads);
+			try {
+				//API packages and their types are processed by the same pool,
+				//the models are collected in the order of the packages
+				List<Future<RamlModel>> futures = new ArrayList<>();
+				for(E packageElement : apiPackages) {
+					futures.add(pool.submit(() -> processApiPackage(packageElement, pool)));
+				}
+				List<RamlModel> packageModels = Generate.getAll(futures);
+				for(int i = 0; i < apiPackages.size(); i++) {
+					putApi(ramlModels, this.model.getName(apiPackages.get(i)), packageModels.get(i));
+				}
+			} finally {
+				pool.shutdownNow();
+			}
+		} else {
+			for(E packageElement : apiPackages) {
+				putApi(ramlModels, this.model.getName(packageElement), processApiPackage(packageElement, null));
+			}
+		}
+		return ramlModels;
+	}
+
+	/*
+	 * The models are kept by package name, which must identify the API
+	 */
+	private static void putApi(Map<String, RamlModel> ramlModels, String apiName, RamlModel ramlModel) {
+		if(ramlModels.putIfAbsent(apiName, ramlModel) != null) {
+			throw new Uml2RamlException("More than one API package named "+apiName);
+		}
+	}
+
+	/*
+	 * Returns the RAML model produced by a previous generation for the
+	 * package if it can be reused, null otherwise
+	 */
+	protected RamlModel reuseApi(E packageElement) {
+		return null;
+	}
+
+	/*
+	 * Returns the copy for the model of a type produced by a previous generation
+	 * if it can be reused, null otherwise
+	 */
+	protected RamlType reuseType(String typeName, RamlModel ramlModel) {
+		return null;
+	}
+
+	/*
+	 * Records a type produced from the element (null if the type is not in the model)
+	 */
+	protected void recordType(E typeElement, RamlType ramlType) {
+	}
+
+	/*
+	 * Records the RAML model produced for a package, typeNames are the types it refers to directly
+	 */
+	protected void recordApi(E packageElement, List<String> typeNames, RamlModel ramlModel) {
+	}
+
+	/*
+	 * Processes an API package, the pool (null when running sequentially)
+	 * is used to materialize the referred types in parallel
+	 */
+	RamlModel processApiPackage(E packageElement, ForkJoinPool pool) {
+		RamlModel unchangedModel = reuseApi(packageElement);
+		if(unchangedModel != null) {
+			LOG.info("Reusing API package: "+this.model.getQualifiedName(packageElement));
+			return unchangedModel;
+		}
+		long start = System.nanoTime();
+		RamlModel ramlModel = processAPI(packageElement);
+		this.report.stop(Phase.RESOURCES, start);
+		List<String> typeNames = new ArrayList<>(ramlModel.getTypeNameSet());
+		//process referred ApiModels
+		start = System.nanoTime();
+		Object closureEvent = Generate.JFR_AVAILABLE ? JfrEvents.beginTypeClosure() : null;
+		computeTypesSetClosure(ramlModel);
+		if(closureEvent != null && JfrEvents.end(closureEvent)) {
+			JfrEvents.commitTypeClosure(closureEvent, this.model.getQualifiedName(packageElement), typeNames.size(), ramlModel.getTypeNameSet().size());
+		}
+		this.report.stop(Phase.CLOSURE, start);
+		List<RamlType> ramlTypes = new ArrayList<>();
+		Map<RamlType, E> newTypes = new LinkedHashMap<>();
+		for(String ramlTypeName : ramlModel.getTypeNameSet()) {
+			RamlType ramlType = reuseType(ramlTypeName, ramlModel);
+			if(ramlType == null) {
+				E element = this.model.getElementByQN(ramlTypeName);
+				if(element != null && this.model.isClass(element)) { //type is a class, must be an ApiModel
+					ramlType = new RamlObjectType(ramlTypeName, ramlModel);
+				} else { //type must be a Faceted DataType
+					ramlType = new RamlSimpleType(ramlTypeName, ramlModel);
+				}
+				if(element != null) {
+					ramlType.setSource(this.model.getId(element));
+				}
+				newTypes.put(ramlType, element);
+			}
+			ramlTypes.add(ramlType);
+		}
+		processRamlTypes(ramlTypes, pool);
+		//types are added to the model in the order of the sequential run
+		for(RamlType ramlType : ramlTypes) {
+			ramlModel.addType(ramlType);
+		}
+		for(Map.Entry<RamlType, E> newType : newTypes.entrySet()) {
+			recordType(newType.getValue(), newType.getKey());
+		}
+		recordApi(packageElement, typeNames, ramlModel);
+		return ramlModel;
+	}
+
+	RamlModel processAPI(E packageElement) {
+		LOG.info("Processing API package: "+this.model.getQualifiedName(packageElement));
+		Object event = Generate.JFR_AVAILABLE ? JfrEvents.beginApiPackage() : null;
+		Map<String, String> profilePropsMap = this.model.getStereotype(packageElement, RESTPROFILE_API_FQN).getStrings();
+		if(profilePropsMap.get(RAMLPROFILE_API_TITLE) == null) {
+			String packageName = this.model.getName(packageElement);
+			if(packageName == null || packageName.trim().equals("")) {
+				throw new Uml2RamlException("API package with no name and to title property set");
+			}
+			profilePropsMap.put(RAMLPROFILE_API_TITLE, packageName);
+		}
+		RamlModel ramlModel = new RamlModel(profilePropsMap.get(RAMLPROFILE_API_TITLE));
+		ramlModel.setSource(this.model.getId(packageElement));
+		setupAPI(ramlModel, profilePropsMap, this.model.getStereotype(packageElement, RAMLPROFILE_RAML_API_FQN));
+
+		//we loop for top-level resources, linked resources are processed recursively
+		//(the links are validated first, a cycle would make the recursion endless)
+		ResourceGraph<E> resourceGraph = this.model.getResourceGraph(packageElement);
+		resourceGraph.validate();
+		for(E resourceElement : resourceGraph.getToplevelResources()) {
+			processResource(ramlModel, null, resourceElement);
+		}
+		if(event != null && JfrEvents.end(event)) {
+			JfrEvents.commitApiPackage(event, this.model.getQualifiedName(packageElement), ramlModel.getAllResources().size(), ramlModel.getTypeNameSet().size());
+		}
+		return ramlModel;
+	}
+
+	static void setupAPI(RamlModel ramlModel, Map<String, String> resourcePropsMap, StereotypeProperties ramlApiValues) {
+		//RAML: title
+		ramlModel.setTitle(resourcePropsMap.get(RAMLPROFILE_API_TITLE));
+		//RAML: description?
+		ramlModel.setDescription(resourcePropsMap.get(RESTPROFILE_API_DESCRIPTION));
+		//RAML: version?
+		ramlModel.setVersion(resourcePropsMap.get(RAMLPROFILE_API_VERSION));
+		//RAML: baseUri?
+		ramlModel.setBaseUri(resourcePropsMap.get(RESTPROFILE_API_BASEURI));
+		//RAML: baseUriParameters?
+		ramlModel.setBaseUriParameters(resourcePropsMap.get(RAMLPROFILE_API_BASE_URI_PARAMETERS));
+		//RAML: protocols?
+		ramlModel.setProtocols(resourcePropsMap.get(RAMLPROFILE_API_PROTOCOLS));
+		//RAML: mediaType?
+		ramlModel.setMediaType(resourcePropsMap.get(RESTPROFILE_API_MEDIATYPE));
+		//RAML: documentation?
+		//only inclusion is supported
+		ramlModel.setDocumentation(resourcePropsMap.get(RAMLPROFILE_API_DOCUMENTATION));
+		//RAML: types?
+		//support only includes (i.e. array of strings)
+		ramlModel.setTypes(ramlApiValues.getStringList(RAMLPROFILE_API_TYPES));
+		//RAML: traits?
+		ramlModel.setTraits(ramlApiValues.getStringList(RAMLPROFILE_API_TRAITS));
+		//RAML: resourceTypes?
+		ramlModel.setResourceTypes(ramlApiValues.getStringList(RAMLPROFILE_API_RESOURCE_TYPES));
+		//RAML: annotationTypes?
+		//TODO: unsupported
+		//RAML: (<annotationName>)?
+		//TODO: unsupported
+		//RAML: securitySchemes?
+		ramlModel.setSecuritySchemes(resourcePropsMap.get(RAMLPROFILE_API_SECURITY_SCHEMES));
+		//RAML: securedBy?
+		ramlModel.setSecuredBy(resourcePropsMap.get(RAMLPROFILE_API_SECURED_BY));
+		//RAML: uses?
+		ramlModel.setUses(ramlApiValues.getStringList(RAMLPROFILE_API_USES));
+	}
+
+	private void processResource(RamlModel ramlModel, RamlResource parent, E resourceElement) {
+		LOG.info("Processing Resource class: "+this.model.getQualifiedName(resourceElement));
+		Object event = Generate.JFR_AVAILABLE ? JfrEvents.beginResource() : null;
+		//name (becomes RAML displayName?)
+		Map<String, String> resourcePropsMap = this.model.getStereotype(resourceElement, RESTPROFILE_RESOURCE_FQN).getStrings();
+		String resourceName = this.model.getTypeDeclaration(resourceElement).getName();
+		if(resourceName == null || resourceName.trim().equals("")) {
+			throw new IllegalArgumentException("One of the REST resources has no name");
+		}
+		resourcePropsMap.put(PROFILE_NAME, resourceName);
+		//path
+		String path = resourcePropsMap.get(RESTPROFILE_PATH);
+		if(path == null) {
+			path = this.model.isResource(resourceElement) ? getResourceGraph(resourceElement).getRelativePath(resourceElement) : "";
+			if(path == null || path.trim().equals("")) {
+				throw new IllegalArgumentException("Resource "+resourceName+" has no path");
+			}
+		}
+		resourcePropsMap.put(RESTPROFILE_PATH, path);
+		RamlResource ramlResource = new RamlResource(resourceName, ramlModel, parent);
+		ramlResource.setSource(this.model.getId(resourceElement));
+		setupResource(ramlResource, resourcePropsMap);
+		//setup URI parameters from profile
+		Matcher matcher = URI_PARAMETER_PATTERN.matcher(path);
+		while(matcher.find()) {
+			String uriParameter = matcher.group().replace("{", "").replace("}", "");
+			ramlResource.addUriParameter(uriParameter);
+		}
+
+		//search for REST operations and keep track of types
+		for(E operation : this.model.getOperations(resourceElement)) {
+			if(this.model.hasStereotype(operation, RESTPROFILE_METHOD_FQN)) {
+				processMethod(ramlResource, operation);
+			}
+		}
+
+		//look for explicit dependencies towards ApiModel classes and add them to model's types list
+		//that allows a ApiModel to be produced in the RAML model even in not explicitly referenced by parameters
+		for(E dependency : this.model.getClientDependencies(resourceElement)) {
+			if(this.model.isApiModel(dependency)) {
+				ramlModel.addTypeName(this.model.getQualifiedName(dependency));
+			}
+		}
+
+		//recursively process linked resources
+		Collection<E> linkedResources = getLinkedResources(resourceElement);
+		for(E linkedResource : linkedResources) {
+			processResource(ramlModel, ramlResource, linkedResource);
+		}
+		if(event != null && JfrEvents.end(event)) {
+			JfrEvents.commitResource(event, this.model.getQualifiedName(resourceElement), path, ramlResource.getMethods().size(), linkedResources.size());
+		}
+	}
+
+	static void setupResource(RamlResource ramlResource, Map<String, String> resourcePropsMap) {
+		ramlResource.setTypeName(resourcePropsMap.get(PROFILE_NAME));
+		ramlResource.setPath(resourcePropsMap.get(RESTPROFILE_PATH));
+		//RAML: description?
+		ramlResource.setDescription(resourcePropsMap.get(RESTPROFILE_RESOURCE_DESCRIPTION));
+		//RAML: is?
+		ramlResource.setIs(resourcePropsMap.get(RESTPROFILE_RESOURCE_IS));
+		//RAML: type
+		ramlResource.setType(resourcePropsMap.get(RESTPROFILE_RESOURCE_TYPE));
+		//RAML: securedBy
+		ramlResource.setSecuredBy(resourcePropsMap.get(RESTPROFILE_RESOURCE_SECURED_BY));
+		//RAML: uriParameters
+		//TODO: unsupported
+	}
+
+	/*
+	 * Returns the resources linked to a <<Resource>> class via <<ResourcePath>> dependency links
+	 */
+	private Collection<E> getLinkedResources(E resource) {
+		if(this.model.isResource(resource)) {
+			return getResourceGraph(resource).getLinkedResources(resource);
+		}
+		return new ArrayList<>();
+	}
+
+	private ResourceGraph<E> getResourceGraph(E resource) {
+		return this.model.getResourceGraph(this.model.getNearestPackage(resource));
+	}
+
+	private void processMethod(RamlResource resource, E operation) {
+		String operationName = this.model.getName(operation);
+		if(operationName == null || operationName.trim().equals("")) {
+			throw new RuntimeException("Operation "+this.model.getQualifiedName(operation)+" must have a name");
+		}
+		LOG.info("Processing Method operation: "+this.model.getQualifiedName(operation));
+		RamlMethod ramlMethod = new RamlMethod(operationName, RamlUmlUtils.getMethodEnum(this.model, operation), resource);
+		ramlMethod.setSource(this.model.getId(operation));
+		setupMethod(ramlMethod, operation);
+
+		//add ApiModel parameters to the model's types list
+		for(E parameter : this.model.getParameters(operation)) {
+			E type = this.model.getType(parameter);
+			if(this.model.isApiModel(type)) {
+				resource.getModel().addTypeName(this.model.getQualifiedName(type));
+			}
+		}
+	}
+
+	private void setupMethod(RamlMethod ramlMethod, E operation) {
+		//all the stereotype properties are read from a single snapshot of the application
+		StereotypeProperties methodValues = this.model.getStereotype(operation, RESTPROFILE_METHOD_FQN);
+		//set method name from applied stereotype
+		ramlMethod.setMethodName(methodValues.getName().toLowerCase());
+		//TODO: annotationName? headers? protocols? is? securedBy?
+		//RAML: description? - mapped to description stereotype property
+		String description = methodValues.getString(RAMLPROFILE_METHOD_DESCRIPTION);
+		if(description != null) {
+			ramlMethod.setDescription(description);
+		}
+		//RAML: displayName? - mapped to operation name
+		String displayName = this.model.getName(operation);
+		if(displayName != null) {
+			ramlMethod.setDisplayName(displayName);
+		}
+		//RAML: is?
+		ramlMethod.setIs(methodValues.getString(RAMLPROFILE_METHOD_IS));
+		//RAML: protocols?
+		ramlMethod.setProtocols(methodValues.getString(RAMLPROFILE_METHOD_PROTOCOLS));
+		//RAML: queryParameters?
+		ramlMethod.setQueryParameters(methodValues.getString(RAMLPROFILE_METHOD_QUERY_PARAMETERS));
+		List<E> parameters = this.model.getParameters(operation);
+		//RAML: body? - mapped to operation in and inout parameters
+		//retrieve all in/input parameters that are not query parameters
+		if(ramlMethod.hasRequestBody()) {
+			for(E parameter : parameters) {
+				if(isInput(parameter) && !this.model.hasStereotype(parameter, RESTPROFILE_QUERY_PARAMETER_FQN)) {
+					String mediaType = this.model.getStereotype(parameter, RESTPROFILE_HTTPREQUEST_FQN).getString(RESTPROFILE_REQUEST_MEDIATYPE);
+					if(mediaType == null) {
+						mediaType = "";
+					}
+					RamlTypeDeclaration bodyType = this.model.getTypeDeclaration(parameter);
+					//TODO ugly workaround for inline array type declarations in raml-to-jax-rs
+					if(this.arraysAsTypes && bodyType.isArray()) {
+						bodyType = createArrayTypeAndReturnReference(bodyType, ramlMethod.getModel());
+					}
+					ramlMethod.addRequestBodyType(mediaType, bodyType);
+				}
+			}
+		}
+		//RAML: queryParameters? - mapped to stereotyped in and inout parameters;
+		//the stereotype is not needed for methods that do not support a request body
+		for(E parameter : parameters) {
+			if(isInput(parameter) && (this.model.hasStereotype(parameter, RESTPROFILE_QUERY_PARAMETER_FQN) || !ramlMethod.hasRequestBody())) {
+				RamlTypeDeclaration parameterType = this.model.getTypeDeclaration(parameter);
+				StereotypeProperties queryParameterValues = this.model.getStereotype(parameter, RESTPROFILE_QUERY_PARAMETER_FQN);
+				String dfault = queryParameterValues.getString(RAMLPROFILE_QUERY_PARAMETER_DEFAULT);
+				String example = queryParameterValues.getString(RAMLPROFILE_QUERY_PARAMETER_EXAMPLE);
+				boolean hasDefault = dfault != null && !dfault.trim().equals("");
+				boolean hasExample = example != null && !example.trim().equals("");
+				if(hasDefault || hasExample) {
+					//the shared declaration of the type is copied to add the facets
+					parameterType = new RamlTypeDeclaration(parameterType);
+					if(hasDefault) {
+						parameterType.addFacet(RAMLPROFILE_QUERY_PARAMETER_DEFAULT, dfault);
+					}
+					if(hasExample) {
+						parameterType.addFacet(RAMLPROFILE_QUERY_PARAMETER_EXAMPLE, example);
+					}
+				}
+				ramlMethod.putQueryParameter(this.model.getName(parameter), parameterType);
+			}
+		}
+		//RAML: responses? - mapped to operation return, out and inout parameters
+		for(E parameter : parameters) {
+			String direction = this.model.getDirection(parameter);
+			if(direction.equals("return") || direction.equals("out") || direction.equals("inout")) {
+				StereotypeProperties responseValues = this.model.getStereotype(parameter, RESTPROFILE_HTTPRESPONSE_FQN);
+				Integer responseCode = responseValues.getInteger(RESTPROFILE_RESPONSE_CODE);
+				if(responseCode == null) {
+					responseCode = 200;
+				}
+				String mediaType = responseValues.getString(RESTPROFILE_RESPONSE_MEDIATYPE);
+				if(mediaType == null) {
+					mediaType = "";
+				}
+				RamlTypeDeclaration bodyType = this.model.getTypeDeclaration(parameter);
+				//TODO ugly workaround for inline array type declarations in raml-to-jax-rs
+				if(this.arraysAsTypes && bodyType.isArray()) {
+					bodyType = createArrayTypeAndReturnReference(bodyType, ramlMethod.getModel());
+				}
+				ramlMethod.putResponse(responseCode, bodyType, mediaType);
+			}
+		}
+	}
+
+	private boolean isInput(E parameter) {
+		String direction = this.model.getDirection(parameter);
+		return direction.equals("in") || direction.equals("inout");
+	}
+
+	static RamlTypeDeclaration createArrayTypeAndReturnReference(RamlTypeDeclaration bodyType, RamlModel ramlModel) {
+		//produce a new type with the declaration of the parameter
+		String arrayTypeName = bodyType.getName()+"Array";
+		RamlSimpleType arrayType = new RamlSimpleType(arrayTypeName, ramlModel);
+		arrayType.setTypeDeclaration(bodyType);
+		arrayType.setProcessed(true);
+		ramlModel.addType(arrayType);
+		//let the parameter reference the new type
+		bodyType = new RamlTypeDeclaration(arrayTypeName);
+		return bodyType;
+	}
+
+	void computeTypesSetClosure(RamlModel ramlModel) {
+		Set<String> typeNameSet = ramlModel.getTypeNameSet();
+		if(typeNameSet.size() == 0) {
+			return;
+		}
+		//retrieve all referenced types names
+		ramlModel.setTypeNameSet(this.model.getApiModelGraph().getClosure(typeNameSet));
+	}
+
+	/*
+	 * Fills in the types, each type is processed by its own task when a pool
+	 * is given: processRamlType only reads the (shared) model and writes
+	 * the type it is passed
+	 */
+	void processRamlTypes(List<RamlType> ramlTypes, ForkJoinPool pool) {
+		if(pool == null || ramlTypes.size() < 2) {
+			for(RamlType ramlType : ramlTypes) {
+				materializeRamlType(ramlType);
+			}
+		} else {
+			List<Future<RamlType>> futures = new ArrayList<>();
+			for(RamlType ramlType : ramlTypes) {
+				futures.add(pool.submit(() -> {
+					materializeRamlType(ramlType);
+					return ramlType;
+				}));
+			}
+			Generate.getAll(futures);
+		}
+	}
+
+	/*
+	 * Processes a type recording the time spent, types reused from a previous
+	 * generation are already processed and are not counted
+	 */
+	private void materializeRamlType(RamlType ramlType) {
+		if(ramlType.isProcessed()) {
+			return;
+		}
+		long start = System.nanoTime();
+		processRamlType(ramlType);
+		this.report.stop(Phase.TYPES, start);
+		this.report.increment(Counter.TYPES_MATERIALIZED);
+	}
+
+	/*
+	 * RamlObjectTypes are initialized by setting their name to the QN of the related APIModel classes.
+	 * processObjectType fills in all the details.
+	 */
+	private void processRamlType(RamlType ramlType) {
+		Object event = Generate.JFR_AVAILABLE ? JfrEvents.beginRamlType() : null;
+		String typeFQN = ramlType.getFQName();
+		if(ramlType instanceof RamlSimpleType) {
+			E dataType = this.model.getElementByQN(typeFQN);
+			List<E> properties = this.model.getAllAttributes(dataType);
+			if(properties.size() != 1) {
+				throw new Uml2RamlException("DataType "+typeFQN+" must contain only 1 property");
+			}
+			E property = properties.get(0);
+			String propertyRamlType = this.model.getRAMLType(property);
+			if(propertyRamlType == null) {
+				throw new Uml2RamlException("Property "+this.model.getName(property)+" of "+typeFQN+" must be a RamlType");
+			}
+			RamlTypeDeclaration propertyType = this.model.getTypeDeclaration(property);
+			Map<String, String> facets = RamlUmlUtils.getScalarFacets(propertyRamlType, stereotypeFQName -> this.model.getStereotype(dataType, stereotypeFQName));
+			if(!facets.isEmpty()) {
+				propertyType = new RamlTypeDeclaration(propertyType);
+				propertyType.addFacets(facets);
+				propertyType = this.model.intern(propertyType);
+			}
+			((RamlSimpleType)ramlType).setTypeDeclaration(propertyType);
+		} else {
+			RamlObjectType ramlObject = (RamlObjectType)ramlType;
+			E clazz = this.model.getClassByQN(typeFQN);
+			if(this.model.hasStereotype(clazz, APIMODELPROFILE_JSON_SCHEMA_MODEL_FQN)) {
+				String schema = this.model.getStereotype(clazz, APIMODELPROFILE_JSON_SCHEMA_MODEL_FQN).getString(RAMLPROFILE_MODEL_SCHEMA);
+				if(schema == null || schema.trim().equals("")) {
+					throw new Uml2RamlException("JsonModel "+typeFQN+" must set the stereotype property "+RAMLPROFILE_MODEL_SCHEMA);
+				}
+				ramlObject.setJSONSchema(schema);
+			} else if(this.model.hasStereotype(clazz, APIMODELPROFILE_XML_SCHEMA_MODEL_FQN)) {
+				String schema = this.model.getStereotype(clazz, APIMODELPROFILE_XML_SCHEMA_MODEL_FQN).getString(RAMLPROFILE_MODEL_SCHEMA);
+				if(schema == null || schema.trim().equals("")) {
+					throw new Uml2RamlException("XmlModel "+typeFQN+" must set the stereotype property "+RAMLPROFILE_MODEL_SCHEMA);
+				}
+				ramlObject.setXMLSchema(schema);
+			} else {
+				StereotypeProperties apiModelValues = this.model.getStereotype(clazz, APIMODELPROFILE_API_MODEL_FQN);
+				String dfault = apiModelValues.getString(RAMLPROFILE_API_MODEL_DEFAULT);
+				if(dfault != null && !dfault.trim().equals("")) {
+					ramlObject.setDefault(dfault);
+				}
+				String example = apiModelValues.getString(RAMLPROFILE_API_MODEL_EXAMPLE);
+				if(example != null && !example.trim().equals("")) {
+					ramlObject.setExample(example);
+				}
+				String examples = apiModelValues.getString(RAMLPROFILE_API_MODEL_EXAMPLES);
+				if(examples != null && !examples.trim().equals("")) {
+					ramlObject.setExamples(examples);
+				}
+				for(E property : this.model.getAllAttributes(clazz)) {
+					try {
+						RamlTypeDeclaration type = this.model.getTypeDeclaration(property);
+						boolean isOptional = this.model.getLower(property) == 0 && this.model.getUpper(property) == 1;
+						ramlObject.addProperty(this.model.getName(property), type, isOptional);
+					} catch(IllegalArgumentException e) {
+						//a reference to an invalid type, skip it
+						LOG.warning("Reference to invalid type while processing "+typeFQN+", skipping it");
+					}
+				}
+			}
+		}
+		ramlType.setProcessed(true);
+		if(event != null && JfrEvents.end(event)) {
+			JfrEvents.commitRamlType(event, typeFQN, ramlType instanceof RamlSimpleType ? "scalar" : "object");
+		}
+	}
+}
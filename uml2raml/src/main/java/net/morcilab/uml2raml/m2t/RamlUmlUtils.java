@@ -17,25 +17,19 @@ package net.morcilab.uml2raml.m2t;
 
 import static net.morcilab.uml2raml.m2t.ProfileNames.*;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.function.Function;
 
-import org.eclipse.emf.common.util.EList;
 import org.eclipse.uml2.uml.DataType;
-import org.eclipse.uml2.uml.Dependency;
 import org.eclipse.uml2.uml.Element;
-import org.eclipse.uml2.uml.EnumerationLiteral;
-import org.eclipse.uml2.uml.MultiplicityElement;
 import org.eclipse.uml2.uml.Operation;
 import org.eclipse.uml2.uml.Package;
 import org.eclipse.uml2.uml.Parameter;
-import org.eclipse.uml2.uml.Type;
 import org.eclipse.uml2.uml.TypedElement;
 
 import net.morcilab.uml2raml.raml.RamlTypeDeclaration;
@@ -45,6 +39,8 @@ import net.morcilab.uml2raml.raml.RamlMethodEnum;
  * Utility class with static RAML-aware UML helper methods
  */
 public class RamlUmlUtils {
+	//reads the elements of any UML model, memoizing through their index if they have one
+	private static final UmlModelAccess UML = new UmlModelAccess(null);
 
 	public static boolean hasBasicType(Element element) {
 		if(element instanceof TypedElement) {
@@ -77,16 +73,7 @@ public class RamlUmlUtils {
 	}
 	
 	public static String getRAMLType(Element element) {
-		if(element instanceof TypedElement) {
-			String typeQN = ((TypedElement)element).getType().getQualifiedName();
-			if(typeQN.startsWith(RAML_TYPE_PREFIX)) {
-				String typeName = typeQN.substring(RAML_TYPE_PREFIX.length());
-				return typeName;
-			} else {
-				return null;
-			}
-		}
-		return null;
+		return UML.getRAMLType(element);
 	}
 	
 	/*
@@ -95,13 +82,27 @@ public class RamlUmlUtils {
 	 * the ramlType of that element can be passed with ramlType
 	 */
 	public static Map<String, String> getScalarFacets(Element element, String ramlType) {
-		Map<String, String> facets = new HashMap<>();
 		if(ramlType == null) {
 			ramlType = getRAMLType(element);
 		}
+		return getScalarFacets(ramlType, stereotypeFQName -> UmlUtils.getStereotypeValues(element, stereotypeFQName));
+	}
+
+	/*
+	 * Returns the facets of a RAML type, reading the values of the faceted
+	 * stereotypes (by qualified name) with stereotypeValues
+	 * Facets are only read when the faceted stereotype itself is applied,
+	 * not one of its specializations
+	 */
+	static Map<String, String> getScalarFacets(String ramlType, Function<String, ? extends StereotypeProperties> stereotypeValues) {
+		Map<String, String> facets = new LinkedHashMap<>();
 		//add facets for stereotyped RamlTypes
-		if(isNumberRamlType(ramlType) && element.getAppliedStereotype(RAMLPROFILE_FACETED_NUMBER_FQN) != null) {
-			Double minimum = UmlUtils.getDoubleStereotypeProperty(element, RAMLPROFILE_FACETED_NUMBER_FQN, RAMLPROFILE_FACETED_NUMBER_MINIMUM);
+		if(isNumberRamlType(ramlType)) {
+			StereotypeProperties facetValues = stereotypeValues.apply(RAMLPROFILE_FACETED_NUMBER_FQN);
+			if(!RAMLPROFILE_FACETED_NUMBER_FQN.equals(facetValues.getQualifiedName())) {
+				return facets;
+			}
+			Double minimum = facetValues.getDouble(RAMLPROFILE_FACETED_NUMBER_MINIMUM);
 			if(minimum != null) {
 				String minimumString = minimum.toString();
 				if(isIntegerRamlType(ramlType)) {
@@ -112,7 +113,7 @@ public class RamlUmlUtils {
 				}
 				facets.put(RAMLPROFILE_FACETED_NUMBER_MINIMUM, minimumString);
 			}
-			Double maximum = UmlUtils.getDoubleStereotypeProperty(element, RAMLPROFILE_FACETED_NUMBER_FQN, RAMLPROFILE_FACETED_NUMBER_MAXIMUM);
+			Double maximum = facetValues.getDouble(RAMLPROFILE_FACETED_NUMBER_MAXIMUM);
 			if(maximum != null) {
 				String maximumString = maximum.toString();
 				if(isIntegerRamlType(ramlType)) {
@@ -123,11 +124,11 @@ public class RamlUmlUtils {
 				}
 				facets.put(RAMLPROFILE_FACETED_NUMBER_MAXIMUM, maximumString);
 			}
-			Object format = UmlUtils.getStereotypeProperty(element, RAMLPROFILE_FACETED_NUMBER_FQN, RAMLPROFILE_FACETED_NUMBER_FORMAT);
+			String format = facetValues.getEnumerationLiteralName(RAMLPROFILE_FACETED_NUMBER_FORMAT);
 			if(format != null) {
-				facets.put(RAMLPROFILE_FACETED_NUMBER_FORMAT, ((EnumerationLiteral)format).getName());
+				facets.put(RAMLPROFILE_FACETED_NUMBER_FORMAT, format);
 			}
-			Double multipleOf = UmlUtils.getDoubleStereotypeProperty(element, RAMLPROFILE_FACETED_NUMBER_FQN, RAMLPROFILE_FACETED_NUMBER_MULTIPLEOF);
+			Double multipleOf = facetValues.getDouble(RAMLPROFILE_FACETED_NUMBER_MULTIPLEOF);
 			if(multipleOf != null) {
 				String multipleOfString = multipleOf.toString();
 				if(isIntegerRamlType(ramlType)) {
@@ -138,33 +139,41 @@ public class RamlUmlUtils {
 				}
 				facets.put(RAMLPROFILE_FACETED_NUMBER_MULTIPLEOF, multipleOfString);
 			}
-		} else if(isStringRamlType(ramlType) && element.getAppliedStereotype(RAMLPROFILE_FACETED_STRING_FQN) != null) {
-			String pattern = UmlUtils.getStringStereotypeProperty(element, RAMLPROFILE_FACETED_STRING_FQN, RAMLPROFILE_FACETED_STRING_PATTERN);
+		} else if(isStringRamlType(ramlType)) {
+			StereotypeProperties facetValues = stereotypeValues.apply(RAMLPROFILE_FACETED_STRING_FQN);
+			if(!RAMLPROFILE_FACETED_STRING_FQN.equals(facetValues.getQualifiedName())) {
+				return facets;
+			}
+			String pattern = facetValues.getString(RAMLPROFILE_FACETED_STRING_PATTERN);
 			if(pattern != null) {
 				facets.put(RAMLPROFILE_FACETED_STRING_PATTERN, pattern);
 			}
-			Integer minLength = UmlUtils.getIntegerStereotypeProperty(element, RAMLPROFILE_FACETED_STRING_FQN, RAMLPROFILE_FACETED_STRING_MINLENGTH);
+			Integer minLength = facetValues.getInteger(RAMLPROFILE_FACETED_STRING_MINLENGTH);
 			if(minLength != null) {
 				facets.put(RAMLPROFILE_FACETED_STRING_MINLENGTH, minLength.toString());
 			}
-			Integer maxLength = UmlUtils.getIntegerStereotypeProperty(element, RAMLPROFILE_FACETED_STRING_FQN, RAMLPROFILE_FACETED_STRING_MAXLENGTH);
+			Integer maxLength = facetValues.getInteger(RAMLPROFILE_FACETED_STRING_MAXLENGTH);
 			if(maxLength != null) {
 				facets.put(RAMLPROFILE_FACETED_STRING_MAXLENGTH, maxLength.toString());
 			}
-			String enm = UmlUtils.getStringStereotypeProperty(element, RAMLPROFILE_FACETED_STRING_FQN, RAMLPROFILE_FACETED_STRING_ENUM);
+			String enm = facetValues.getString(RAMLPROFILE_FACETED_STRING_ENUM);
 			if(enm != null) {
 				facets.put(RAMLPROFILE_FACETED_STRING_ENUM, enm);
 			}
-		} else if(isFileRamlType(ramlType) && element.getAppliedStereotype(RAMLPROFILE_FACETED_FILE_FQN) != null) {
-			String fileTypes = UmlUtils.getStringStereotypeProperty(element, RAMLPROFILE_FACETED_FILE_FQN, RAMLPROFILE_FACETED_FILE_FILETYPES);
+		} else if(isFileRamlType(ramlType)) {
+			StereotypeProperties facetValues = stereotypeValues.apply(RAMLPROFILE_FACETED_FILE_FQN);
+			if(!RAMLPROFILE_FACETED_FILE_FQN.equals(facetValues.getQualifiedName())) {
+				return facets;
+			}
+			String fileTypes = facetValues.getString(RAMLPROFILE_FACETED_FILE_FILETYPES);
 			if(fileTypes != null) {
 				facets.put(RAMLPROFILE_FACETED_FILE_FILETYPES, fileTypes);
 			}
-			Integer minLength = UmlUtils.getIntegerStereotypeProperty(element, RAMLPROFILE_FACETED_FILE_FQN, RAMLPROFILE_FACETED_FILE_MINLENGTH);
+			Integer minLength = facetValues.getInteger(RAMLPROFILE_FACETED_FILE_MINLENGTH);
 			if(minLength != null) {
 				facets.put(RAMLPROFILE_FACETED_FILE_MINLENGTH, minLength.toString());
 			}
-			Integer maxLength = UmlUtils.getIntegerStereotypeProperty(element, RAMLPROFILE_FACETED_FILE_FQN, RAMLPROFILE_FACETED_FILE_MAXLENGTH);
+			Integer maxLength = facetValues.getInteger(RAMLPROFILE_FACETED_FILE_MAXLENGTH);
 			if(maxLength != null) {
 				facets.put(RAMLPROFILE_FACETED_FILE_MAXLENGTH, maxLength.toString());
 			}
@@ -172,45 +181,74 @@ public class RamlUmlUtils {
 		return facets;
 	}
 	
+	/*
+	 * Returns the faceted stereotype holding the facets of a RAML type, null
+	 * if the type has no facets
+	 */
+	public static String getFacetedStereotype(String ramlType) {
+		if(isNumberRamlType(ramlType)) {
+			return RAMLPROFILE_FACETED_NUMBER_FQN;
+		} else if(isStringRamlType(ramlType)) {
+			return RAMLPROFILE_FACETED_STRING_FQN;
+		} else if(isFileRamlType(ramlType)) {
+			return RAMLPROFILE_FACETED_FILE_FQN;
+		}
+		return null;
+	}
+
 	/*
 	 * Returns a RAML type declaration for the UML element properties and parameters
 	 * The typename for <<Resource>> elements is <elementname>Resource
+	 * The declaration is frozen: elements with the same type, multiplicity and
+	 * facets in an indexed model share it, it has to be copied to be modified
 	 */
-	//TODO: do we really need to call all resources <name>Resource?
 	public static RamlTypeDeclaration typeMapper(Element element) {
-		if(element instanceof TypedElement) {
-			Type type = ((TypedElement)element).getType();
-			String typeName = type.getName();
-			String typeQN = type.getQualifiedName();
+		UmlIndex index = UmlIndex.findIndex(element);
+		if(index != null) {
+			return index.getTypeDeclaration(element);
+		}
+		return createTypeDeclaration(element).freeze();
+	}
+
+	static RamlTypeDeclaration createTypeDeclaration(Element element) {
+		return createTypeDeclaration(UML, element);
+	}
+
+	/*
+	 * Creates the declaration of the type of a property or of a parameter, or the
+	 * one of a resource class, reading the element through the model access
+	 */
+	//TODO: do we really need to call all resources <name>Resource?
+	static <E> RamlTypeDeclaration createTypeDeclaration(ModelAccess<E> model, E element) {
+		if(model.isTypedElement(element)) {
+			E type = model.getType(element);
+			String typeName = model.getName(type);
+			String typeQN = model.getQualifiedName(type);
 			RamlTypeDeclaration typeDeclaration;
-			if(hasBasicType(element)) {
+			String ramlType = model.getRAMLType(element);
+			if(typeQN.startsWith(UML_TYPE_PREFIX)) {
 				if(typeQN.endsWith("::Real") || typeQN.endsWith("::UnlimitedNatural")) {
 					typeDeclaration = new RamlTypeDeclaration("number");
 				} else {
 					typeDeclaration = new RamlTypeDeclaration(typeName.toLowerCase());
 				}
-			} else if(getRAMLType(element) != null) { //not a basic type, check if it is a RAML type
-				String ramlType = getRAMLType(element);
+			} else if(ramlType != null) { //not a basic type, check if it is a RAML type
 				typeDeclaration = new RamlTypeDeclaration(ramlType);
 				//add facets
-				Map<String, String> facets = getScalarFacets(element, null);
-				typeDeclaration.addFacets(facets);
-			} else if(isApiModel(type)) {
+				typeDeclaration.addFacets(getScalarFacets(ramlType, stereotypeFQName -> model.getStereotype(element, stereotypeFQName)));
+			} else if(model.isApiModel(type)) {
 				//not a basic type, not a RAML type, this should be a <<ApiModel>> reference
 				typeDeclaration = new RamlTypeDeclaration(typeName);
 			} else {
 				throw new IllegalArgumentException("Illegal type "+typeQN+" - only basic UML types, RAMLTypes and <<ApiModel>> references are supported");
 			}
-			if(element instanceof MultiplicityElement) {
-				MultiplicityElement multiplicityElement = (MultiplicityElement)element;
-				if(multiplicityElement.isMultivalued()) {
-					typeDeclaration.makeItArray(multiplicityElement.getLower(), multiplicityElement.getUpper(), multiplicityElement.isUnique());
-				}
+			if(model.isMultivalued(element)) {
+				typeDeclaration.makeItArray(model.getLower(element), model.getUpper(element), model.isUnique(element));
 			}
 			return typeDeclaration;
-		} else if(element instanceof org.eclipse.uml2.uml.Class) {
-			String typeName = ((org.eclipse.uml2.uml.Class)element).getName();
-			if(RamlUmlUtils.isResource(element) && typeName != null) {
+		} else if(model.isClass(element)) {
+			String typeName = model.getName(element);
+			if(model.isResource(element) && typeName != null) {
 				return new RamlTypeDeclaration(typeName+"Resource");
 			} else {
 				return new RamlTypeDeclaration(typeName);
@@ -225,11 +263,8 @@ public class RamlUmlUtils {
 	 */
 	//TODO: should we support optional parameters somehow?
 	public static RamlTypeDeclaration parameterTypeMapper(Parameter parameter) {
-		RamlTypeDeclaration typeDeclaration = RamlUmlUtils.typeMapper(parameter);
-		if(parameter.isMultivalued()) { //it is an array
-			typeDeclaration.makeItArray(parameter.getLower(), parameter.getUpper(), parameter.isUnique());
-		}
-		return typeDeclaration;
+		//parameters are multiplicity elements, typeMapper already declares multivalued ones as arrays
+		return RamlUmlUtils.typeMapper(parameter);
 	}
 
 	/*
@@ -238,27 +273,22 @@ public class RamlUmlUtils {
 	 */
 	public static Collection<org.eclipse.uml2.uml.Class> getLinkedResources(org.eclipse.uml2.uml.Class resource) {
 		if(RamlUmlUtils.isResource(resource)) {
-			return resource.getClientDependencies().stream()
-						.filter(dependency -> 
-							UmlUtils.getStereotypeOrSubstereotype(dependency, RESTPROFILE_RESOURCEPATH_FQN) != null
-						).map(dependency -> 
-							dependency.getTargets()
-						).flatMap(targets -> 
-							targets.stream()
-						).map(org.eclipse.uml2.uml.Class.class::cast)
-						.collect(Collectors.toCollection(HashSet::new)
-					);
+			return toClasses(ResourceGraph.of(resource.getNearestPackage()).getLinkedResources(resource));
 		} else {
 			return new LinkedList<>();
 		}
 	}
 
 	public static List<org.eclipse.uml2.uml.Class> getToplevelResources(Package thePackage) {
-		return UmlUtils.findElements(thePackage, org.eclipse.uml2.uml.Class.class, RESTPROFILE_RESOURCE_FQN).stream()
-				.map(org.eclipse.uml2.uml.Class.class::cast)
-				.filter(clazz -> 
-					RamlUmlUtils.isTopLevelResource(clazz)
-				).collect(Collectors.toList());
+		return toClasses(ResourceGraph.of(thePackage).getToplevelResources());
+	}
+
+	private static List<org.eclipse.uml2.uml.Class> toClasses(Collection<Element> resources) {
+		List<org.eclipse.uml2.uml.Class> classes = new ArrayList<>();
+		for(Element resource : resources) {
+			classes.add((org.eclipse.uml2.uml.Class)resource);
+		}
+		return classes;
 	}
 
 	/*
@@ -266,22 +296,7 @@ public class RamlUmlUtils {
 	 */
 	public static boolean isTopLevelResource(org.eclipse.uml2.uml.Class resource) {
 		if(RamlUmlUtils.isResource(resource)) {
-			Package thePackage = resource.getNearestPackage(); 
-			List<org.eclipse.uml2.uml.Class> resourceList = UmlUtils.findElements(thePackage, org.eclipse.uml2.uml.Class.class, RESTPROFILE_RESOURCE_FQN);
-			for(Iterator<org.eclipse.uml2.uml.Class> iterator = resourceList.iterator(); iterator.hasNext(); ) {
-				Element element = iterator.next();
-				if(RamlUmlUtils.isResource(element) && element != resource) {
-					org.eclipse.uml2.uml.Class clazz = (org.eclipse.uml2.uml.Class)element;
-					EList<Dependency> dependencies = clazz.getClientDependencies();
-					for(Iterator<Dependency> dependenciesIterator = dependencies.iterator(); dependenciesIterator.hasNext(); ) {
-						Dependency dependency = dependenciesIterator.next();
-						if(UmlUtils.getStereotypeOrSubstereotype(dependency, RESTPROFILE_RESOURCEPATH_FQN) != null && dependency.getTargets().contains(resource)) {
-							return false;
-						}
-					}
-				}
-			}
-			return true;
+			return ResourceGraph.of(resource.getNearestPackage()).isTopLevelResource(resource);
 		}
 		return false;
 	}
@@ -289,61 +304,39 @@ public class RamlUmlUtils {
 	/*
 	 * Returns the path for a given <<Resource>> class. If the resource has the stereotype
 	 * path properties set, that is returned. Otherwise a path of <<ResourcePath>> dependency
-	 * links is returned
+	 * links is returned. Paths come from the package path table, computed once
 	 */
 	public static String getPath(org.eclipse.uml2.uml.Class resource, boolean relative) {
 		if(RamlUmlUtils.isResource(resource)) {
-			String path = UmlUtils.getStringStereotypeProperty(resource, RESTPROFILE_RESOURCE_FQN, RESTPROFILE_PATH);
-			if(path != null) {
-				return path;
+			ResourceGraph<Element> graph = ResourceGraph.of(resource.getNearestPackage());
+			if(relative) {
+				return graph.getRelativePath(resource);
 			} else {
-				//retrieve the containing package
-				//for all resources in the package look if resource is in their client dependencies
-				Package thePackage = resource.getNearestPackage(); 
-				EList<Element> packageElements = thePackage.allOwnedElements();
-				for(Element element : packageElements) {
-					if(RamlUmlUtils.isResource(element)) {
-						org.eclipse.uml2.uml.Class clazz = (org.eclipse.uml2.uml.Class)element;
-						EList<Dependency> dependencies = clazz.getClientDependencies();
-						for(Dependency dependency : dependencies) {
-							if(UmlUtils.getStereotypeOrSubstereotype(dependency, RESTPROFILE_RESOURCEPATH_FQN) != null && dependency.getTargets().contains(resource)) {
-								String dependencyPath = UmlUtils.getStringStereotypeProperty(dependency, RESTPROFILE_RESOURCEPATH_FQN, RESTPROFILE_PATH);
-								if(dependencyPath == null) {
-									dependencyPath = dependency.getName();
-								}
-								if(dependencyPath == null || dependencyPath.trim().equals("")) {
-									throw new Uml2RamlException("ResourcePath links must have name or profile attribute path set");
-								}
-								if(relative) {
-									path = (dependencyPath.startsWith("/") ? "" : "/")+dependencyPath;
-								} else {
-									path += getPath(clazz, false)+(dependencyPath.startsWith("/") ? "" : "/")+dependencyPath;
-								}
-							}
-						}
-					}
-				}
-				return path;
+				return graph.getAbsolutePath(resource);
 			}
 		}
 		return "";
 	}
 
 	static RamlMethodEnum getMethodEnumFromOperation(Operation operation) {
+		return getMethodEnum(UML, operation);
+	}
+
+	static <E> RamlMethodEnum getMethodEnum(ModelAccess<E> model, E operation) {
 		RamlMethodEnum methodEnum;
-		if(UmlUtils.getStereotypeOrSubstereotype(operation, RESTPROFILE_DELETE_METHOD_FQN) != null) {
+		if(model.hasStereotype(operation, RESTPROFILE_DELETE_METHOD_FQN)) {
 			methodEnum = RamlMethodEnum.DELETE;
-		} else if(UmlUtils.getStereotypeOrSubstereotype(operation, RESTPROFILE_GET_METHOD_FQN) != null) {
+		} else if(model.hasStereotype(operation, RESTPROFILE_GET_METHOD_FQN)) {
 			methodEnum = RamlMethodEnum.GET;
-		} else if(UmlUtils.getStereotypeOrSubstereotype(operation, RESTPROFILE_HEAD_METHOD_FQN) != null) {
+		} else if(model.hasStereotype(operation, RESTPROFILE_HEAD_METHOD_FQN)) {
 			methodEnum = RamlMethodEnum.HEAD;
-		} else if(UmlUtils.getStereotypeOrSubstereotype(operation, RESTPROFILE_OPTIONS_METHOD_FQN) != null) {
+		} else if(model.hasStereotype(operation, RESTPROFILE_OPTIONS_METHOD_FQN)) {
 			methodEnum = RamlMethodEnum.OPTIONS;
-		} else if(UmlUtils.getStereotypeOrSubstereotype(operation, RESTPROFILE_PATCH_METHOD_FQN) != null) {
+		} else if(model.hasStereotype(operation, RESTPROFILE_PATCH_METHOD_FQN)) {
 			methodEnum = RamlMethodEnum.PATCH;
-		} else if(UmlUtils.getStereotypeOrSubstereotype(operation, RESTPROFILE_POST_METHOD_FQN) != null) {
+		} else if(model.hasStereotype(operation, RESTPROFILE_POST_METHOD_FQN)) {
 			methodEnum = RamlMethodEnum.POST;
-		} else if(UmlUtils.getStereotypeOrSubstereotype(operation, RESTPROFILE_PUT_METHOD_FQN) != null) {
+		} else if(model.hasStereotype(operation, RESTPROFILE_PUT_METHOD_FQN)) {
 			methodEnum = RamlMethodEnum.PUT;
 		} else {
 			throw new RuntimeException("Operation stereotype must reference a concrete method");
@@ -353,20 +346,11 @@ public class RamlUmlUtils {
 	}
 
 	public static boolean isResource(Element element) {
-		if(element instanceof org.eclipse.uml2.uml.Class && UmlUtils.getStereotypeOrSubstereotype(element, RESTPROFILE_RESOURCE_FQN) != null) {
-			return true;
-		} else {
-			return false;
-		}
+		return UML.isResource(element);
 	}
 
 	public static boolean isApiModel(Element element) {
-		if(element instanceof org.eclipse.uml2.uml.Class && UmlUtils.getStereotypeOrSubstereotype(element, APIMODELPROFILE_API_MODEL_FQN) != null) {
-			return true;
-		} else if(element instanceof DataType && UmlUtils.getStereotypeOrSubstereotype(element, APIMODELPROFILE_FACETED_SCALAR_FQN) != null) {
-			return true;
-		}
-		return false;
+		return UML.isApiModel(element);
 	}
 
 	public static boolean isApiModelObject(Element element) {
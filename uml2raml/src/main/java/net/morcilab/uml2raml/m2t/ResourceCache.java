@@ -0,0 +1,162 @@
+/********************************************************************************
+* Copyright (c) 2017 Davide Rossi
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 2.0 which is available at
+* http://www.eclipse.org/legal/epl-2.0.
+*
+* This Source Code may also be made available under the following Secondary
+* Licenses when the conditions for such availability set forth in the Eclipse
+* Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+* with the GNU Classpath Exception which is
+* available at https://www.gnu.org/software/classpath/license.html.
+*
+* SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+********************************************************************************/
+package net.morcilab.uml2raml.m2t;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.xmi.XMLResource;
+
+/*
+ * On-disk cache of parsed UML resources, stored in the EMF binary resource format.
+ * Each resource is cached in a file named after the hash of the path of its source
+ * file; the entry starts with the hash of the source content and is used only when
+ * that matches, otherwise the resource is parsed from XMI and the entry rewritten
+ */
+public class ResourceCache {
+	private static Logger LOG = Logger.getGlobal();
+	private static final String CACHE_FILE_EXTENSION = ".bin";
+	private File cacheDirectory;
+
+	public ResourceCache(File cacheDirectory) {
+		this.cacheDirectory = cacheDirectory;
+	}
+
+	public File getCacheDirectory() {
+		return this.cacheDirectory;
+	}
+
+	/*
+	 * Only file resources can be cached
+	 */
+	public static boolean isCacheable(Resource resource) {
+		return resource instanceof XMLResource && resource.getURI().isFile();
+	}
+
+	/*
+	 * Loads the resource from the cache, returns false (leaving the resource
+	 * unloaded) when there is no valid entry for the current content
+	 */
+	public boolean load(Resource resource) {
+		if(!isCacheable(resource)) {
+			return false;
+		}
+		File sourceFile = new File(resource.getURI().toFileString());
+		File cacheFile = getCacheFile(sourceFile);
+		if(!sourceFile.isFile() || !cacheFile.isFile()) {
+			return false;
+		}
+		try(DataInputStream inputStream = new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFile.toPath())))) {
+			byte[] contentHash = new byte[inputStream.readInt()];
+			inputStream.readFully(contentHash);
+			if(!Arrays.equals(contentHash, hashContent(sourceFile))) {
+				return false;
+			}
+			resource.load(inputStream, getOptions());
+			LOG.info("Loaded "+sourceFile+" from cache");
+			return true;
+		} catch(IOException | RuntimeException e) {
+			LOG.warning("Cache entry for "+sourceFile+" not readable: "+e.getMessage());
+			resource.unload();
+			return false;
+		}
+	}
+
+	/*
+	 * Stores a loaded resource, failures are logged and ignored
+	 */
+	public void store(Resource resource) {
+		if(!isCacheable(resource) || !resource.isLoaded()) {
+			return;
+		}
+		File sourceFile = new File(resource.getURI().toFileString());
+		File cacheFile = getCacheFile(sourceFile);
+		try {
+			byte[] contentHash = hashContent(sourceFile);
+			Files.createDirectories(this.cacheDirectory.toPath());
+			//write to a temporary file and move it, concurrent readers never see partial entries
+			Path tempFile = Files.createTempFile(this.cacheDirectory.toPath(), cacheFile.getName(), ".tmp");
+			try {
+				try(DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+					outputStream.writeInt(contentHash.length);
+					outputStream.write(contentHash);
+					resource.save(outputStream, getOptions());
+				}
+				Files.move(tempFile, cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			} finally {
+				Files.deleteIfExists(tempFile);
+			}
+		} catch(IOException | RuntimeException e) {
+			LOG.warning("Unable to cache "+sourceFile+": "+e.getMessage());
+		}
+	}
+
+	File getCacheFile(File sourceFile) {
+		String path = sourceFile.getAbsolutePath();
+		return new File(this.cacheDirectory, toHex(digest().digest(path.getBytes(StandardCharsets.UTF_8)))+CACHE_FILE_EXTENSION);
+	}
+
+	private static Map<Object, Object> getOptions() {
+		Map<Object, Object> options = new HashMap<>();
+		options.put(XMLResource.OPTION_BINARY, Boolean.TRUE);
+		return options;
+	}
+
+	static byte[] hashContent(File file) throws IOException {
+		MessageDigest digest = digest();
+		byte[] buffer = new byte[8192];
+		try(InputStream inputStream = Files.newInputStream(file.toPath())) {
+			int read;
+			while((read = inputStream.read(buffer)) != -1) {
+				digest.update(buffer, 0, read);
+			}
+		}
+		return digest.digest();
+	}
+
+	private static MessageDigest digest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch(NoSuchAlgorithmException e) {
+			throw new Uml2RamlException(e);
+		}
+	}
+
+	private static String toHex(byte[] bytes) {
+		StringBuilder builder = new StringBuilder();
+		for(byte b : bytes) {
+			builder.append(String.format("%02x", b));
+		}
+		return builder.toString();
+	}
+}
@@ -0,0 +1,318 @@
+/********************************************************************************
+* Copyright (c) 2017 Davide Rossi
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 2.0 which is available at
+* http://www.eclipse.org/legal/epl-2.0.
+*
+* This Source Code may also be made available under the following Secondary
+* Licenses when the conditions for such availability set forth in the Eclipse
+* Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+* with the GNU Classpath Exception which is
+* available at https://www.gnu.org/software/classpath/license.html.
+*
+* SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+********************************************************************************/
+package net.morcilab.uml2raml.m2t;
+
+import static net.morcilab.uml2raml.m2t.ProfileNames.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+import org.eclipse.uml2.uml.Element;
+import org.eclipse.uml2.uml.Package;
+
+/*
+ * The <<ResourcePath>> links between the <<Resource>> classes of a package.
+ * The graph is built with a single pass on the package elements and keeps,
+ * for each resource, both the outgoing links (linked resources) and the
+ * incoming ones, so that top-level detection and path computation do not
+ * need to scan the package again. Elements are read through the model
+ * access, the graph is the same for the UML model and for its facts
+ */
+public class ResourceGraph<E> {
+	private static Logger LOG = Logger.getGlobal();
+
+	/*
+	 * A <<ResourcePath>> dependency from a source resource
+	 */
+	public static class ResourceLink<E> {
+		private E source;
+		private E dependency;
+
+		public ResourceLink(E source, E dependency) {
+			this.source = source;
+			this.dependency = dependency;
+		}
+
+		public E getSource() {
+			return this.source;
+		}
+
+		public E getDependency() {
+			return this.dependency;
+		}
+	}
+
+	private ModelAccess<E> model;
+	private E thePackage;
+	private List<E> resources = new ArrayList<>();
+	private List<E> allResources = new ArrayList<>();
+	private Map<E, Set<E>> linkedResources = new HashMap<>();
+	private Map<E, List<ResourceLink<E>>> incomingLinks = new HashMap<>();
+	private Map<E, String> relativePaths;
+	private Map<E, String> absolutePaths;
+	private Set<E> cyclicResources;
+	private int elementCount;
+
+	public ResourceGraph(ModelAccess<E> model, E thePackage) {
+		this.model = model;
+		this.thePackage = thePackage;
+		for(E element : model.getAllOwnedElements(thePackage)) {
+			this.elementCount++;
+			if(model.isResource(element)) {
+				this.allResources.add(element);
+				if(model.getOwner(element) == thePackage) {
+					this.resources.add(element);
+				}
+				Set<E> targets = new LinkedHashSet<>();
+				for(E dependency : model.getClientDependencies(element)) {
+					if(model.hasStereotype(dependency, RESTPROFILE_RESOURCEPATH_FQN)) {
+						for(E target : model.getSuppliers(dependency)) {
+							targets.add(target);
+							List<ResourceLink<E>> links = this.incomingLinks.get(target);
+							if(links == null) {
+								links = new ArrayList<>();
+								this.incomingLinks.put(target, links);
+							}
+							links.add(new ResourceLink<>(element, dependency));
+						}
+					}
+				}
+				this.linkedResources.put(element, targets);
+			}
+		}
+	}
+
+	/*
+	 * Returns the graph for the package, memoized by the model index if there is one
+	 */
+	public static ResourceGraph<Element> of(Package thePackage) {
+		UmlIndex index = UmlIndex.findIndex(thePackage);
+		if(index != null) {
+			return index.getResourceGraph(thePackage);
+		}
+		return new ResourceGraph<>(new UmlModelAccess(null), thePackage);
+	}
+
+	public E getPackage() {
+		return this.thePackage;
+	}
+
+	/*
+	 * Returns the number of elements of the package visited to build the graph
+	 */
+	public int getElementCount() {
+		return this.elementCount;
+	}
+
+	/*
+	 * Returns the <<Resource>> classes directly owned by the package
+	 */
+	public List<E> getResources() {
+		return this.resources;
+	}
+
+	public List<E> getToplevelResources() {
+		List<E> toplevelResources = new ArrayList<>();
+		for(E resource : this.resources) {
+			if(isTopLevelResource(resource)) {
+				toplevelResources.add(resource);
+			}
+		}
+		return toplevelResources;
+	}
+
+	/*
+	 * A resource is top-level when it has no incoming links from the other
+	 * resources directly owned by the package
+	 */
+	public boolean isTopLevelResource(E resource) {
+		for(ResourceLink<E> link : getIncomingLinks(resource)) {
+			if(link.getSource() != resource && this.model.getOwner(link.getSource()) == this.thePackage) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public Collection<E> getLinkedResources(E resource) {
+		Set<E> targets = this.linkedResources.get(resource);
+		if(targets == null) {
+			return Collections.emptySet();
+		}
+		return targets;
+	}
+
+	/*
+	 * Returns the incoming links in model order (the order of the package elements)
+	 */
+	public List<ResourceLink<E>> getIncomingLinks(E resource) {
+		List<ResourceLink<E>> links = this.incomingLinks.get(resource);
+		if(links == null) {
+			return Collections.emptyList();
+		}
+		return links;
+	}
+
+	/*
+	 * Returns the path of the resource relative to the resource linking it:
+	 * the stereotype path if set, otherwise the path of its (last) incoming
+	 * <<ResourcePath>> link. Null for resources with neither
+	 */
+	public String getRelativePath(E resource) {
+		computePaths();
+		return this.relativePaths.get(resource);
+	}
+
+	/*
+	 * Returns the full path of the resource, made of the paths of the
+	 * <<ResourcePath>> links from its top-level resource. Null for the
+	 * resources linked through a cycle, that have no top-level resource
+	 */
+	public String getAbsolutePath(E resource) {
+		computePaths();
+		return this.absolutePaths.get(resource);
+	}
+
+	/*
+	 * Checks that the <<ResourcePath>> links reachable from the top-level
+	 * resources, the ones followed when the API is generated, are acyclic and
+	 * well formed. Cycles between resources that are never reached are ignored
+	 */
+	public void validate() {
+		computePaths();
+		if(this.cyclicResources.isEmpty()) {
+			return;
+		}
+		Set<E> reachable = new LinkedHashSet<>();
+		Queue<E> queue = new LinkedList<>(getToplevelResources());
+		while(!queue.isEmpty()) {
+			E resource = queue.remove();
+			if(reachable.add(resource)) {
+				queue.addAll(getLinkedResources(resource));
+			}
+		}
+		Set<E> cycle = sortTopologically(reachable, new LinkedHashMap<>(), new LinkedHashMap<>());
+		if(!cycle.isEmpty()) {
+			throw new Uml2RamlException("Cyclic ResourcePath links between resources: "+getQualifiedNames(cycle));
+		}
+	}
+
+	/*
+	 * Computes the path table once, visiting the resources in topological order
+	 * so that the path of a resource is always computed after the ones of the
+	 * resources linking it. The resources left out by a cycle only get their
+	 * relative path
+	 */
+	private synchronized void computePaths() {
+		if(this.relativePaths != null) {
+			return;
+		}
+		Set<E> nodes = new LinkedHashSet<>(this.allResources);
+		for(E resource : this.allResources) {
+			nodes.addAll(getLinkedResources(resource));
+		}
+		Map<E, String> relativePaths = new LinkedHashMap<>();
+		Map<E, String> absolutePaths = new LinkedHashMap<>();
+		Set<E> cyclicResources = sortTopologically(nodes, relativePaths, absolutePaths);
+		if(!cyclicResources.isEmpty()) {
+			LOG.warning("Cyclic ResourcePath links between resources: "+getQualifiedNames(cyclicResources));
+			for(E resource : cyclicResources) {
+				String relativePath = this.model.getStereotype(resource, RESTPROFILE_RESOURCE_FQN).getString(RESTPROFILE_PATH);
+				if(relativePath == null) {
+					for(ResourceLink<E> link : getIncomingLinks(resource)) {
+						relativePath = getLinkPath(link.getDependency());
+					}
+				}
+				relativePaths.put(resource, relativePath);
+			}
+		}
+		this.relativePaths = relativePaths;
+		this.absolutePaths = absolutePaths;
+		this.cyclicResources = cyclicResources;
+	}
+
+	/*
+	 * Visits the given resources in topological order of the links between them,
+	 * filling the path tables; returns the resources that could not be visited
+	 * (on a cycle or linked from one)
+	 */
+	private Set<E> sortTopologically(Set<E> nodes, Map<E, String> relativePaths, Map<E, String> absolutePaths) {
+		Map<E, Integer> pendingLinks = new HashMap<>();
+		Queue<E> queue = new LinkedList<>();
+		for(E node : nodes) {
+			int incoming = (int)getIncomingLinks(node).stream().filter(link -> nodes.contains(link.getSource())).count();
+			pendingLinks.put(node, incoming);
+			if(incoming == 0) {
+				queue.add(node);
+			}
+		}
+		while(!queue.isEmpty()) {
+			E resource = queue.remove();
+			String relativePath = this.model.getStereotype(resource, RESTPROFILE_RESOURCE_FQN).getString(RESTPROFILE_PATH);
+			String absolutePath = relativePath;
+			if(relativePath == null) {
+				for(ResourceLink<E> link : getIncomingLinks(resource)) {
+					relativePath = getLinkPath(link.getDependency());
+					String parentPath = absolutePaths.get(link.getSource());
+					absolutePath = (parentPath == null ? "" : parentPath)+relativePath;
+				}
+			}
+			relativePaths.put(resource, relativePath);
+			absolutePaths.put(resource, absolutePath);
+			for(E target : getLinkedResources(resource)) {
+				if(!nodes.contains(target)) {
+					continue;
+				}
+				int pending = pendingLinks.get(target)-(int)getIncomingLinks(target).stream().filter(link -> link.getSource() == resource).count();
+				pendingLinks.put(target, pending);
+				if(pending == 0) {
+					queue.add(target);
+				}
+			}
+		}
+		Set<E> unvisited = new LinkedHashSet<>(nodes);
+		unvisited.removeAll(relativePaths.keySet());
+		return unvisited;
+	}
+
+	private String getQualifiedNames(Collection<E> resources) {
+		return resources.stream()
+				.map(this.model::getQualifiedName)
+				.collect(Collectors.joining(", "));
+	}
+
+	private String getLinkPath(E dependency) {
+		String dependencyPath = this.model.getStereotype(dependency, RESTPROFILE_RESOURCEPATH_FQN).getString(RESTPROFILE_PATH);
+		if(dependencyPath == null) {
+			dependencyPath = this.model.getName(dependency);
+		}
+		if(dependencyPath == null || dependencyPath.trim().equals("")) {
+			throw new Uml2RamlException("ResourcePath links must have name or profile attribute path set");
+		}
+		return (dependencyPath.startsWith("/") ? "" : "/")+dependencyPath;
+	}
+}
@@ -0,0 +1,56 @@
+/********************************************************************************
+* Copyright (c) 2017 Davide Rossi
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 2.0 which is available at
+* http://www.eclipse.org/legal/epl-2.0.
+*
+* This Source Code may also be made available under the following Secondary
+* Licenses when the conditions for such availability set forth in the Eclipse
+* Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+* with the GNU Classpath Exception which is
+* available at https://www.gnu.org/software/classpath/license.html.
+*
+* SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+********************************************************************************/
+package net.morcilab.uml2raml.m2t;
+
+import java.util.List;
+import java.util.Map;
+
+/*
+ * The values of the properties of an applied stereotype, as the generation
+ * reads them. Values are read from the UML model (StereotypeValues) or from
+ * the facts streamed from the model files (ModelFacts.StereotypeFacts)
+ */
+public interface StereotypeProperties {
+	public boolean isApplied();
+
+	/*
+	 * Returns the qualified name of the applied stereotype, null if it is not applied
+	 */
+	public String getQualifiedName();
+
+	/*
+	 * Returns the name of the applied stereotype, null if it is not applied
+	 */
+	public String getName();
+
+	public String getString(String propertyName);
+
+	public Integer getInteger(String propertyName);
+
+	public Double getDouble(String propertyName);
+
+	public String getEnumerationLiteralName(String propertyName);
+
+	/*
+	 * Returns the string items of a multi-valued property, null if there are none
+	 */
+	public List<String> getStringList(String propertyName);
+
+	/*
+	 * Returns all the string-valued properties
+	 */
+	public Map<String, String> getStrings();
+}
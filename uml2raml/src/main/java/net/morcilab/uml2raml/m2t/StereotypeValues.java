@@ -0,0 +1,177 @@
+/********************************************************************************
+* Copyright (c) 2017 Davide Rossi
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 2.0 which is available at
+* http://www.eclipse.org/legal/epl-2.0.
+*
+* This Source Code may also be made available under the following Secondary
+* Licenses when the conditions for such availability set forth in the Eclipse
+* Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+* with the GNU Classpath Exception which is
+* available at https://www.gnu.org/software/classpath/license.html.
+*
+* SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+********************************************************************************/
+package net.morcilab.uml2raml.m2t;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.eclipse.emf.ecore.EAnnotation;
+import org.eclipse.emf.ecore.EClassifier;
+import org.eclipse.emf.ecore.EEnum;
+import org.eclipse.emf.ecore.EEnumLiteral;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.uml2.uml.Element;
+import org.eclipse.uml2.uml.Enumeration;
+import org.eclipse.uml2.uml.EnumerationLiteral;
+import org.eclipse.uml2.uml.Extension;
+import org.eclipse.uml2.uml.Stereotype;
+
+/*
+ * Immutable snapshot of the values of a stereotype application.
+ * All the features of the application are read with a single sweep and
+ * only the ones that have a value (in the Element.hasValue sense) are kept;
+ * values are converted as Element.getValue does (enumeration literals are
+ * returned as UML EnumerationLiterals)
+ */
+public final class StereotypeValues implements StereotypeProperties {
+	public static final StereotypeValues NOT_APPLIED = new StereotypeValues(null, Collections.emptyMap());
+	private static final String UML_ANNOTATION_SOURCE = "http://www.eclipse.org/uml2/2.0.0/UML";
+	private final Stereotype stereotype;
+	private final Map<String, Object> values;
+
+	private StereotypeValues(Stereotype stereotype, Map<String, Object> values) {
+		this.stereotype = stereotype;
+		this.values = values;
+	}
+
+	public static StereotypeValues read(Element element, Stereotype stereotype) {
+		if(stereotype == null) {
+			return NOT_APPLIED;
+		}
+		EObject application = element.getStereotypeApplication(stereotype);
+		if(application == null) {
+			return NOT_APPLIED;
+		}
+		Map<String, Object> values = new HashMap<>();
+		for(EStructuralFeature feature : application.eClass().getEAllStructuralFeatures()) {
+			if(feature.getName().startsWith(Extension.METACLASS_ROLE_PREFIX)) {
+				continue;
+			}
+			Object value = application.eGet(feature);
+			if(feature.isMany()) {
+				if(((List<?>)value).isEmpty()) {
+					continue;
+				}
+			} else if(value == null || Objects.equals(value, feature.getDefaultValue())) {
+				continue;
+			}
+			values.put(feature.getName(), convert(feature.getEType(), value));
+		}
+		return new StereotypeValues(stereotype, values);
+	}
+
+	private static Object convert(EClassifier type, Object value) {
+		if(type instanceof EEnum && value instanceof EEnumLiteral) {
+			EAnnotation annotation = type.getEAnnotation(UML_ANNOTATION_SOURCE);
+			if(annotation != null && annotation.getReferences().size() > 0 && annotation.getReferences().get(0) instanceof Enumeration) {
+				return ((Enumeration)annotation.getReferences().get(0)).getOwnedLiteral(((EEnumLiteral)value).getName());
+			}
+		}
+		return value;
+	}
+
+	/*
+	 * The applied stereotype, null if it is not applied
+	 */
+	public Stereotype getStereotype() {
+		return this.stereotype;
+	}
+
+	@Override
+	public String getQualifiedName() {
+		return this.stereotype == null ? null : this.stereotype.getQualifiedName();
+	}
+
+	@Override
+	public String getName() {
+		return this.stereotype == null ? null : this.stereotype.getName();
+	}
+
+	@Override
+	public boolean isApplied() {
+		return this.stereotype != null;
+	}
+
+	public boolean hasValue(String propertyName) {
+		return this.values.containsKey(propertyName);
+	}
+
+	public Object get(String propertyName) {
+		return this.values.get(propertyName);
+	}
+
+	@Override
+	public String getString(String propertyName) {
+		Object value = this.values.get(propertyName);
+		return value instanceof String ? (String)value : null;
+	}
+
+	@Override
+	public Integer getInteger(String propertyName) {
+		Object value = this.values.get(propertyName);
+		return value instanceof Integer ? (Integer)value : null;
+	}
+
+	@Override
+	public Double getDouble(String propertyName) {
+		Object value = this.values.get(propertyName);
+		return value instanceof Double ? (Double)value : null;
+	}
+
+	@Override
+	public String getEnumerationLiteralName(String propertyName) {
+		Object value = this.values.get(propertyName);
+		return value instanceof EnumerationLiteral ? ((EnumerationLiteral)value).getName() : null;
+	}
+
+	/*
+	 * Returns the string items of a multi-valued property, null if there are none
+	 */
+	@Override
+	public List<String> getStringList(String propertyName) {
+		Object values = this.values.get(propertyName);
+		if(values instanceof List) {
+			List<String> items = new ArrayList<String>();
+			for(Object value : (List<?>)values) {
+				if(value instanceof String) {
+					items.add((String)value);
+				}
+			}
+			return items.size() > 0 ? items : null;
+		} else {
+			return null;
+		}
+	}
+
+	/*
+	 * Returns all the string-valued properties
+	 */
+	@Override
+	public Map<String, String> getStrings() {
+		Map<String, String> strings = new HashMap<>();
+		for(Map.Entry<String, Object> entry : this.values.entrySet()) {
+			if(entry.getValue() instanceof String) {
+				strings.put(entry.getKey(), (String)entry.getValue());
+			}
+		}
+		return strings;
+	}
+}
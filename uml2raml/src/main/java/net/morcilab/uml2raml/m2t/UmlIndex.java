@@ -0,0 +1,473 @@
+/********************************************************************************
+* Copyright (c) 2017 Davide Rossi
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 2.0 which is available at
+* http://www.eclipse.org/legal/epl-2.0.
+*
+* This Source Code may also be made available under the following Secondary
+* Licenses when the conditions for such availability set forth in the Eclipse
+* Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+* with the GNU Classpath Exception which is
+* available at https://www.gnu.org/software/classpath/license.html.
+*
+* SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+********************************************************************************/
+package net.morcilab.uml2raml.m2t;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.emf.common.notify.Adapter;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.Notifier;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EContentAdapter;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.uml2.uml.Class;
+import org.eclipse.uml2.uml.Element;
+import org.eclipse.uml2.uml.MultiplicityElement;
+import org.eclipse.uml2.uml.NamedElement;
+import org.eclipse.uml2.uml.Package;
+import org.eclipse.uml2.uml.Stereotype;
+import org.eclipse.uml2.uml.Type;
+import org.eclipse.uml2.uml.TypedElement;
+
+import net.morcilab.uml2raml.raml.RamlTypeDeclaration;
+
+/*
+ * Model-scoped lookup tables for a loaded UML resource.
+ * The index is attached to the resource as a content adapter so it is built
+ * once per resource and shared by all the lookups performed on it; any change
+ * to the resource contents invalidates it and the tables are rebuilt lazily
+ * on the next lookup.
+ * Lookups are thread-safe, so the index can be shared by the generation of
+ * different APIs running in parallel (as long as the model is not modified).
+ * A scoped index only covers the resources of the model loaded so far (the
+ * fragments of a model are loaded on demand when lazily loading it) and grows
+ * when a lookup misses after more of them have been loaded
+ */
+public class UmlIndex extends EContentAdapter {
+	//marks (element, stereotype) pairs already resolved to no stereotype
+	private static final Object NO_STEREOTYPE = new Object();
+	private Resource resource;
+	private volatile Map<String, NamedElement> elementsByQN;
+	private volatile Map<String, Class> classesByQN;
+	private volatile boolean scoped;
+	//the resources walked by a scoped index
+	private Set<Resource> indexedResources;
+	private Map<Element, Map<String, Object>> stereotypesByElement = new ConcurrentHashMap<>();
+	private Map<Stereotype, Set<String>> stereotypeClosures = new ConcurrentHashMap<>();
+	private Map<Element, Map<Stereotype, StereotypeValues>> valuesByElement = new ConcurrentHashMap<>();
+	private Map<Package, ResourceGraph<Element>> resourceGraphs = new ConcurrentHashMap<>();
+	private volatile ApiModelGraph<Element> apiModelGraph;
+	//the access to the model the graphs read it through
+	private final UmlModelAccess modelAccess = new UmlModelAccess(this);
+	//frozen type declarations by (type, multiplicity, facets) and by value
+	private Map<TypeDeclarationKey, RamlTypeDeclaration> typeDeclarations = new ConcurrentHashMap<>();
+	private Map<RamlTypeDeclaration, RamlTypeDeclaration> internedTypeDeclarations = new ConcurrentHashMap<>();
+	//counts the lookups and the elements visited, when set
+	private volatile GenerationReport report;
+
+	/*
+	 * Returns the index attached to the resource, creating and attaching
+	 * a new one if none is found
+	 */
+	public static UmlIndex getIndex(Resource resource) {
+		UmlIndex index = findIndex(resource);
+		if(index == null) {
+			index = new UmlIndex();
+			index.resource = resource;
+			resource.eAdapters().add(index);
+		}
+		return index;
+	}
+
+	/*
+	 * Returns the index attached to a resource or to one of its contents,
+	 * null if there is none
+	 */
+	public static UmlIndex findIndex(Notifier notifier) {
+		if(notifier == null) {
+			return null;
+		}
+		for(Adapter adapter : notifier.eAdapters()) {
+			if(adapter instanceof UmlIndex) {
+				return (UmlIndex)adapter;
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public void notifyChanged(Notification notification) {
+		super.notifyChanged(notification);
+		if(!notification.isTouch()) {
+			invalidate();
+		}
+	}
+
+	/*
+	 * Do not force the resolution of containment proxies (e.g. controlled units)
+	 * just to attach the adapter
+	 */
+	@Override
+	protected boolean resolve() {
+		return false;
+	}
+
+	public Resource getResource() {
+		return this.resource;
+	}
+
+	/*
+	 * Returns the access to the model backed by the index
+	 */
+	public UmlModelAccess getModelAccess() {
+		return this.modelAccess;
+	}
+
+	public void setReport(GenerationReport report) {
+		this.report = report;
+	}
+
+	public GenerationReport getReport() {
+		return this.report;
+	}
+
+	/*
+	 * Makes the index cover only the loaded resources of the model, without
+	 * resolving the containment proxies to the other ones
+	 */
+	public synchronized void setScoped(boolean scoped) {
+		if(this.scoped != scoped) {
+			this.scoped = scoped;
+			invalidate();
+		}
+	}
+
+	public boolean isScoped() {
+		return this.scoped;
+	}
+
+	public synchronized void invalidate() {
+		this.elementsByQN = null;
+		this.classesByQN = null;
+		this.indexedResources = null;
+		this.stereotypesByElement.clear();
+		this.stereotypeClosures.clear();
+		this.valuesByElement.clear();
+		this.resourceGraphs.clear();
+		this.apiModelGraph = null;
+		this.typeDeclarations.clear();
+		this.internedTypeDeclarations.clear();
+	}
+
+	/*
+	 * Builds the qualified name tables walking all the elements once.
+	 * When more elements share the same qualified name the first one
+	 * (in containment order) wins, as with the linear scans in UmlUtils.
+	 * Tables are built on the first lookup, build can be called to do it eagerly
+	 */
+	public synchronized void build() {
+		if(this.elementsByQN != null) {
+			return;
+		}
+		if(this.scoped) {
+			this.indexedResources = new HashSet<>();
+			Map<String, NamedElement> elementsByQN = new ConcurrentHashMap<>();
+			Map<String, Class> classesByQN = new ConcurrentHashMap<>();
+			indexLoadedResources(elementsByQN, classesByQN);
+			this.elementsByQN = elementsByQN;
+			this.classesByQN = classesByQN;
+			return;
+		}
+		Map<String, NamedElement> elementsByQN = new HashMap<>();
+		Map<String, Class> classesByQN = new HashMap<>();
+		long visited = 0;
+		for(EObject root : this.resource.getContents()) {
+			if(root instanceof Element) {
+				for(Element element : ((Element)root).allOwnedElements()) {
+					visited++;
+					if(element instanceof NamedElement) {
+						String qualifiedName = ((NamedElement)element).getQualifiedName();
+						if(qualifiedName != null) {
+							elementsByQN.putIfAbsent(qualifiedName, (NamedElement)element);
+							if(element instanceof Class) {
+								classesByQN.putIfAbsent(qualifiedName, (Class)element);
+							}
+						}
+					}
+				}
+			}
+		}
+		this.elementsByQN = elementsByQN;
+		this.classesByQN = classesByQN;
+		count(GenerationReport.Counter.ELEMENTS_VISITED, visited);
+	}
+
+	public NamedElement getElementByQN(String qualifiedName) {
+		count(GenerationReport.Counter.QUALIFIED_NAME_LOOKUPS, 1);
+		Map<String, NamedElement> elementsByQN = this.elementsByQN;
+		if(elementsByQN == null) {
+			build();
+			elementsByQN = this.elementsByQN;
+		}
+		NamedElement element = elementsByQN.get(qualifiedName);
+		if(element == null && this.scoped && extendScope()) {
+			element = elementsByQN.get(qualifiedName);
+		}
+		return element;
+	}
+
+	public Class getClassByQN(String qualifiedName) {
+		count(GenerationReport.Counter.QUALIFIED_NAME_LOOKUPS, 1);
+		Map<String, Class> classesByQN = this.classesByQN;
+		if(classesByQN == null) {
+			build();
+			classesByQN = this.classesByQN;
+		}
+		Class clazz = classesByQN.get(qualifiedName);
+		if(clazz == null && this.scoped && extendScope()) {
+			clazz = classesByQN.get(qualifiedName);
+		}
+		return clazz;
+	}
+
+	/*
+	 * Adds the resources of the model loaded after the last walk to a scoped
+	 * index, returns false if there was none
+	 */
+	private synchronized boolean extendScope() {
+		if(this.elementsByQN == null) {
+			build();
+			return true;
+		}
+		return indexLoadedResources(this.elementsByQN, this.classesByQN) > 0;
+	}
+
+	/*
+	 * Walks the loaded (non-shared) resources not walked yet, without resolving
+	 * proxies. Resources are walked in the order they were loaded and the first
+	 * element with a qualified name wins. Returns the number of resources walked
+	 */
+	private int indexLoadedResources(Map<String, NamedElement> elementsByQN, Map<String, Class> classesByQN) {
+		List<Resource> resources = new ArrayList<>();
+		resources.add(this.resource);
+		if(this.resource.getResourceSet() != null) {
+			resources.addAll(this.resource.getResourceSet().getResources());
+		}
+		int walked = 0;
+		long visited = 0;
+		for(Resource resource : resources) {
+			if(!resource.isLoaded() || GenerateSession.isShared(resource) || !this.indexedResources.add(resource)) {
+				continue;
+			}
+			walked++;
+			for(Iterator<EObject> contents = EcoreUtil.getAllProperContents(resource, false); contents.hasNext(); ) {
+				EObject eObject = contents.next();
+				if(eObject instanceof NamedElement) {
+					visited++;
+					String qualifiedName = ((NamedElement)eObject).getQualifiedName();
+					if(qualifiedName != null) {
+						elementsByQN.putIfAbsent(qualifiedName, (NamedElement)eObject);
+						if(eObject instanceof Class) {
+							classesByQN.putIfAbsent(qualifiedName, (Class)eObject);
+						}
+					}
+				}
+			}
+		}
+		count(GenerationReport.Counter.ELEMENTS_VISITED, visited);
+		return walked;
+	}
+
+	/*
+	 * Memoized version of UmlUtils.getStereotypeOrSubstereotype: the result for
+	 * each (element, stereotype) pair is computed once, specializations are checked
+	 * against the generalization closure of each applied stereotype
+	 */
+	public Stereotype getStereotypeOrSubstereotype(Element element, String stereotypeFQName) {
+		count(GenerationReport.Counter.STEREOTYPE_LOOKUPS, 1);
+		Map<String, Object> elementStereotypes = this.stereotypesByElement.get(element);
+		if(elementStereotypes == null) {
+			this.stereotypesByElement.putIfAbsent(element, new ConcurrentHashMap<>());
+			elementStereotypes = this.stereotypesByElement.get(element);
+		}
+		Object stereotype = elementStereotypes.get(stereotypeFQName);
+		if(stereotype == null) {
+			stereotype = element.getAppliedStereotype(stereotypeFQName);
+			if(stereotype == null) {
+				for(Stereotype appliedStereotype : element.getAppliedStereotypes()) {
+					if(getStereotypeClosure(appliedStereotype).contains(stereotypeFQName)) {
+						stereotype = appliedStereotype;
+						break;
+					}
+				}
+			}
+			if(stereotype == null) {
+				stereotype = NO_STEREOTYPE;
+			}
+			elementStereotypes.put(stereotypeFQName, stereotype);
+		}
+		return stereotype == NO_STEREOTYPE ? null : (Stereotype)stereotype;
+	}
+
+	public Set<String> getStereotypeClosure(Stereotype stereotype) {
+		Set<String> closure = this.stereotypeClosures.get(stereotype);
+		if(closure == null) {
+			closure = UmlUtils.getStereotypeClosure(stereotype);
+			this.stereotypeClosures.put(stereotype, closure);
+		}
+		return closure;
+	}
+
+	/*
+	 * Returns the memoized snapshot of the stereotype application values
+	 */
+	public StereotypeValues getStereotypeValues(Element element, String stereotypeFQName) {
+		Stereotype stereotype = getStereotypeOrSubstereotype(element, stereotypeFQName);
+		if(stereotype == null) {
+			return StereotypeValues.NOT_APPLIED;
+		}
+		Map<Stereotype, StereotypeValues> elementValues = this.valuesByElement.get(element);
+		if(elementValues == null) {
+			this.valuesByElement.putIfAbsent(element, new ConcurrentHashMap<>());
+			elementValues = this.valuesByElement.get(element);
+		}
+		StereotypeValues values = elementValues.get(stereotype);
+		if(values == null) {
+			values = StereotypeValues.read(element, stereotype);
+			StereotypeValues previous = elementValues.putIfAbsent(stereotype, values);
+			if(previous != null) {
+				values = previous;
+			}
+		}
+		return values;
+	}
+
+	/*
+	 * Returns the <<ResourcePath>> graph of the package, built once
+	 */
+	public ResourceGraph<Element> getResourceGraph(Package thePackage) {
+		ResourceGraph<Element> graph = this.resourceGraphs.get(thePackage);
+		if(graph == null) {
+			graph = new ResourceGraph<>(this.modelAccess, thePackage);
+			count(GenerationReport.Counter.ELEMENTS_VISITED, graph.getElementCount());
+			ResourceGraph<Element> previous = this.resourceGraphs.putIfAbsent(thePackage, graph);
+			if(previous != null) {
+				graph = previous;
+			}
+		}
+		return graph;
+	}
+
+	/*
+	 * Returns the <<ApiModel>> reference graph of the resource
+	 */
+	public synchronized ApiModelGraph<Element> getApiModelGraph() {
+		if(this.apiModelGraph == null) {
+			this.apiModelGraph = new ApiModelGraph<>(this.modelAccess);
+		}
+		return this.apiModelGraph;
+	}
+
+	/*
+	 * Memoized version of RamlUmlUtils.typeMapper for typed elements: elements
+	 * with the same type, multiplicity and facet stereotype values share the
+	 * same frozen declaration
+	 */
+	public RamlTypeDeclaration getTypeDeclaration(Element element) {
+		TypeDeclarationKey key = null;
+		if(element instanceof TypedElement && ((TypedElement)element).getType() != null) {
+			StereotypeValues facetValues = StereotypeValues.NOT_APPLIED;
+			String ramlType = RamlUmlUtils.getRAMLType(element);
+			String facetedStereotype = ramlType == null ? null : RamlUmlUtils.getFacetedStereotype(ramlType);
+			if(facetedStereotype != null) {
+				facetValues = getStereotypeValues(element, facetedStereotype);
+			}
+			key = new TypeDeclarationKey((TypedElement)element, facetValues);
+			RamlTypeDeclaration declaration = this.typeDeclarations.get(key);
+			if(declaration != null) {
+				return declaration;
+			}
+		}
+		RamlTypeDeclaration declaration = intern(RamlUmlUtils.createTypeDeclaration(element));
+		if(key != null) {
+			this.typeDeclarations.putIfAbsent(key, declaration);
+		}
+		return declaration;
+	}
+
+	/*
+	 * Returns the frozen declaration equal to the given one, freezing and
+	 * storing it if there is none
+	 */
+	public RamlTypeDeclaration intern(RamlTypeDeclaration declaration) {
+		RamlTypeDeclaration interned = this.internedTypeDeclarations.get(declaration);
+		if(interned == null) {
+			declaration.freeze();
+			interned = this.internedTypeDeclarations.putIfAbsent(declaration, declaration);
+			if(interned == null) {
+				interned = declaration;
+			}
+		}
+		return interned;
+	}
+
+	private void count(GenerationReport.Counter counter, long value) {
+		GenerationReport report = this.report;
+		if(report != null) {
+			report.add(counter, value);
+		}
+	}
+
+	/*
+	 * What a type declaration depends on: the type, the multiplicity and the
+	 * values of the faceted stereotype (the memoized values are compared by identity)
+	 */
+	private static class TypeDeclarationKey {
+		private Type type;
+		private int lower = 1;
+		private int upper = 1;
+		private boolean unique;
+		private StereotypeValues facetValues;
+
+		TypeDeclarationKey(TypedElement element, StereotypeValues facetValues) {
+			this.type = element.getType();
+			this.facetValues = facetValues;
+			if(element instanceof MultiplicityElement) {
+				MultiplicityElement multiplicityElement = (MultiplicityElement)element;
+				this.lower = multiplicityElement.getLower();
+				this.upper = multiplicityElement.getUpper();
+				this.unique = multiplicityElement.isUnique();
+			}
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if(!(obj instanceof TypeDeclarationKey)) {
+				return false;
+			}
+			TypeDeclarationKey other = (TypeDeclarationKey)obj;
+			return this.type == other.type && this.lower == other.lower && this.upper == other.upper &&
+					this.unique == other.unique && this.facetValues == other.facetValues;
+		}
+
+		@Override
+		public int hashCode() {
+			int hash = System.identityHashCode(this.type);
+			hash = 31*hash+this.lower;
+			hash = 31*hash+this.upper;
+			hash = 31*hash+(this.unique ? 1 : 0);
+			return 31*hash+System.identityHashCode(this.facetValues);
+		}
+	}
+}
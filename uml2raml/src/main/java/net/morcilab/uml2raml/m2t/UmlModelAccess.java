@@ -0,0 +1,218 @@
+/********************************************************************************
+* Copyright (c) 2017 Davide Rossi
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 2.0 which is available at
+* http://www.eclipse.org/legal/epl-2.0.
+*
+* This Source Code may also be made available under the following Secondary
+* Licenses when the conditions for such availability set forth in the Eclipse
+* Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+* with the GNU Classpath Exception which is
+* available at https://www.gnu.org/software/classpath/license.html.
+*
+* SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+********************************************************************************/
+package net.morcilab.uml2raml.m2t;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.uml2.uml.Association;
+import org.eclipse.uml2.uml.Classifier;
+import org.eclipse.uml2.uml.DataType;
+import org.eclipse.uml2.uml.Dependency;
+import org.eclipse.uml2.uml.Element;
+import org.eclipse.uml2.uml.MultiplicityElement;
+import org.eclipse.uml2.uml.NamedElement;
+import org.eclipse.uml2.uml.Operation;
+import org.eclipse.uml2.uml.Package;
+import org.eclipse.uml2.uml.Parameter;
+import org.eclipse.uml2.uml.Type;
+import org.eclipse.uml2.uml.TypedElement;
+
+import net.morcilab.uml2raml.raml.RamlTypeDeclaration;
+
+/*
+ * The access to a UML model loaded with EMF. Stereotypes, type declarations
+ * and resource graphs are memoized by the index attached to the model when
+ * there is one; lookups by qualified name need it
+ */
+public class UmlModelAccess implements ModelAccess<Element> {
+	private final UmlIndex index;
+
+	public UmlModelAccess(UmlIndex index) {
+		this.index = index;
+	}
+
+	public UmlIndex getIndex() {
+		return this.index;
+	}
+
+	@Override
+	public String getId(Element element) {
+		return ModelDigest.getId(element);
+	}
+
+	@Override
+	public String getName(Element element) {
+		return element instanceof NamedElement ? ((NamedElement)element).getName() : null;
+	}
+
+	@Override
+	public String getQualifiedName(Element element) {
+		return element instanceof NamedElement ? ((NamedElement)element).getQualifiedName() : null;
+	}
+
+	@Override
+	public boolean isClass(Element element) {
+		return element instanceof org.eclipse.uml2.uml.Class;
+	}
+
+	@Override
+	public boolean isDataType(Element element) {
+		return element instanceof DataType;
+	}
+
+	@Override
+	public boolean isTypedElement(Element element) {
+		return element instanceof TypedElement;
+	}
+
+	@Override
+	public Element getOwner(Element element) {
+		return element.getOwner();
+	}
+
+	@Override
+	public Element getNearestPackage(Element element) {
+		return element.getNearestPackage();
+	}
+
+	@Override
+	public List<Element> getAllOwnedElements(Element element) {
+		return element.allOwnedElements();
+	}
+
+	@Override
+	public StereotypeProperties getStereotype(Element element, String stereotypeFQName) {
+		return UmlUtils.getStereotypeValues(element, stereotypeFQName);
+	}
+
+	@Override
+	public boolean hasStereotype(Element element, String stereotypeFQName) {
+		return UmlUtils.getStereotypeOrSubstereotype(element, stereotypeFQName) != null;
+	}
+
+	@Override
+	public List<Element> getOperations(Element element) {
+		if(element instanceof org.eclipse.uml2.uml.Class) {
+			return Collections.unmodifiableList(((org.eclipse.uml2.uml.Class)element).getOwnedOperations());
+		}
+		return Collections.emptyList();
+	}
+
+	@Override
+	public List<Element> getParameters(Element operation) {
+		return Collections.unmodifiableList(((Operation)operation).getOwnedParameters());
+	}
+
+	@Override
+	public String getDirection(Element parameter) {
+		return ((Parameter)parameter).getDirection().getLiteral();
+	}
+
+	@Override
+	public List<Element> getAllAttributes(Element classifier) {
+		if(classifier instanceof Classifier) {
+			return Collections.unmodifiableList(((Classifier)classifier).getAllAttributes());
+		}
+		return Collections.emptyList();
+	}
+
+	@Override
+	public List<Element> getAssociations(Element classifier) {
+		if(classifier instanceof Type) {
+			return Collections.unmodifiableList(((Type)classifier).getAssociations());
+		}
+		return Collections.emptyList();
+	}
+
+	@Override
+	public List<Element> getEndTypes(Element association) {
+		return Collections.unmodifiableList(((Association)association).getEndTypes());
+	}
+
+	@Override
+	public List<Element> getClientDependencies(Element element) {
+		if(element instanceof NamedElement) {
+			return Collections.unmodifiableList(((NamedElement)element).getClientDependencies());
+		}
+		return Collections.emptyList();
+	}
+
+	@Override
+	public List<Element> getSuppliers(Element dependency) {
+		return Collections.unmodifiableList(((Dependency)dependency).getSuppliers());
+	}
+
+	@Override
+	public Element getType(Element typedElement) {
+		return typedElement instanceof TypedElement ? ((TypedElement)typedElement).getType() : null;
+	}
+
+	@Override
+	public int getLower(Element element) {
+		return element instanceof MultiplicityElement ? ((MultiplicityElement)element).getLower() : 1;
+	}
+
+	@Override
+	public int getUpper(Element element) {
+		return element instanceof MultiplicityElement ? ((MultiplicityElement)element).getUpper() : 1;
+	}
+
+	@Override
+	public boolean isUnique(Element element) {
+		return element instanceof MultiplicityElement ? ((MultiplicityElement)element).isUnique() : true;
+	}
+
+	@Override
+	public Element getElementByQN(String qualifiedName) {
+		return getRequiredIndex().getElementByQN(qualifiedName);
+	}
+
+	@Override
+	public Element getClassByQN(String qualifiedName) {
+		return getRequiredIndex().getClassByQN(qualifiedName);
+	}
+
+	@Override
+	public RamlTypeDeclaration getTypeDeclaration(Element element) {
+		return RamlUmlUtils.typeMapper(element);
+	}
+
+	@Override
+	public RamlTypeDeclaration intern(RamlTypeDeclaration declaration) {
+		return this.index != null ? this.index.intern(declaration) : declaration.freeze();
+	}
+
+	@Override
+	public ResourceGraph<Element> getResourceGraph(Element thePackage) {
+		if(this.index != null) {
+			return this.index.getResourceGraph((Package)thePackage);
+		}
+		return new ResourceGraph<>(this, thePackage);
+	}
+
+	@Override
+	public ApiModelGraph<Element> getApiModelGraph() {
+		return getRequiredIndex().getApiModelGraph();
+	}
+
+	private UmlIndex getRequiredIndex() {
+		if(this.index == null) {
+			throw new IllegalStateException("Lookups by qualified name need the index of the model");
+		}
+		return this.index;
+	}
+}
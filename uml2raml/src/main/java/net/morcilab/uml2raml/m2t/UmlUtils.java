@@ -17,9 +17,11 @@ package net.morcilab.uml2raml.m2t;
 
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.Stack;
 import java.util.stream.Collectors;
 
 import org.eclipse.emf.common.util.EList;
@@ -29,6 +31,7 @@ import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.EStructuralFeature;
 import org.eclipse.uml2.uml.Class;
 import org.eclipse.uml2.uml.Element;
+import org.eclipse.uml2.uml.Generalization;
 import org.eclipse.uml2.uml.Model;
 import org.eclipse.uml2.uml.NamedElement;
 import org.eclipse.uml2.uml.Property;
@@ -39,89 +42,76 @@ import org.eclipse.uml2.uml.Stereotype;
  */
 public class UmlUtils {
 
-	public static Object getStereotypeProperty(Element element, String sterotypeName, String stereotypeProperty) {
-		Stereotype stereotype = getStereotypeOrSubstereotype(element, sterotypeName);
-		if(stereotype != null) {
-			if(!element.hasValue(stereotype, stereotypeProperty)) {
-				return null;
-			}
-			Object property = element.getValue(stereotype, stereotypeProperty);
-			return property;
+	/*
+	 * Returns a snapshot of the values of the stereotype (or substereotype) applied to element.
+	 * When the element belongs to an indexed resource the snapshot is memoized by the index
+	 */
+	public static StereotypeValues getStereotypeValues(Element element, String stereotypeFQName) {
+		UmlIndex index = UmlIndex.findIndex(element);
+		if(index != null) {
+			return index.getStereotypeValues(element, stereotypeFQName);
 		}
-		return null;
+		return StereotypeValues.read(element, getStereotypeOrSubstereotype(element, stereotypeFQName));
+	}
+
+	public static Object getStereotypeProperty(Element element, String sterotypeName, String stereotypeProperty) {
+		return getStereotypeValues(element, sterotypeName).get(stereotypeProperty);
 	}
 	
 	public static List<String> getStringListStereotypeProperty(Element element, String sterotypeName, String stereotypeProperty) {
-		Object values = getStereotypeProperty(element, sterotypeName, stereotypeProperty);
-		if(values == null) {
-			return null;
-		}
-		if(values instanceof EList) {
-			List<String> items = new ArrayList<String>();
-			for(Object value : EList.class.cast(values)) {
-				if(value instanceof String) {
-					items.add((String)value);
-				}
-			}
-			return items.size() > 0 ? items : null;
-		} else {
-			return null;
-		}
+		return getStereotypeValues(element, sterotypeName).getStringList(stereotypeProperty);
 	}
 
 	public static String getStringStereotypeProperty(Element element, String sterotypeName, String stereotypeProperty) {
-		Object property = getStereotypeProperty(element, sterotypeName, stereotypeProperty);
-		if(property != null && property instanceof String) {
-			return (String)property;
-		} else {
-			return null;
-		}
+		return getStereotypeValues(element, sterotypeName).getString(stereotypeProperty);
 	}
 
 	public static Integer getIntegerStereotypeProperty(Element element, String sterotypeName, String stereotypeProperty) {
-		Object property = getStereotypeProperty(element, sterotypeName, stereotypeProperty);
-		if(property != null && property instanceof Integer) {
-			return (Integer)property;
-		} else {
-			return null;
-		}
+		return getStereotypeValues(element, sterotypeName).getInteger(stereotypeProperty);
 	}
 
 	public static Double getDoubleStereotypeProperty(Element element, String sterotypeName, String stereotypeProperty) {
-		Object property = getStereotypeProperty(element, sterotypeName, stereotypeProperty);
-		if(property != null && property instanceof Double) {
-			return (Double)property;
-		} else {
-			return null;
-		}
+		return getStereotypeValues(element, sterotypeName).getDouble(stereotypeProperty);
 	}
 
-	//TODO: this implementation with recurse forever if we have a generalization loop!
 	public static boolean stereotypeGeneralizationsInclude(Stereotype stereotype, String stereotypeFQName) {
-		if(stereotype.getQualifiedName().equals(stereotypeFQName)) {
-			return true;
-		} else {		
-			List<Stereotype> stereotypeGeneralizations = stereotype.getGeneralizations().stream()
-				.filter(generalization -> 
-					generalization.getGeneral() instanceof Stereotype
-				).map(generalization -> 
-					(Stereotype)(generalization.getGeneral())
-				).collect(Collectors.toList());
-			for(Stereotype stereotypeGeneralization : stereotypeGeneralizations) {
-				if(stereotypeGeneralizationsInclude(stereotypeGeneralization, stereotypeFQName)) {
-					return true;
+		return getStereotypeClosure(stereotype).contains(stereotypeFQName);
+	}
+
+	/*
+	 * Returns the qualified names of the stereotype and of all its (direct and indirect)
+	 * generalizations. Each stereotype is visited once so generalization loops are harmless
+	 */
+	public static Set<String> getStereotypeClosure(Stereotype stereotype) {
+		Set<String> closure = new HashSet<>();
+		Set<Stereotype> visited = new HashSet<>();
+		Stack<Stereotype> stereotypesStack = new Stack<>();
+		stereotypesStack.push(stereotype);
+		while(!stereotypesStack.isEmpty()) {
+			Stereotype current = stereotypesStack.pop();
+			if(visited.add(current)) {
+				closure.add(current.getQualifiedName());
+				for(Generalization generalization : current.getGeneralizations()) {
+					if(generalization.getGeneral() instanceof Stereotype) {
+						stereotypesStack.push((Stereotype)generalization.getGeneral());
+					}
 				}
 			}
 		}
-		return false;
+		return closure;
 	}
 	
 	/*
 	 * Returns a stereotype that matches stereotypeFQName if it is applied to element.
 	 * If this is not the case searches for an applied stereotype that is a specialization of
 	 * stereotypeFQName and returns it.
+	 * When the element belongs to an indexed resource the result is memoized by the index
 	 */
 	public static Stereotype getStereotypeOrSubstereotype(Element element, String stereotypeFQName) {
+		UmlIndex index = UmlIndex.findIndex(element);
+		if(index != null) {
+			return index.getStereotypeOrSubstereotype(element, stereotypeFQName);
+		}
 		Stereotype stereotype;
 		stereotype = element.getAppliedStereotype(stereotypeFQName);
 		if(stereotype != null) {
@@ -261,22 +251,14 @@ public class UmlUtils {
 	}
 	
 	public static Map<String, String> getProfileProperties(Element element, String stereotypeFQName) {
-		Map<String, String> propsMap = new HashMap<>();
-		Stereotype stereotype = getStereotypeOrSubstereotype(element, stereotypeFQName);
-		if(stereotype != null) {
-			EList<Property> propsList = stereotype.getAllAttributes();
-			for(Iterator<Property> iterator = propsList.iterator(); iterator.hasNext(); ) {
-				Property property = iterator.next();
-				String value = UmlUtils.getStringStereotypeProperty(element, stereotype.getQualifiedName(), property.getName());
-				if(value != null) {
-					propsMap.put(property.getName(), value);
-				}
-			}
-		}
-		return propsMap;
+		return getStereotypeValues(element, stereotypeFQName).getStrings();
 	}
 
 	public static Class getClassByQN(Model model, String classQN) {
+		UmlIndex index = UmlIndex.findIndex(model);
+		if(index != null) {
+			return index.getClassByQN(classQN);
+		}
 		for(Element element : model.allOwnedElements()) {
 			if(element instanceof Class) {
 				if(((Class)element).getQualifiedName().equals(classQN)) {
@@ -288,6 +270,10 @@ public class UmlUtils {
 	}
 
 	public static NamedElement getElementByQN(Model model, String classQN) {
+		UmlIndex index = UmlIndex.findIndex(model);
+		if(index != null) {
+			return index.getElementByQN(classQN);
+		}
 		for(Element element : model.allOwnedElements()) {
 			if(element instanceof NamedElement) {
 				if(classQN.equals(((NamedElement)element).getQualifiedName())) {
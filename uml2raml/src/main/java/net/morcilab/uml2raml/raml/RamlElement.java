@@ -25,8 +25,17 @@ public interface RamlElement {
 	public void addChild(RamlElement element);
 
 	public Collection<RamlElement> getChildren();
+
+	public int getChildCount();
+
+	public RamlElement getChild(int index);
 	
 	public Collection<RamlElement> getAllChildren();
+
+	/*
+	 * The descendants of the element in depth-first order, without copying them
+	 */
+	public Iterable<RamlElement> descendants();
 	
 	public abstract String getFQName();
 	
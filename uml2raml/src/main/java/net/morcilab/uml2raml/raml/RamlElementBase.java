@@ -15,14 +15,22 @@
 ********************************************************************************/
 package net.morcilab.uml2raml.raml;
 
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.List;
 
 public abstract class RamlElementBase implements RamlElement {
+	private static final RamlElement[] NO_CHILDREN = new RamlElement[0];
 	protected String name;
 	protected RamlElement parent;
-	protected Collection<RamlElement> children = new HashSet<>();
+	//children in insertion order, the array is only allocated for elements with children
+	private RamlElement[] children = NO_CHILDREN;
+	private int childCount;
 	protected RamlModel model;
+	//the id of the UML element the RAML element was derived from
+	protected String source;
 
 	public RamlElementBase(String name, RamlElement parent) {
 		this.name = name;
@@ -37,14 +45,51 @@ public abstract class RamlElementBase implements RamlElement {
 		return this.name;
 	}
 
+	public String getSource() {
+		return this.source;
+	}
+
+	public void setSource(String source) {
+		this.source = source;
+	}
+
 	@Override
 	public void addChild(RamlElement element) {
-		this.children.add(element);
+		if(this.childCount == this.children.length) {
+			this.children = Arrays.copyOf(this.children, this.childCount == 0 ? 2 : this.childCount*2);
+		}
+		this.children[this.childCount++] = element;
 	}
 	
 	@Override
-	public Collection<RamlElement> getChildren() {
-		return this.children;
+	public int getChildCount() {
+		return this.childCount;
+	}
+
+	@Override
+	public RamlElement getChild(int index) {
+		if(index >= this.childCount) {
+			throw new IndexOutOfBoundsException("Index: "+index+", Size: "+this.childCount);
+		}
+		return this.children[index];
+	}
+
+	/*
+	 * A read-only view of the children
+	 */
+	@Override
+	public List<RamlElement> getChildren() {
+		return new AbstractList<RamlElement>() {
+			@Override
+			public RamlElement get(int index) {
+				return getChild(index);
+			}
+
+			@Override
+			public int size() {
+				return RamlElementBase.this.childCount;
+			}
+		};
 	}
 	
 	@Override
@@ -52,11 +97,19 @@ public abstract class RamlElementBase implements RamlElement {
 		return this.model;
 	}
 	
+	@Override
+	public Iterable<RamlElement> descendants() {
+		return () -> new RamlTreeIterator(this);
+	}
+
+	/*
+	 * All the descendants, in depth-first order
+	 */
 	@Override
 	public Collection<RamlElement> getAllChildren() {
-		Collection<RamlElement> allChildren = new HashSet<>(this.children);
-		for(RamlElement child : this.children) {
-			allChildren.addAll(child.getAllChildren());
+		List<RamlElement> allChildren = new ArrayList<>();
+		for(RamlElement descendant : descendants()) {
+			allChildren.add(descendant);
 		}
 		return allChildren;
 	}
@@ -0,0 +1,146 @@
+/********************************************************************************
+* Copyright (c) 2017 Davide Rossi
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 2.0 which is available at
+* http://www.eclipse.org/legal/epl-2.0.
+*
+* This Source Code may also be made available under the following Secondary
+* Licenses when the conditions for such availability set forth in the Eclipse
+* Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+* with the GNU Classpath Exception which is
+* available at https://www.gnu.org/software/classpath/license.html.
+*
+* SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+********************************************************************************/
+package net.morcilab.uml2raml.raml;
+
+import java.io.BufferedWriter;
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+/*
+ * Writes the RAML text of the model elements. The emitter buffers the output
+ * (unless the writer already writes to memory), indentation is expressed as a
+ * depth (2 spaces per level) and written from a precomputed table, and the
+ * pieces of each line are written one after the other instead of being
+ * concatenated. The underlying writer is flushed only by flush, once per write.
+ * An indent prefix, when given, is written at the start of every indented line
+ */
+public class RamlEmitter {
+	private static final int INDENT_TABLE_DEPTH = 32;
+	private static final char[] INDENT_TABLE = new char[INDENT_TABLE_DEPTH*2];
+	private static final int BUFFER_SIZE = 16*1024;
+	private final Writer writer;
+	private final Map<RamlElement, String> descriptions;
+	private final String indentPrefix;
+
+	static {
+		Arrays.fill(INDENT_TABLE, ' ');
+	}
+
+	public RamlEmitter(Writer writer) {
+		this(writer, Collections.emptyMap(), "");
+	}
+
+	/*
+	 * Each line is indented by the prefix as given, then by the depth
+	 */
+	public RamlEmitter(Writer writer, String indentPrefix) {
+		this(writer, Collections.emptyMap(), indentPrefix);
+	}
+
+	/*
+	 * The descriptions of the map are written instead of the ones of their
+	 * elements (e.g. the includes of the description files), the elements
+	 * are not modified
+	 */
+	public RamlEmitter(Writer writer, Map<RamlElement, String> descriptions) {
+		this(writer, descriptions, "");
+	}
+
+	private RamlEmitter(Writer writer, Map<RamlElement, String> descriptions, String indentPrefix) {
+		this.descriptions = descriptions;
+		this.indentPrefix = indentPrefix;
+		if(writer instanceof BufferedWriter || writer instanceof StringWriter || writer instanceof CharArrayWriter) {
+			this.writer = writer;
+		} else {
+			this.writer = new BufferedWriter(writer, BUFFER_SIZE);
+		}
+	}
+
+	public RamlEmitter indent(int depth) throws IOException {
+		if(!this.indentPrefix.isEmpty()) {
+			this.writer.write(this.indentPrefix);
+		}
+		while(depth > INDENT_TABLE_DEPTH) {
+			this.writer.write(INDENT_TABLE, 0, INDENT_TABLE.length);
+			depth -= INDENT_TABLE_DEPTH;
+		}
+		if(depth > 0) {
+			this.writer.write(INDENT_TABLE, 0, depth*2);
+		}
+		return this;
+	}
+
+	/*
+	 * Writes a string as is; as with string concatenation null is written as "null"
+	 */
+	public RamlEmitter text(String text) throws IOException {
+		this.writer.write(String.valueOf(text));
+		return this;
+	}
+
+	public RamlEmitter newline() throws IOException {
+		this.writer.write('\n');
+		return this;
+	}
+
+	/*
+	 * <indent>text\n
+	 */
+	public RamlEmitter line(int depth, String text) throws IOException {
+		return indent(depth).text(text).newline();
+	}
+
+	/*
+	 * <indent>key:\n
+	 */
+	public RamlEmitter key(int depth, String key) throws IOException {
+		indent(depth).text(key);
+		this.writer.write(":\n");
+		return this;
+	}
+
+	/*
+	 * <indent>key: value\n
+	 */
+	public RamlEmitter entry(int depth, String key, String value) throws IOException {
+		indent(depth).text(key);
+		this.writer.write(": ");
+		return text(value).newline();
+	}
+
+	/*
+	 * <indent>description: value\n, nothing for blank descriptions
+	 */
+	public RamlEmitter description(int depth, RamlDescriptableElement element) throws IOException {
+		String description = this.descriptions.get(element);
+		if(description == null) {
+			description = element.getDescription();
+		}
+		if(description != null && !description.trim().equals("")) {
+			entry(depth, "description", description);
+		}
+		return this;
+	}
+
+	public void flush() throws IOException {
+		this.writer.flush();
+	}
+}
@@ -18,7 +18,7 @@ package net.morcilab.uml2raml.raml;
 import java.io.IOException;
 import java.io.Writer;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 public class RamlMethod extends RamlElementBase implements RamlDescriptableElement {
@@ -26,9 +26,9 @@ public class RamlMethod extends RamlElementBase implements RamlDescriptableEleme
 	private String methodName = "";
 	private RamlResource ramlResource;
 	private RamlMethodEnum method;
-	private Map<String, RamlTypeDeclaration> requestBodyMap = new HashMap<>();
-	private Map<Integer, Map<String, RamlTypeDeclaration>> responseMap = new HashMap<>();
-	private Map<String, RamlTypeDeclaration> queryParameterMap = new HashMap<>();
+	private Map<String, RamlTypeDeclaration> requestBodyMap = new LinkedHashMap<>();
+	private Map<Integer, Map<String, RamlTypeDeclaration>> responseMap = new LinkedHashMap<>();
+	private Map<String, RamlTypeDeclaration> queryParameterMap = new LinkedHashMap<>();
 	private String description;
 	private String queryParameters;
 	private String is;
@@ -152,7 +152,7 @@ public class RamlMethod extends RamlElementBase implements RamlDescriptableEleme
 	public void putResponse(int code, RamlTypeDeclaration type, String mediaType) {
 		Map<String, RamlTypeDeclaration> response = this.responseMap.get(code);
 		if(response == null) {
-			response = new HashMap<>();
+			response = new LinkedHashMap<>();
 			this.responseMap.put(code,  response);
 		}
 		response.put(mediaType, type);
@@ -207,72 +207,70 @@ public class RamlMethod extends RamlElementBase implements RamlDescriptableEleme
 	}
 	
 	public void write(Writer writer, int depthOffset) throws IOException {
-		StringBuffer indent = new StringBuffer();
+		RamlEmitter emitter = new RamlEmitter(writer);
+		write(emitter, depthOffset);
+		emitter.flush();
+	}
+
+	void write(RamlEmitter emitter, int depthOffset) throws IOException {
 		int depth = this.ramlResource.getDepth()+1;
 		if(depthOffset >= 0) {
 			depth = depthOffset;
 		}
-		for(int i = 0; i < depth; i++) {
-			indent.append("  ");
-		}
-		writer.write(indent+this.methodName.toLowerCase()+":\n");
+		emitter.key(depth, this.methodName.toLowerCase());
 		if(this.displayName != null) {
-			writer.write(indent+"  displayName: "+this.displayName+"\n");
-		}
-		if(getDescription() != null && !getDescription().trim().equals("")) {
-			writer.write(indent+"  description: "+getDescription()+"\n");
+			emitter.entry(depth+1, "displayName", this.displayName);
 		}
+		emitter.description(depth+1, this);
 		if(this.queryParameters != null) {
-			writer.write(indent+"  queryParameters: "+this.queryParameters+"\n");
+			emitter.entry(depth+1, "queryParameters", this.queryParameters);
 		}
 		if(this.is != null) {
-			writer.write(indent+"  is: "+this.is+"\n");
+			emitter.entry(depth+1, "is", this.is);
 		}
 		if(this.protocols != null) {
-			writer.write(indent+"  protocols: "+this.protocols+"\n");
+			emitter.entry(depth+1, "protocols", this.protocols);
 		}
 		if(!this.requestBodyMap.isEmpty()) {
-			writer.write(indent+"  body:\n");
+			emitter.key(depth+1, "body");
 			for(String mediaType : this.requestBodyMap.keySet()) {
 				RamlTypeDeclaration bodyType = this.requestBodyMap.get(mediaType);
-				String moreIndent = "  ";
+				int moreDepth = 1;
 				if(mediaType.equals("")) {
-					moreIndent = "";
+					moreDepth = 0;
 				} else {
-					writer.write(indent+"    "+mediaType+":\n");
+					emitter.key(depth+2, mediaType);
 				}
-				bodyType.write(writer, indent+moreIndent+"    ");
+				bodyType.write(emitter, depth+moreDepth+2);
 			}
 		}
 		if(!this.queryParameterMap.isEmpty()) {
-			writer.write(indent+"  queryParameters:\n");
+			emitter.key(depth+1, "queryParameters");
 			for(String parameterName : this.queryParameterMap.keySet()) {
-				RamlTypeDeclaration parameterType = this.queryParameterMap.get(parameterName);
-				writer.write(indent+"    "+parameterName+":\n");
-				parameterType.write(writer, indent+"      ");
+				emitter.key(depth+2, parameterName);
+				this.queryParameterMap.get(parameterName).write(emitter, depth+3);
 			}
 		}
-		writer.write(indent+"  responses:\n");
+		emitter.key(depth+1, "responses");
 		if(!this.responseMap.isEmpty()) {
 			for(Integer responseCode : this.responseMap.keySet()) {
 				Map<String, RamlTypeDeclaration> typeMediatypes = this.responseMap.get(responseCode);
-				writer.write(indent+"    "+responseCode+":\n");
-				writer.write(indent+"      body:\n");
-				String moreIndent = "";
+				emitter.key(depth+2, String.valueOf(responseCode));
+				emitter.key(depth+3, "body");
+				int moreDepth = 0;
 				for(String mediaType : typeMediatypes.keySet()) {
 					RamlTypeDeclaration type = typeMediatypes.get(mediaType);
 					if(!mediaType.equals("")) {
-						moreIndent = "  ";
-						writer.write(indent+"        "+mediaType+":\n");
+						moreDepth = 1;
+						emitter.key(depth+4, mediaType);
 					}
-					type.write(writer, indent+moreIndent+"        ");
+					type.write(emitter, depth+moreDepth+4);
 				}
 			}
 		} else {
-			writer.write(indent+"    200:\n");
-			writer.write(indent+"      body:\n");
-			writer.write(indent+"        text/plain: !!null\n");
+			emitter.key(depth+2, "200");
+			emitter.key(depth+3, "body");
+			emitter.entry(depth+4, "text/plain", "!!null");
 		}
-		writer.flush();
 	}
 }
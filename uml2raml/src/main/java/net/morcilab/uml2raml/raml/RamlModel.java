@@ -20,8 +20,10 @@ import java.io.Writer;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.Stack;
 
@@ -35,8 +37,8 @@ public class RamlModel extends RamlElementBase implements RamlDescriptableElemen
 	private List<RamlResource> toplevelResourceList = new ArrayList<>();
 	//This is the list of all types references found while parsing the model
 	//they will be converted to actual types at the end of the parsing
-	private Set<String> typeNameSet = new HashSet<>();
-	private Set<RamlType> typeSet = new HashSet<>();
+	private Set<String> typeNameSet = new LinkedHashSet<>();
+	private Set<RamlType> typeSet = new LinkedHashSet<>();
 	private String title;
 	private String baseUri;
 	private String version;
@@ -122,7 +124,7 @@ public class RamlModel extends RamlElementBase implements RamlDescriptableElemen
 	public Collection<RamlResource> getAllResources() {
 		Stack<RamlResource> resourcesStack = new Stack<>();
 		resourcesStack.addAll(this.toplevelResourceList);
-		Set<RamlResource> flatResoucesSet = new HashSet<>();
+		Set<RamlResource> flatResoucesSet = new LinkedHashSet<>();
 		while(!resourcesStack.isEmpty()) {
 			RamlResource ramlResource = resourcesStack.pop();
 			flatResoucesSet.add(ramlResource);
@@ -236,77 +238,88 @@ public class RamlModel extends RamlElementBase implements RamlDescriptableElemen
 	}
 
 	public void write(Writer writer, WriteMode writeMode) throws IOException {
+		write(writer, writeMode, Collections.emptyMap());
+	}
+
+	/*
+	 * Writes the model with the descriptions of the map instead of the ones of
+	 * their elements (see FileManager.generateDescriptionFiles)
+	 */
+	public void write(Writer writer, WriteMode writeMode, Map<RamlElement, String> descriptions) throws IOException {
+		RamlEmitter emitter = new RamlEmitter(writer, descriptions);
+		write(emitter, writeMode);
+		emitter.flush();
+	}
+
+	void write(RamlEmitter emitter, WriteMode writeMode) throws IOException {
 		//TODO: write protocols, documentation, types, traits, resourceTypes, securitySchemes, securedBy, uses
-		writer.write("#%RAML 1.0\n---\n");
-		writer.write("title: "+this.title+"\n");
+		emitter.line(0, "#%RAML 1.0").line(0, "---");
+		emitter.entry(0, "title", this.title);
 		
 		if(this.baseUri != null) {
-			writer.write("baseUri: "+this.baseUri+"\n");
+			emitter.entry(0, "baseUri", this.baseUri);
 		}
 		if(this.baseUriParameters != null) {
-			writer.write("baseUriParameters: "+this.baseUriParameters+"\n");
+			emitter.entry(0, "baseUriParameters", this.baseUriParameters);
 		}
 		if(this.version != null) {
-			writer.write("version: "+this.version+"\n");
-		}
-		if(getDescription() != null && !getDescription().trim().equals("")) {
-			writer.write("description: "+getDescription()+"\n");
+			emitter.entry(0, "version", this.version);
 		}
+		emitter.description(0, this);
 		if(this.mediaType != null) {
-			writer.write("mediaType: "+this.mediaType+"\n");
+			emitter.entry(0, "mediaType", this.mediaType);
 		}
 		if(this.protocols != null) {
-			writer.write("protocols: "+this.protocols+"\n");
+			emitter.entry(0, "protocols", this.protocols);
 		}
 		if(this.documentation != null) {
-			writer.write("documentation: "+this.documentation+"\n");			
+			emitter.entry(0, "documentation", this.documentation);
 		}
 		if(this.resourceTypes != null && this.resourceTypes.size() > 0) {
-			writer.write("resourceTypes:\n");
+			emitter.key(0, "resourceTypes");
 			for(String resourceType : this.resourceTypes) {
-				writer.write("  "+resourceType+"\n");
+				emitter.line(1, resourceType);
 			}
 		}
 		if(this.securitySchemes != null) {
-			writer.write("securitySchemes: "+this.securitySchemes+"\n");			
+			emitter.entry(0, "securitySchemes", this.securitySchemes);
 		}
 		if(this.securedBy != null) {
-			writer.write("securedBy: "+this.securedBy+"\n");			
+			emitter.entry(0, "securedBy", this.securedBy);
 		}
 		if(this.uses != null && this.uses.size() > 0) {
-			writer.write("uses:\n");
+			emitter.key(0, "uses");
 			for(String use : this.uses) {
-				writer.write("  "+use+"\n");
+				emitter.line(1, use);
 			}
 		}
 		if(this.traits != null && this.traits.size() > 0) {
-			writer.write("traits:\n");
+			emitter.key(0, "traits");
 			for(String type : this.traits) {
-				writer.write("  "+type+"\n");
+				emitter.line(1, type);
 			}
 		}
 		boolean typesWritten = false;
 		if(this.types != null && this.types.size() > 0) {
 			typesWritten = true;
-			writer.write("types:\n");
+			emitter.key(0, "types");
 			for(String type : this.types) {
-				writer.write("  "+type+"\n");
+				emitter.line(1, type);
 			}
 		}
-		writer.flush();
 		if(!this.getTypeSet().isEmpty()) {
 			if(!typesWritten) {
-				writer.write("\ntypes:\n");
+				emitter.newline().key(0, "types");
 			}
 			//we first write simple types, then object types
 			for(RamlType ramlType : this.getTypeSet()) {
 				if(ramlType instanceof RamlSimpleType) {
-					ramlType.write(writer);
+					ramlType.write(emitter);
 				}
 			}
 			for(RamlType ramlType : this.getTypeSet()) {
 				if(ramlType instanceof RamlObjectType) {
-					ramlType.write(writer);
+					ramlType.write(emitter);
 				}
 			}
 		}
@@ -314,26 +327,25 @@ public class RamlModel extends RamlElementBase implements RamlDescriptableElemen
 		if(!this.toplevelResourceList.isEmpty()) {
 			if(writeMode == WriteMode.TYPEREF) {
 				//write resource types
-				writer.write("\nresourceTypes:\n");
+				emitter.newline().key(0, "resourceTypes");
 				//flatten the resources tree
 				Stack<RamlResource> resourcesStack = new Stack<>();
 				resourcesStack.addAll(this.toplevelResourceList);
-				Set<RamlResource> flatResoucesSet = new HashSet<>();
+				Set<RamlResource> flatResoucesSet = new LinkedHashSet<>();
 				while(!resourcesStack.isEmpty()) {
 					RamlResource ramlResource = resourcesStack.pop();
 					flatResoucesSet.add(ramlResource);
 					resourcesStack.addAll(ramlResource.getChildResourcesList());
 				}
 				for(RamlResource ramlResource : flatResoucesSet) {
-					ramlResource.write(writer, RamlResource.WriteMode.TYPE);
+					ramlResource.write(emitter, RamlResource.WriteMode.TYPE);
 				}
 				pathWriteMode = RamlResource.WriteMode.TYPEREF_NESTED;
 			}
 			for(RamlResource ramlResource : this.toplevelResourceList) {
-				writer.write("\n");
-				ramlResource.write(writer, pathWriteMode);
+				emitter.newline();
+				ramlResource.write(emitter, pathWriteMode);
 			}
 		}
-		writer.flush();
 	}
 }
@@ -16,10 +16,10 @@
 package net.morcilab.uml2raml.raml;
 
 import java.io.IOException;
-import java.io.Writer;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 
 public class RamlObjectType extends RamlType implements RamlDescriptableElement {
 	public class RamlTypeProperty {
@@ -52,6 +52,8 @@ public class RamlObjectType extends RamlType implements RamlDescriptableElement
 	}
 	
 	private List<RamlTypeProperty> properties = new ArrayList<>();
+	//properties by name, built on the first lookup since writing the type does not need it
+	private Map<String, RamlTypeProperty> propertyIndex;
 	private String description;
 	private boolean isXMLSchema = false;
 	private boolean isJSONSchema = false;
@@ -64,6 +66,24 @@ public class RamlObjectType extends RamlType implements RamlDescriptableElement
 		super(name, parent);
 	}
 
+	@Override
+	public RamlObjectType copy(RamlModel model) {
+		RamlObjectType copy = new RamlObjectType(this.name, model);
+		copy.setSource(this.source);
+		for(RamlTypeProperty property : this.properties) {
+			copy.addProperty(property.getName(), property.getTypeDeclaration(), property.isOptional());
+		}
+		copy.description = this.description;
+		copy.isXMLSchema = this.isXMLSchema;
+		copy.isJSONSchema = this.isJSONSchema;
+		copy.schema = this.schema;
+		copy.dfault = this.dfault;
+		copy.example = this.example;
+		copy.examples = this.examples;
+		copy.setProcessed(isProcessed());
+		return copy;
+	}
+
 	public void setJSONSchema(String schema) {
 		this.isJSONSchema = true;
 		this.schema = schema;
@@ -124,12 +144,14 @@ public class RamlObjectType extends RamlType implements RamlDescriptableElement
 	}
 	
 	public RamlTypeProperty getProperty(String name) {
-		Optional<RamlTypeProperty> property = this.properties.stream().filter(prop -> prop.getName().equals(name)).findAny();
-		if(property.isPresent()) {
-			return property.get();
-		} else {
-			return null;
+		if(this.propertyIndex == null) {
+			Map<String, RamlTypeProperty> propertyIndex = new HashMap<>();
+			for(RamlTypeProperty property : this.properties) {
+				propertyIndex.putIfAbsent(property.getName(), property);
+			}
+			this.propertyIndex = propertyIndex;
 		}
+		return this.propertyIndex.get(name);
 	}
 	
 	public void addProperty(String name, RamlTypeDeclaration type) {
@@ -137,43 +159,42 @@ public class RamlObjectType extends RamlType implements RamlDescriptableElement
 	}
 
 	public void addProperty(String name, RamlTypeDeclaration type, boolean optional) {
-		this.properties.add(new RamlTypeProperty(name, type, optional));
+		RamlTypeProperty property = new RamlTypeProperty(name, type, optional);
+		this.properties.add(property);
+		if(this.propertyIndex != null) {
+			this.propertyIndex.putIfAbsent(name, property);
+		}
 	}
 	
-	public void write(Writer writer) throws IOException {
-		String name = this.getName();
-		writer.write("  "+name+":\n");
-		if(getDescription() != null && !getDescription().trim().equals("")) {
-			writer.write("    description: "+getDescription()+"\n");
-		}
+	@Override
+	void write(RamlEmitter emitter) throws IOException {
+		emitter.key(1, this.getName());
+		emitter.description(2, this);
 		if((this.isJSONSchema || this.isXMLSchema) && this.schema != null) {
-			writer.write("    type: !include "+this.schema+"\n");
+			emitter.indent(2).text("type: !include ").text(this.schema).newline();
 		} else {
 			if(this.dfault != null) {
-				writer.write("    default: "+this.dfault+"\n");
+				emitter.entry(2, "default", this.dfault);
 			}
 			if(this.example != null) {
-				writer.write("    example: "+this.example+"\n");
+				emitter.entry(2, "example", this.example);
 			}
 			if(this.examples != null) {
-				writer.write("    examples: "+this.examples+"\n");
+				emitter.entry(2, "examples", this.examples);
 			}
-			writer.write("    type: object\n");
+			emitter.entry(2, "type", "object");
 			if(!this.getProperties().isEmpty()) {
-				writer.write("    properties:\n");
+				emitter.key(2, "properties");
 			}
 			for(RamlTypeProperty property : this.getProperties()) {
-				String propertyName = property.getName();
-				RamlTypeDeclaration propertyType = property.getTypeDeclaration();
-				writer.write("      "+propertyName);
+				emitter.indent(3).text(property.getName());
 				if(property.isOptional()) {
-					writer.write("?");
+					emitter.text("?");
 				}
-				writer.write(":\n");
-				propertyType.write(writer, "        ");
+				emitter.text(":").newline();
+				property.getTypeDeclaration().write(emitter, 4);
 			}
 		}
-		writer.flush();
 	}
 	
 	@Override
@@ -166,64 +166,63 @@ public class RamlResource extends RamlElementBase implements RamlDescriptableEle
 	}
 
 	public void write(Writer writer, WriteMode writeMode) throws IOException {
+		RamlEmitter emitter = new RamlEmitter(writer);
+		write(emitter, writeMode);
+		emitter.flush();
+	}
+
+	void write(RamlEmitter emitter, WriteMode writeMode) throws IOException {
 		int depth = this.depth;
 		if(writeMode == WriteMode.TYPE) {
 			depth = 1;
 		}
-		StringBuffer indent = new StringBuffer();
-		for(int i = 0; i < depth; i++) {
-			indent = indent.append("  ");
-		}
 		int methodDepth = -1; //depends on the depth of the enclosing resource
 		if(writeMode == WriteMode.TYPE) {
-			writer.write(indent+this.typeName+":\n");
+			emitter.key(depth, this.typeName);
 			methodDepth = 2;
 		} else {
-			writer.write(indent+this.path+":\n");
+			emitter.key(depth, this.path);
 		}
-		indent.append("  ");
+		depth++;
 		if(writeMode == WriteMode.TYPEREF_NESTED) {
-			writer.write(indent+"type: "+this.typeName+"\n");
+			emitter.entry(depth, "type", this.typeName);
 		} else {
 			if(this.typeName != null) {
-				writer.write(indent+"displayName: "+this.typeName+"\n");
+				emitter.entry(depth, "displayName", this.typeName);
 			}
 			if(!this.uriParameters.isEmpty()) {
-				writer.write(indent+"uriParameters:\n");
+				emitter.key(depth, "uriParameters");
 				for(String uriParameter : this.uriParameters) {
-					writer.write(indent+"  "+uriParameter+": string\n");
+					emitter.entry(depth+1, uriParameter, "string");
 				}
 			}
-			if(getDescription() != null && !getDescription().trim().equals("")) {
-				writer.write(indent+"description: "+getDescription()+"\n");
-			}
+			emitter.description(depth, this);
 			if(this.is != null && !this.is.trim().equals("")) {
-				writer.write(indent+"is: "+this.is+"\n");
+				emitter.entry(depth, "is", this.is);
 			}
 			if(this.type != null && !this.type.trim().equals("")) {
-				writer.write(indent+"type: "+this.type+"\n");
+				emitter.entry(depth, "type", this.type);
 			}
 			if(this.securedBy != null && !this.securedBy.trim().equals("")) {
-				writer.write(indent+"securedBy: "+this.securedBy+"\n");
+				emitter.entry(depth, "securedBy", this.securedBy);
 			}
 			for(Iterator<RamlMethod> methodsIterator = this.methodsList.iterator(); methodsIterator.hasNext(); ) {
 				RamlMethod ramlMethod = methodsIterator.next();
-				ramlMethod.write(writer, methodDepth);
+				ramlMethod.write(emitter, methodDepth);
 			}
 		}
 
 		if(writeMode == WriteMode.INLINE_NESTED || writeMode == WriteMode.TYPEREF_NESTED) {
 			if(this.childResourcesList.size() > 0) {
-				writer.write("\n");
+				emitter.newline();
 			}
 			for(Iterator<RamlResource> iterator = this.childResourcesList.iterator(); iterator.hasNext(); ) {
 				RamlResource childResource = iterator.next();
-				childResource.write(writer, writeMode);
+				childResource.write(emitter, writeMode);
 				if(iterator.hasNext()) {
-					writer.write("\n");
+					emitter.newline();
 				}
 			}
-			writer.flush();
 		}
 	}
 }
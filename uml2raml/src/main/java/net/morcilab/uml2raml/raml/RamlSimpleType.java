@@ -1,7 +1,6 @@
 package net.morcilab.uml2raml.raml;
 
 import java.io.IOException;
-import java.io.Writer;
 
 public class RamlSimpleType extends RamlType implements RamlDescriptableElement {
 	private String description;
@@ -11,6 +10,16 @@ public class RamlSimpleType extends RamlType implements RamlDescriptableElement
 		super(name, parent);
 	}
 
+	@Override
+	public RamlSimpleType copy(RamlModel model) {
+		RamlSimpleType copy = new RamlSimpleType(this.name, model);
+		copy.setSource(this.source);
+		copy.description = this.description;
+		copy.typeDeclaration = this.typeDeclaration;
+		copy.setProcessed(isProcessed());
+		return copy;
+	}
+
 	@Override
 	public String getDescription() {
 		return this.description;
@@ -50,12 +59,11 @@ public class RamlSimpleType extends RamlType implements RamlDescriptableElement
 	}
 
 	@Override
-	public void write(Writer writer) throws IOException {
-		String name = this.getName();
-		writer.write("  "+name+":\n");
+	void write(RamlEmitter emitter) throws IOException {
+		emitter.key(1, this.getName());
 		if(getDescription() != null && !getDescription().trim().equals("")) {
-			writer.write("    description: "+getDescription()+"\n");
+			emitter.entry(2, "description", getDescription());
 		}
-		typeDeclaration.write(writer, "    ");
+		typeDeclaration.write(emitter, 2);
 	}
 }
@@ -0,0 +1,62 @@
+/********************************************************************************
+* Copyright (c) 2017 Davide Rossi
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 2.0 which is available at
+* http://www.eclipse.org/legal/epl-2.0.
+*
+* This Source Code may also be made available under the following Secondary
+* Licenses when the conditions for such availability set forth in the Eclipse
+* Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+* with the GNU Classpath Exception which is
+* available at https://www.gnu.org/software/classpath/license.html.
+*
+* SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+********************************************************************************/
+package net.morcilab.uml2raml.raml;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/*
+ * Pre-order depth-first iterator on the descendants of an element (the element
+ * itself is not returned). The path from the root to the current element is
+ * kept in two arrays as deep as the tree, so walking it allocates nothing per element
+ */
+class RamlTreeIterator implements Iterator<RamlElement> {
+	private RamlElement[] path = new RamlElement[8];
+	//the index of the next child to visit of each element of the path
+	private int[] nextChild = new int[8];
+	private int depth;
+
+	RamlTreeIterator(RamlElement root) {
+		this.path[0] = root;
+	}
+
+	@Override
+	public boolean hasNext() {
+		//pop the elements with no more children to visit
+		while(this.depth >= 0 && this.nextChild[this.depth] >= this.path[this.depth].getChildCount()) {
+			this.path[this.depth] = null;
+			this.depth--;
+		}
+		return this.depth >= 0;
+	}
+
+	@Override
+	public RamlElement next() {
+		if(!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		RamlElement element = this.path[this.depth].getChild(this.nextChild[this.depth]++);
+		this.depth++;
+		if(this.depth == this.path.length) {
+			this.path = Arrays.copyOf(this.path, this.depth*2);
+			this.nextChild = Arrays.copyOf(this.nextChild, this.depth*2);
+		}
+		this.path[this.depth] = element;
+		this.nextChild[this.depth] = 0;
+		return element;
+	}
+}
@@ -1,5 +1,8 @@
 package net.morcilab.uml2raml.raml;
 
+import java.io.IOException;
+import java.io.Writer;
+
 public abstract class RamlType extends RamlElementBase {
 	private boolean processed;
 	
@@ -14,4 +17,18 @@ public abstract class RamlType extends RamlElementBase {
 	public void setProcessed(boolean processed) {
 		this.processed = processed;
 	}
+
+	@Override
+	public void write(Writer writer) throws IOException {
+		RamlEmitter emitter = new RamlEmitter(writer);
+		write(emitter);
+		emitter.flush();
+	}
+
+	/*
+	 * Returns a copy of the type for another model, the type declarations are shared
+	 */
+	public abstract RamlType copy(RamlModel model);
+
+	abstract void write(RamlEmitter emitter) throws IOException;
 }
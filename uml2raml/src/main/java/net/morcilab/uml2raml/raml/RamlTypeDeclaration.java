@@ -17,24 +17,40 @@ package net.morcilab.uml2raml.raml;
 
 import java.io.IOException;
 import java.io.Writer;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Objects;
 
+/*
+ * The declaration of the type of a property, parameter or body.
+ * Declarations can be frozen to be shared by all the elements with the same
+ * type: a frozen declaration cannot be modified, a copy has to be made instead
+ */
 public class RamlTypeDeclaration {
+	//shared by all the declarations without facets
+	private static final Map<String, String> NO_FACETS = Collections.emptyMap();
 	private boolean isArray = false;
 	private int arrayMinItems = -1;
 	private int arrayMaxItems = -1;
 	private boolean arrayIsUnique = false;
 	private String name;
-	private Map<String, String> facets = new HashMap<>();
+	private Map<String, String> facets = NO_FACETS;
+	private boolean frozen = false;
 
+	/*
+	 * Returns a modifiable copy of the declaration
+	 */
 	public RamlTypeDeclaration(RamlTypeDeclaration other) {
-		this.arrayIsUnique = other.isArray;
+		this.isArray = other.isArray;
 		this.arrayMinItems = other.arrayMinItems;
 		this.arrayMaxItems = other.arrayMaxItems;
 		this.arrayIsUnique = other.arrayIsUnique;
 		this.name = other.name;
-		this.facets = new HashMap<>(other.facets);
+		if(!other.facets.isEmpty()) {
+			this.facets = new LinkedHashMap<>(other.facets);
+		}
 	}
 	
 	public RamlTypeDeclaration(String name) {
@@ -51,6 +67,7 @@ public class RamlTypeDeclaration {
 	}
 	
 	public void setArray(boolean isArray) {
+		checkNotFrozen();
 		this.isArray = isArray;
 	}
 	
@@ -59,10 +76,12 @@ public class RamlTypeDeclaration {
 	}
 	
 	public void makeItArray() {
+		checkNotFrozen();
 		this.isArray = true;
 	}
 	
 	public void makeItArray(int arrayMinItems, int arrayMaxItems, boolean arrayIsUnique) {
+		checkNotFrozen();
 		this.isArray = true;
 		this.arrayMinItems = arrayMinItems;
 		this.arrayMaxItems = arrayMaxItems;
@@ -70,48 +89,112 @@ public class RamlTypeDeclaration {
 	}
 	
 	public void addFacet(String name, String value) {
+		checkNotFrozen();
+		if(this.facets == NO_FACETS) {
+			this.facets = new LinkedHashMap<>();
+		}
 		this.facets.put(name, value);
 	}
 
 	public void addFacets(Map<String, String> facets) {
+		checkNotFrozen();
+		if(facets.isEmpty()) {
+			return;
+		}
+		if(this.facets == NO_FACETS) {
+			this.facets = new LinkedHashMap<>();
+		}
 		this.facets.putAll(facets);
 	}
 
-	
 	public String getFacet(String name) {
 		return facets.get(name);
 	}
 
-	public void write(Writer writer, int indentDepth) throws IOException {
-		StringBuffer indent = new StringBuffer();
-		for(int i = 0; i < indentDepth; i++) {
-			indent.append("  ");
+	/*
+	 * Makes the declaration unmodifiable, returns the declaration itself
+	 */
+	public RamlTypeDeclaration freeze() {
+		this.frozen = true;
+		return this;
+	}
+
+	public boolean isFrozen() {
+		return this.frozen;
+	}
+
+	private void checkNotFrozen() {
+		if(this.frozen) {
+			throw new IllegalStateException("The declaration of type "+this.name+" is shared and cannot be modified");
+		}
+	}
+
+	/*
+	 * Declarations are equal when they are written the same way, facets included (in the same order)
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if(this == obj) {
+			return true;
+		}
+		if(!(obj instanceof RamlTypeDeclaration)) {
+			return false;
+		}
+		RamlTypeDeclaration other = (RamlTypeDeclaration)obj;
+		if(this.isArray != other.isArray || this.arrayMinItems != other.arrayMinItems || this.arrayMaxItems != other.arrayMaxItems ||
+				this.arrayIsUnique != other.arrayIsUnique || !Objects.equals(this.name, other.name) || this.facets.size() != other.facets.size()) {
+			return false;
 		}
-		write(writer, indent.toString());
+		Iterator<Map.Entry<String, String>> otherFacets = other.facets.entrySet().iterator();
+		for(Map.Entry<String, String> facet : this.facets.entrySet()) {
+			if(!facet.equals(otherFacets.next())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(this.name, this.isArray, this.arrayMinItems, this.arrayMaxItems, this.arrayIsUnique, this.facets);
+	}
+
+	public void write(Writer writer, int indentDepth) throws IOException {
+		RamlEmitter emitter = new RamlEmitter(writer);
+		write(emitter, indentDepth);
+		emitter.flush();
 	}
 	
+	/*
+	 * Writes the declaration with each line prefixed by the given indent,
+	 * the nested items of arrays by two more spaces
+	 */
 	public void write(Writer writer, String indent) throws IOException {
+		RamlEmitter emitter = new RamlEmitter(writer, indent);
+		write(emitter, 0);
+		emitter.flush();
+	}
+
+	void write(RamlEmitter emitter, int depth) throws IOException {
 		if(this.isArray) {
-			writer.write(indent+"type: array\n");
+			emitter.entry(depth, "type", "array");
 			if(this.arrayMinItems > 0) {
-				writer.write(indent+"minItems: "+this.arrayMinItems+"\n");
+				emitter.entry(depth, "minItems", String.valueOf(this.arrayMinItems));
 			}
 			if(this.arrayMaxItems >= 0) {
-				writer.write(indent+"maxItems: "+this.arrayMaxItems+"\n");
+				emitter.entry(depth, "maxItems", String.valueOf(this.arrayMaxItems));
 			}
 			if(this.arrayIsUnique) {
-				writer.write(indent+"uniqueItems: true\n");
+				emitter.entry(depth, "uniqueItems", "true");
 			}
-			writer.write(indent+"items: ");
-			indent = indent+"  ";
+			emitter.indent(depth).text("items: ");
+			depth++;
 		} else {
-			writer.write(indent+"type: ");
+			emitter.indent(depth).text("type: ");
 		}
-		writer.write(this.name+"\n");
+		emitter.text(this.name).newline();
 		for(String facetName : this.facets.keySet()) {
-			String facetValue = this.facets.get(facetName);
-			writer.write(indent+facetName+": "+facetValue+"\n");
+			emitter.entry(depth, facetName, this.facets.get(facetName));
 		}
-		writer.flush();
 	}
 }
@@ -0,0 +1,210 @@
+/********************************************************************************
+* Copyright (c) 2017 Davide Rossi
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License 2.0 which is available at
+* http://www.eclipse.org/legal/epl-2.0.
+*
+* This Source Code may also be made available under the following Secondary
+* Licenses when the conditions for such availability set forth in the Eclipse
+* Public License, v. 2.0 are satisfied: GNU General Public License, version 2
+* with the GNU Classpath Exception which is
+* available at https://www.gnu.org/software/classpath/license.html.
+*
+* SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+********************************************************************************/
+package net.morcilab.uml2raml.m2t;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/*
+ * The Flight Recorder events of a generation. This is the Java 11 version of
+ * the class, packaged in META-INF/versions/11 of the multi-release jar; the
+ * base version in src/main/java records nothing. Generate calls this class only
+ * when the JFR API is available, so that it is never loaded on other JVMs.
+ * Events are created and begun unconditionally, as the JFR API expects:
+ * when they are not enabled begin and end do nothing and the JIT removes
+ * the allocations. The commit methods are called only when end returns true,
+ * so the attributes are only computed for the events being recorded
+ */
+final class JfrEvents {
+	private static final String CATEGORY = "uml2raml";
+
+	@Name("net.morcilab.uml2raml.ModelLoad")
+	@Label("Model Load")
+	@Description("Loading of a UML model, with the profiles it applies when not already loaded")
+	@Category(CATEGORY)
+	@StackTrace(false)
+	static class ModelLoadEvent extends Event {
+		@Label("File")
+		String file;
+		@Label("Resources")
+		@Description("Resources in the resource set after the load")
+		int resources;
+	}
+
+	@Name("net.morcilab.uml2raml.ApiPackage")
+	@Label("API Package")
+	@Description("Processing of the resources and methods of an <<Api>> package")
+	@Category(CATEGORY)
+	@StackTrace(false)
+	static class ApiPackageEvent extends Event {
+		@Label("Qualified Name")
+		String qualifiedName;
+		@Label("Resources")
+		int resources;
+		@Label("Referred Types")
+		int types;
+	}
+
+	@Name("net.morcilab.uml2raml.Resource")
+	@Label("Resource")
+	@Description("Processing of a <<Resource>> class, including the resources linked to it")
+	@Category(CATEGORY)
+	@StackTrace(false)
+	static class ResourceEvent extends Event {
+		@Label("Qualified Name")
+		String qualifiedName;
+		@Label("Path")
+		String path;
+		@Label("Methods")
+		int methods;
+		@Label("Linked Resources")
+		int linkedResources;
+	}
+
+	@Name("net.morcilab.uml2raml.TypeClosure")
+	@Label("Type Closure")
+	@Description("Computation of the types reachable from the ones referred to by an API")
+	@Category(CATEGORY)
+	@StackTrace(false)
+	static class TypeClosureEvent extends Event {
+		@Label("API")
+		String api;
+		@Label("Referred Types")
+		int referredTypes;
+		@Label("Closure Types")
+		int closureTypes;
+	}
+
+	@Name("net.morcilab.uml2raml.RamlType")
+	@Label("RAML Type")
+	@Description("Materialization of a RAML type from its UML classifier")
+	@Category(CATEGORY)
+	@StackTrace(false)
+	static class RamlTypeEvent extends Event {
+		@Label("Qualified Name")
+		String qualifiedName;
+		@Label("Kind")
+		String kind;
+	}
+
+	@Name("net.morcilab.uml2raml.Write")
+	@Label("Write")
+	@Description("Writing of the RAML of an API (and its description files)")
+	@Category(CATEGORY)
+	@StackTrace(false)
+	static class WriteEvent extends Event {
+		@Label("API")
+		String api;
+		@Label("File")
+		String file;
+		@Label("Size")
+		@DataAmount
+		long bytes;
+	}
+
+	private JfrEvents() {
+	}
+
+	static Object begin(Event event) {
+		event.begin();
+		return event;
+	}
+
+	/*
+	 * Ends the event, returns true if it has to be committed
+	 */
+	static boolean end(Object begun) {
+		Event event = (Event)begun;
+		event.end();
+		return event.shouldCommit();
+	}
+
+	static Object beginModelLoad() {
+		return begin(new ModelLoadEvent());
+	}
+
+	static void commitModelLoad(Object begun, String file, int resources) {
+		ModelLoadEvent event = (ModelLoadEvent)begun;
+		event.file = file;
+		event.resources = resources;
+		event.commit();
+	}
+
+	static Object beginApiPackage() {
+		return begin(new ApiPackageEvent());
+	}
+
+	static void commitApiPackage(Object begun, String qualifiedName, int resources, int types) {
+		ApiPackageEvent event = (ApiPackageEvent)begun;
+		event.qualifiedName = qualifiedName;
+		event.resources = resources;
+		event.types = types;
+		event.commit();
+	}
+
+	static Object beginResource() {
+		return begin(new ResourceEvent());
+	}
+
+	static void commitResource(Object begun, String qualifiedName, String path, int methods, int linkedResources) {
+		ResourceEvent event = (ResourceEvent)begun;
+		event.qualifiedName = qualifiedName;
+		event.path = path;
+		event.methods = methods;
+		event.linkedResources = linkedResources;
+		event.commit();
+	}
+
+	static Object beginTypeClosure() {
+		return begin(new TypeClosureEvent());
+	}
+
+	static void commitTypeClosure(Object begun, String api, int referredTypes, int closureTypes) {
+		TypeClosureEvent event = (TypeClosureEvent)begun;
+		event.api = api;
+		event.referredTypes = referredTypes;
+		event.closureTypes = closureTypes;
+		event.commit();
+	}
+
+	static Object beginRamlType() {
+		return begin(new RamlTypeEvent());
+	}
+
+	static void commitRamlType(Object begun, String qualifiedName, String kind) {
+		RamlTypeEvent event = (RamlTypeEvent)begun;
+		event.qualifiedName = qualifiedName;
+		event.kind = kind;
+		event.commit();
+	}
+
+	static Object beginWrite() {
+		return begin(new WriteEvent());
+	}
+
+	static void commitWrite(Object begun, String api, String file, long bytes) {
+		WriteEvent event = (WriteEvent)begun;
+		event.api = api;
+		event.file = file;
+		event.bytes = bytes;
+		event.commit();
+	}
+}
@@ -2,6 +2,7 @@ package net.morcilab.m2t;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.StringReader;
 import java.io.StringWriter;
@@ -11,20 +12,36 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.uml2.uml.Element;
+import org.eclipse.uml2.uml.Package;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.yaml.snakeyaml.Yaml;
 
 import net.morcilab.uml2raml.m2t.Generate;
+import net.morcilab.uml2raml.m2t.GenerateSession;
+import net.morcilab.uml2raml.m2t.GenerateWatcher;
+import net.morcilab.uml2raml.m2t.GenerationReport;
+import net.morcilab.uml2raml.m2t.GenerationReport.Counter;
+import net.morcilab.uml2raml.m2t.GenerationReport.Phase;
+import net.morcilab.uml2raml.m2t.ModelFactsCache;
+import net.morcilab.uml2raml.m2t.ProfileNames;
 import net.morcilab.uml2raml.m2t.Uml2RamlException;
+import net.morcilab.uml2raml.m2t.UmlUtils;
 import net.morcilab.uml2raml.raml.RamlTypeDeclaration;
+import net.morcilab.uml2raml.raml.RamlElement;
 import net.morcilab.uml2raml.raml.RamlMethod;
 import net.morcilab.uml2raml.raml.RamlModel;
 import net.morcilab.uml2raml.raml.RamlObjectType;
@@ -89,6 +106,386 @@ public class GenerateTest {
 		assertEquals(2, modelsMap.size());
 	}
 
+	//generate with Two <<API>> packages processed in parallel -> same models, same order
+	@Test
+	void generateFromTwoApiModelsParallelTest() throws IOException {
+		Generate generate = new Generate();
+		Map<String, RamlModel> modelsMap = generate.generate("src/test/resources/uml/TwoAPIs.uml");
+		Generate parallelGenerate = new Generate();
+		parallelGenerate.setThreads(2);
+		Map<String, RamlModel> parallelModelsMap = parallelGenerate.generate("src/test/resources/uml/TwoAPIs.uml");
+		assertEquals(new ArrayList<>(modelsMap.keySet()), new ArrayList<>(parallelModelsMap.keySet()));
+		for(String apiName : modelsMap.keySet()) {
+			StringWriter writer = new StringWriter();
+			modelsMap.get(apiName).write(writer);
+			StringWriter parallelWriter = new StringWriter();
+			parallelModelsMap.get(apiName).write(parallelWriter);
+			assertEquals(writer.toString(), parallelWriter.toString());
+		}
+	}
+
+	//generating the same model twice -> byte-identical RAML
+	@Test
+	void generateDeterministicOutputTest() throws IOException {
+		StringWriter writer = new StringWriter();
+		new Generate().generateOne("src/test/resources/uml/RestTestAPI.uml").write(writer);
+		StringWriter otherWriter = new StringWriter();
+		new Generate().generateOne("src/test/resources/uml/RestTestAPI.uml").write(otherWriter);
+		assertEquals(writer.toString(), otherWriter.toString());
+	}
+
+	//generations sharing a session reuse the loaded profiles and unload the models
+	@Test
+	void generateWithSessionTest() throws IOException {
+		try(GenerateSession session = new GenerateSession()) {
+			Generate generate = new Generate();
+			generate.setSession(session);
+			assertEquals(2, generate.generate("src/test/resources/uml/TwoAPIs.uml").size());
+			Resource profile = findResource(session, "rest.profile.uml");
+			assertNotNull(profile);
+			assertTrue(profile.isLoaded());
+			assertNull(findResource(session, "TwoAPIs.uml"));
+			assertEquals(2, generate.generate("src/test/resources/uml/TwoAPIs.uml").size());
+			assertSame(profile, findResource(session, "rest.profile.uml"));
+		}
+	}
+
+	//a profile changed since a session loaded it is loaded again by the next generation
+	@Test
+	void generateWithSessionChangedProfileTest() throws IOException {
+		Path tmpDirPath = Files.createTempDirectory("uml2raml");
+		for(String filename : new String[] { "TwoAPIs.uml", "rest.profile.uml", "raml.profile.uml" }) {
+			Files.copy(Paths.get("src/test/resources/uml", filename), tmpDirPath.resolve(filename));
+		}
+		String umlFilename = tmpDirPath.resolve("TwoAPIs.uml").toString();
+		Path profilePath = tmpDirPath.resolve("rest.profile.uml");
+		Resource profile;
+		Resource unchangedProfile;
+		Resource changedProfile;
+		String raml;
+		String changedRaml;
+		try(GenerateSession session = new GenerateSession()) {
+			Generate generate = new Generate();
+			generate.setSession(session);
+			raml = writeModels(generate.generate(umlFilename));
+			profile = findResource(session, "rest.profile.uml");
+			generate.generate(umlFilename);
+			unchangedProfile = findResource(session, "rest.profile.uml");
+			Files.write(profilePath, "\n".getBytes(), StandardOpenOption.APPEND);
+			changedRaml = writeModels(generate.generate(umlFilename));
+			changedProfile = findResource(session, "rest.profile.uml");
+		}
+		try(Stream<Path> paths = Files.list(tmpDirPath)) {
+			for(Path path : paths.collect(Collectors.toList())) {
+				Files.delete(path);
+			}
+		}
+		Files.delete(tmpDirPath);
+		assertSame(profile, unchangedProfile);
+		assertNotNull(changedProfile);
+		assertNotSame(profile, changedProfile);
+		assertEquals(raml, changedRaml);
+	}
+
+	//a second generation loads the model and the profiles from the binary cache
+	@Test
+	void generateWithResourceCacheTest() throws IOException {
+		Path cacheDirectory = Files.createTempDirectory("uml2raml-cache");
+		Generate generate = new Generate();
+		generate.setCacheDirectory(cacheDirectory.toString());
+		RamlModel model = generate.generateOne("src/test/resources/uml/RestTestAPI.uml");
+		assertTrue(Files.list(cacheDirectory).count() > 0);
+		RamlModel cachedModel = generate.generateOne("src/test/resources/uml/RestTestAPI.uml");
+		assertEquals(model.getAllResources().size(), cachedModel.getAllResources().size());
+		assertEquals(model.getTypeSet().size(), cachedModel.getTypeSet().size());
+		RamlResource gammaResource = cachedModel.getAllResources().stream().filter(resource -> resource.getName().equals("GammaResource")).findFirst().get();
+		assertEquals("/alpha/beta/gamma", gammaResource.getFullPath());
+	}
+
+	//Regenerating an unchanged RAML file does not rewrite it, the input files are reported
+	@Test
+	void generateFileUnchangedTest() throws IOException {
+		Path ramlPath = Files.createTempFile("uml2raml", ".raml");
+		Generate generate = new Generate();
+		generate.generateFile("src/test/resources/uml/RestTestAPI.uml", ramlPath.toString(), null);
+		Files.setLastModifiedTime(ramlPath, FileTime.fromMillis(0));
+		generate.generateFile("src/test/resources/uml/RestTestAPI.uml", ramlPath.toString(), null);
+		long lastModified = Files.getLastModifiedTime(ramlPath).toMillis();
+		Files.delete(ramlPath);
+		assertEquals(0, lastModified);
+		assertTrue(generate.getInputFiles().stream().anyMatch(file -> file.getName().equals("RestTestAPI.uml")));
+	}
+
+	//lazy loading of a fragmented model -> same RAML, the fragments not used by the API are not loaded
+	@Test
+	void generateLazyLoadingTest() throws IOException {
+		StringWriter writer = new StringWriter();
+		new Generate().generateOne("src/test/resources/uml/RestTestAPI.uml").write(writer);
+		Generate generate = new Generate();
+		generate.setLazyLoading(true);
+		StringWriter lazyWriter = new StringWriter();
+		generate.generateOne("src/test/resources/uml/FragmentedAPI.uml", "TestAPI").write(lazyWriter);
+		assertEquals(writer.toString(), lazyWriter.toString());
+		assertTrue(generate.getInputFiles().stream().anyMatch(file -> file.getName().equals("FragmentedAPI.Model.uml")));
+		assertFalse(generate.getInputFiles().stream().anyMatch(file -> file.getName().equals("FragmentedAPI.Other.uml")));
+	}
+
+	//a ResourcePath cycle reachable from a top-level resource -> exception, a cycle never reached -> generated as before
+	@Test
+	void generateCyclicResourcePathsTest() throws IOException {
+		Generate generate = new Generate();
+		Throwable exception = assertThrows(Uml2RamlException.class, () -> {
+			generate.generateOne("src/test/resources/uml/CyclicAPI.uml", "Reachable");
+		});
+		assertEquals("Cyclic ResourcePath links between resources: CyclicAPI::Reachable::Alpha, CyclicAPI::Reachable::Beta", exception.getMessage());
+		RamlModel ramlModel = new Generate().generateOne("src/test/resources/uml/CyclicAPI.uml", "Unreachable");
+		assertEquals(1, ramlModel.getAllResources().size());
+		assertEquals("/top", ramlModel.getAllResources().iterator().next().getPath());
+	}
+
+	//the model facts streamed from the XMI files generate the same RAML as the UML model, loaded eagerly and lazily
+	//(which resolves the fragments the APIs use), or fail with the same exception; the fast path never falls back to EMF
+	@Test
+	void generateFastPathTest() throws IOException {
+		List<Path> umlPaths;
+		try(Stream<Path> paths = Files.list(Paths.get("src/test/resources/uml"))) {
+			umlPaths = paths.filter(path -> path.toString().endsWith(".uml") && !path.toString().endsWith(".profile.uml")).sorted().collect(Collectors.toList());
+		}
+		for(boolean arraysAsTypes : new boolean[] { false, true }) {
+			for(Path umlPath : umlPaths) {
+				String umlFilename = umlPath.toString();
+				List<String> apiNames = getApiNames(umlFilename);
+				Generate generate = new Generate();
+				generate.setArraysAsTypes(arraysAsTypes);
+				Generate lazyGenerate = new Generate();
+				lazyGenerate.setArraysAsTypes(arraysAsTypes);
+				lazyGenerate.setLazyLoading(true);
+				Generate fastGenerate = new Generate();
+				fastGenerate.setArraysAsTypes(arraysAsTypes);
+				fastGenerate.setFastPath(true);
+				String raml;
+				try {
+					raml = writeModels(generate.generate(umlFilename, apiNames));
+				} catch(RuntimeException e) {
+					RuntimeException lazyException = assertThrows(RuntimeException.class, () -> lazyGenerate.generate(umlFilename, apiNames));
+					RuntimeException fastException = assertThrows(RuntimeException.class, () -> fastGenerate.generate(umlFilename, apiNames));
+					assertEquals(0L, fastGenerate.getReport().getCount(Counter.FAST_PATH_FALLBACKS), umlFilename);
+					assertEquals(e.getClass(), lazyException.getClass(), umlFilename);
+					assertEquals(e.getMessage(), lazyException.getMessage(), umlFilename);
+					assertEquals(e.getClass(), fastException.getClass(), umlFilename);
+					assertEquals(e.getMessage(), fastException.getMessage(), umlFilename);
+					continue;
+				}
+				String fastRaml = writeModels(fastGenerate.generate(umlFilename, apiNames));
+				assertEquals(0L, fastGenerate.getReport().getCount(Counter.FAST_PATH_FALLBACKS), umlFilename);
+				assertEquals(raml, fastRaml, umlFilename);
+				assertEquals(raml, writeModels(lazyGenerate.generate(umlFilename, apiNames)), umlFilename);
+			}
+		}
+	}
+
+	//a file the fast path does not support (no UML element) is loaded with EMF, the fallback is reported
+	@Test
+	void generateFastPathFallbackTest() throws IOException {
+		Path tmpPath = Files.createTempFile("uml2raml", ".uml");
+		Files.write(tmpPath, "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<root/>\n".getBytes());
+		Generate generate = new Generate();
+		generate.setFastPath(true);
+		assertThrows(Exception.class, () -> generate.generate(tmpPath.toString()));
+		Files.delete(tmpPath);
+		assertEquals(1L, generate.getReport().getCount(Counter.FAST_PATH_FALLBACKS));
+	}
+
+	//the names of the API packages of the model, loaded with EMF
+	private List<String> getApiNames(String umlFilename) throws IOException {
+		GenerateSession session = new GenerateSession();
+		try {
+			Element rootElement = (Element)session.load(umlFilename).getContents().get(0);
+			return UmlUtils.findElements(rootElement, Package.class, ProfileNames.RESTPROFILE_API_FQN).stream()
+					.map(Package::getName).collect(Collectors.toList());
+		} finally {
+			session.close();
+		}
+	}
+
+	//the facts cached next to the model are reused until the model or a profile changes
+	@Test
+	void generateFactsCacheTest() throws IOException {
+		Path tmpDirPath = Files.createTempDirectory("uml2raml");
+		for(String filename : new String[] { "TwoAPIs.uml", "rest.profile.uml", "raml.profile.uml" }) {
+			Files.copy(Paths.get("src/test/resources/uml", filename), tmpDirPath.resolve(filename));
+		}
+		Path umlPath = tmpDirPath.resolve("TwoAPIs.uml");
+		Path cachePath = ModelFactsCache.getCacheFile(umlPath.toFile()).toPath();
+		String raml = writeModels(new Generate().generate(umlPath.toString()));
+		Generate generate = new Generate();
+		generate.setFactsCache(true);
+		String cachingRaml = writeModels(generate.generate(umlPath.toString()));
+		boolean cached = Files.exists(cachePath);
+		Files.setLastModifiedTime(cachePath, FileTime.fromMillis(0));
+		String cachedRaml = writeModels(generate.generate(umlPath.toString()));
+		long reusedLastModified = Files.getLastModifiedTime(cachePath).toMillis();
+		Files.write(umlPath, "\n".getBytes(), StandardOpenOption.APPEND);
+		String changedModelRaml = writeModels(generate.generate(umlPath.toString()));
+		long changedModelLastModified = Files.getLastModifiedTime(cachePath).toMillis();
+		Files.setLastModifiedTime(cachePath, FileTime.fromMillis(0));
+		Files.write(tmpDirPath.resolve("rest.profile.uml"), "\n".getBytes(), StandardOpenOption.APPEND);
+		generate.generate(umlPath.toString());
+		long changedProfileLastModified = Files.getLastModifiedTime(cachePath).toMillis();
+		try(Stream<Path> paths = Files.list(tmpDirPath)) {
+			for(Path path : paths.collect(Collectors.toList())) {
+				Files.delete(path);
+			}
+		}
+		Files.delete(tmpDirPath);
+		assertTrue(cached);
+		assertEquals(raml, cachingRaml);
+		assertEquals(raml, cachedRaml);
+		assertEquals(raml, changedModelRaml);
+		assertEquals(0, reusedLastModified);
+		assertNotEquals(0L, changedModelLastModified);
+		assertNotEquals(0L, changedProfileLastModified);
+	}
+
+	//Two <<API>> packages written to their own files from a single load
+	@Test
+	void generateFilesTest() throws IOException {
+		Path tmpDirPath = Files.createTempDirectory("uml2raml");
+		Generate generate = new Generate();
+		Map<String, String> ramlFilenames = generate.generateFiles("src/test/resources/uml/TwoAPIs.uml", tmpDirPath.resolve(Generate.API_NAME_PLACEHOLDER+".raml").toString(), null);
+		Map<String, RamlModel> modelsMap = generate.generate("src/test/resources/uml/TwoAPIs.uml");
+		assertEquals(new ArrayList<>(modelsMap.keySet()), new ArrayList<>(ramlFilenames.keySet()));
+		for(String apiName : modelsMap.keySet()) {
+			StringWriter writer = new StringWriter();
+			modelsMap.get(apiName).write(writer);
+			Path ramlPath = Paths.get(ramlFilenames.get(apiName));
+			assertEquals(tmpDirPath.resolve(apiName+".raml"), ramlPath);
+			assertEquals(writer.toString(), new String(Files.readAllBytes(ramlPath)));
+			Files.delete(ramlPath);
+		}
+		Files.delete(tmpDirPath);
+		assertThrows(IllegalArgumentException.class, () -> {
+			generate.generateFiles("src/test/resources/uml/TwoAPIs.uml", tmpDirPath.resolve("out.raml").toString(), null);
+		});
+	}
+
+	//the files of the APIs are named after their packages, not their titles
+	@Test
+	void generateFilesByPackageNameTest() throws IOException {
+		Path tmpDirPath = Files.createTempDirectory("uml2raml");
+		Generate generate = new Generate();
+		Map<String, String> ramlFilenames = generate.generateFiles("src/test/resources/uml/RamlTestAPI.uml", tmpDirPath.resolve("out-"+Generate.API_NAME_PLACEHOLDER+".raml").toString(), Arrays.asList("AllPropsAPI"));
+		StringWriter writer = new StringWriter();
+		RamlModel model = generate.generateOne("src/test/resources/uml/RamlTestAPI.uml", "AllPropsAPI");
+		model.write(writer);
+		Path ramlPath = tmpDirPath.resolve("out-AllPropsAPI.raml");
+		String raml = new String(Files.readAllBytes(ramlPath));
+		Files.delete(ramlPath);
+		Files.delete(tmpDirPath);
+		assertEquals("title", model.getTitle());
+		assertEquals(Collections.singletonMap("AllPropsAPI", ramlPath.toString()), ramlFilenames);
+		assertEquals(writer.toString(), raml);
+	}
+
+	//the watcher watches the model and its profiles, a changed profile is the only one reloaded
+	@Test
+	void generateWatcherReloadTest() throws IOException {
+		Generate generate = new Generate();
+		try(GenerateWatcher watcher = new GenerateWatcher(generate)) {
+			watcher.generate(() -> generate.generate("src/test/resources/uml/RestTestAPI.uml"));
+			Path profilePath = Paths.get("src/test/resources/uml/rest.profile.uml").toAbsolutePath();
+			assertTrue(watcher.getWatchedFiles().contains(Paths.get("src/test/resources/uml/RestTestAPI.uml").toAbsolutePath()));
+			assertTrue(watcher.getWatchedFiles().contains(profilePath));
+			Resource profile = findResource(generate.getSession(), "rest.profile.uml");
+			Resource otherProfile = findResource(generate.getSession(), "raml.profile.uml");
+			watcher.reload(Collections.singleton(profilePath));
+			assertNull(findResource(generate.getSession(), "rest.profile.uml"));
+			RamlModel model = generate.generateOne("src/test/resources/uml/RestTestAPI.uml");
+			assertNotSame(profile, findResource(generate.getSession(), "rest.profile.uml"));
+			assertSame(otherProfile, findResource(generate.getSession(), "raml.profile.uml"));
+			RamlResource gammaResource = model.getAllResources().stream().filter(resource -> resource.getName().equals("GammaResource")).findFirst().get();
+			assertEquals("/alpha/beta/gamma", gammaResource.getFullPath());
+		}
+	}
+
+	//incremental generations of a changing model -> same RAML as full generations, unaffected APIs reused
+	@Test
+	void generateIncrementalTest() throws IOException {
+		Path tmpDirPath = Files.createTempDirectory("uml2raml");
+		for(String filename : new String[] {"RamlTestAPI.uml", "raml.profile.uml", "rest.profile.uml", "temp.profile.uml"}) {
+			Files.copy(Paths.get("src/test/resources/uml", filename), tmpDirPath.resolve(filename));
+		}
+		Path umlPath = tmpDirPath.resolve("RamlTestAPI.uml");
+		List<String> apiNames = Arrays.asList("TypeAPI", "DescriptableAPI", "AllPropsAPI");
+		try(GenerateSession session = new GenerateSession()) {
+			Generate generate = new Generate();
+			generate.setSession(session);
+			generate.setIncremental(true);
+			Map<String, RamlModel> modelsMap = generate.generate(umlPath.toString(), apiNames);
+			assertEquals(writeModels(new Generate().generate(umlPath.toString(), apiNames)), writeModels(modelsMap));
+			//no changes
+			Map<String, RamlModel> unchangedModelsMap = generate.generate(umlPath.toString(), apiNames);
+			for(String apiName : modelsMap.keySet()) {
+				assertSame(modelsMap.get(apiName), unchangedModelsMap.get(apiName));
+			}
+			//an ApiModel property renamed
+			String uml = new String(Files.readAllBytes(umlPath), "UTF-8");
+			Files.write(umlPath, uml.replace("name=\"message\"", "name=\"text\"").getBytes("UTF-8"));
+			Map<String, RamlModel> changedModelsMap = generate.generate(umlPath.toString(), apiNames);
+			assertEquals(writeModels(new Generate().generate(umlPath.toString(), apiNames)), writeModels(changedModelsMap));
+			assertTrue(writeModels(changedModelsMap).contains("text:"));
+			assertNotSame(modelsMap.get("TypeAPI"), changedModelsMap.get("TypeAPI"));
+			assertSame(modelsMap.get("DescriptableAPI"), changedModelsMap.get("DescriptableAPI"));
+			assertSame(modelsMap.get("title"), changedModelsMap.get("title"));
+			//a stereotype property of a method changed
+			uml = new String(Files.readAllBytes(umlPath), "UTF-8");
+			Files.write(umlPath, uml.replace("mediaType=\"mediaType\" description=\"description\" queryParameters", "mediaType=\"mediaType\" description=\"changed\" queryParameters").getBytes("UTF-8"));
+			Map<String, RamlModel> otherChangedModelsMap = generate.generate(umlPath.toString(), apiNames);
+			assertEquals(writeModels(new Generate().generate(umlPath.toString(), apiNames)), writeModels(otherChangedModelsMap));
+			assertTrue(writeModels(otherChangedModelsMap).contains("description: changed"));
+			assertNotSame(changedModelsMap.get("title"), otherChangedModelsMap.get("title"));
+			assertSame(changedModelsMap.get("TypeAPI"), otherChangedModelsMap.get("TypeAPI"));
+		}
+		for(String filename : new String[] {"RamlTestAPI.uml", "raml.profile.uml", "rest.profile.uml", "temp.profile.uml"}) {
+			Files.delete(tmpDirPath.resolve(filename));
+		}
+		Files.delete(tmpDirPath);
+	}
+
+	//phase times and counters of a generation writing a file
+	@Test
+	void generationReportTest() throws IOException {
+		Path ramlPath = Files.createTempFile("uml2raml", ".raml");
+		Generate generate = new Generate();
+		generate.generateFile("src/test/resources/uml/RamlTestAPI.uml", ramlPath.toString(), "TypeAPI");
+		GenerationReport report = generate.getReport();
+		long size = Files.size(ramlPath);
+		Files.delete(ramlPath);
+		assertTrue(report.getNanos(Phase.LOAD) > 0);
+		assertTrue(report.getNanos(Phase.WRITE) > 0);
+		assertTrue(report.getTotalNanos() >= report.getNanos(Phase.LOAD)+report.getNanos(Phase.WRITE));
+		assertTrue(report.getCount(Counter.STEREOTYPE_LOOKUPS) > 0);
+		assertTrue(report.getCount(Counter.QUALIFIED_NAME_LOOKUPS) > 0);
+		assertTrue(report.getCount(Counter.ELEMENTS_VISITED) > 0);
+		assertEquals(generate.generateOne("src/test/resources/uml/RamlTestAPI.uml", "TypeAPI").getTypeSet().size(), report.getCount(Counter.TYPES_MATERIALIZED));
+		assertEquals(size, report.getCount(Counter.BYTES_WRITTEN));
+		assertTrue(report.toJSON().contains("\"bytesWritten\": "+size));
+	}
+
+	private String writeModels(Map<String, RamlModel> modelsMap) throws IOException {
+		StringWriter writer = new StringWriter();
+		for(RamlModel model : modelsMap.values()) {
+			model.write(writer);
+		}
+		return writer.toString();
+	}
+
+	private Resource findResource(GenerateSession session, String filename) {
+		return session.getResourceSet().getResources().stream()
+				.filter(resource -> filename.equals(resource.getURI().lastSegment()))
+				.findFirst().orElse(null);
+	}
+
 	//All <<Resources>> in <<API>>
 	@Test
 	void generateOneAllResourcesInApi() throws IOException {
@@ -395,6 +792,13 @@ public class GenerateTest {
 		descriptableApiExists = Files.exists(descriptableApiPath);
 		descriptableResourceExists = Files.exists(descriptableResourcePath);
 		descriptableMethodExists = Files.exists(descriptableMethodPath);
+		long created = generate.getReport().getCount(Counter.DESCRIPTION_FILES_CREATED);
+		//the files are not rewritten by the next generation
+		generate.generateFile("src/test/resources/uml/RamlTestAPI.uml", ramlPath.toString(), "DescriptableAPI");
+		long recreated = generate.getReport().getCount(Counter.DESCRIPTION_FILES_CREATED);
+		long skipped = generate.getReport().getCount(Counter.DESCRIPTION_FILES_SKIPPED);
+		//the files included by the RAML file, created or not, are reported (e.g. for the Maven fingerprint)
+		List<File> descriptionFiles = generate.getDescriptionFiles();
 		//code from https://stackoverflow.com/a/27917071/3687501
 		Files.walkFileTree(tmpDirPath, new SimpleFileVisitor<Path>() {
 			@Override
@@ -411,8 +815,116 @@ public class GenerateTest {
 		assertTrue(descriptableApiExists);
 		assertTrue(descriptableResourceExists);
 		assertTrue(descriptableMethodExists);
+		assertEquals(3, created);
+		assertEquals(0, recreated);
+		assertEquals(3, skipped);
+		assertEquals(3, descriptionFiles.size());
+		assertTrue(descriptionFiles.contains(descriptableMethodPath.toFile()));
 	}
-	
+
+	//reused incremental models include the description files relative to each RAML file, deleted files are recreated
+	@Test
+	void generateDescriptionFilesIncrementalTest() throws IOException {
+		Path tmpDirPath = Files.createTempDirectory("uml2raml");
+		Path descriptionPath = tmpDirPath.resolve("desc");
+		Files.createDirectories(descriptionPath);
+		Files.createDirectories(tmpDirPath.resolve("a"));
+		Files.createDirectories(tmpDirPath.resolve("b/c"));
+		Path ramlPath = tmpDirPath.resolve("a/out.raml");
+		Path otherRamlPath = tmpDirPath.resolve("b/c/out.raml");
+		Path apiDescriptionPath = descriptionPath.resolve("DescriptableAPI.md");
+		try(GenerateSession session = new GenerateSession()) {
+			Generate generate = new Generate();
+			generate.setSession(session);
+			generate.setIncremental(true);
+			generate.setGenerateDescriptionFiles(true);
+			generate.setDescriptionPath(descriptionPath.toString());
+			generate.generateFile("src/test/resources/uml/RamlTestAPI.uml", ramlPath.toString(), "DescriptableAPI");
+			Files.delete(apiDescriptionPath);
+			generate.generateFile("src/test/resources/uml/RamlTestAPI.uml", otherRamlPath.toString(), "DescriptableAPI");
+			assertTrue(generate.getIncrementalState().getReusedApis().contains("DescriptableAPI"));
+		}
+		String raml = new String(Files.readAllBytes(ramlPath));
+		String otherRaml = new String(Files.readAllBytes(otherRamlPath));
+		boolean recreated = Files.exists(apiDescriptionPath);
+		Files.walkFileTree(tmpDirPath, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+				Files.delete(file);
+				return FileVisitResult.CONTINUE;
+			}
+			@Override
+			public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+				Files.delete(dir);
+				return FileVisitResult.CONTINUE;
+			}
+		});
+		assertTrue(raml.contains("description: !include ../desc/DescriptableAPI.md"));
+		assertTrue(otherRaml.contains("description: !include ../../desc/DescriptableAPI.md"));
+		assertTrue(recreated);
+	}
+
+	//Properties and parameters with the same type declaration share a single frozen instance
+	@Test
+	void sharedTypeDeclarationsTest() throws IOException {
+		Generate generate = new Generate();
+		RamlModel model = generate.generateOne("src/test/resources/uml/RestTestAPI.uml");
+		List<RamlTypeDeclaration> declarations = model.getTypeSet().stream().filter(type -> type instanceof RamlObjectType).
+				flatMap(type -> ((RamlObjectType)type).getProperties().stream()).map(property -> property.getTypeDeclaration()).
+				collect(Collectors.toList());
+		for(RamlResource resource : model.getAllResources()) {
+			for(RamlMethod method : resource.getMethods()) {
+				declarations.addAll(method.getRequestBodyMap().values());
+				method.getResponses().values().forEach(response -> declarations.addAll(response.values()));
+			}
+		}
+		assertFalse(declarations.isEmpty());
+		for(RamlTypeDeclaration declaration : declarations) {
+			assertTrue(declaration.isFrozen());
+			assertSame(declaration, declarations.stream().filter(other -> other.equals(declaration)).findFirst().get());
+		}
+		assertTrue(declarations.stream().distinct().count() < declarations.size());
+		assertThrows(IllegalStateException.class, () -> declarations.get(0).addFacet("pattern", ".*"));
+		RamlTypeDeclaration copy = new RamlTypeDeclaration(declarations.get(0));
+		copy.addFacet("pattern", ".*");
+		assertEquals(declarations.get(0).isArray(), copy.isArray());
+		assertNull(declarations.get(0).getFacet("pattern"));
+	}
+
+	//A type declaration written with an indent prefix keeps the prefix as given
+	@Test
+	void typeDeclarationIndentTest() throws IOException {
+		RamlTypeDeclaration declaration = new RamlTypeDeclaration("string", true);
+		declaration.addFacet("pattern", ".*");
+		StringWriter tabWriter = new StringWriter();
+		declaration.write(tabWriter, "\t");
+		assertEquals("\ttype: array\n\titems: string\n\t  pattern: .*\n", tabWriter.toString());
+		StringWriter spaceWriter = new StringWriter();
+		declaration.write(spaceWriter, "  ");
+		StringWriter depthWriter = new StringWriter();
+		declaration.write(depthWriter, 1);
+		assertEquals(depthWriter.toString(), spaceWriter.toString());
+	}
+
+	//The descendants of a model are its resources and methods, each one after its parent
+	@Test
+	void modelDescendantsDepthFirst() throws IOException {
+		Generate generate = new Generate();
+		RamlModel model = generate.generateOne("src/test/resources/uml/RamlTestAPI.uml", "DescriptableAPI");
+		List<RamlElement> descendants = new ArrayList<>();
+		for(RamlElement element : model.descendants()) {
+			descendants.add(element);
+		}
+		int methods = model.getAllResources().stream().mapToInt(resource -> resource.getMethods().size()).sum();
+		assertEquals(model.getAllResources().size()+methods, descendants.size());
+		assertEquals(descendants, new ArrayList<>(model.getAllChildren()));
+		for(RamlResource resource : model.getAllResources()) {
+			for(RamlMethod method : resource.getMethods()) {
+				assertTrue(descendants.indexOf(resource) < descendants.indexOf(method));
+			}
+		}
+	}
+
 	//All props for RAML API stereotype
 	@Test
 	void generateOneRamlApiAllProps() throws IOException {